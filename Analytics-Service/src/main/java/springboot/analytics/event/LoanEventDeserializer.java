@@ -0,0 +1,53 @@
+package springboot.analytics.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+/**
+ * Reads a loan event in either format the library writes: {@link LoanEventWireFormat}, told by its
+ * version byte, or the JSON it wrote before, told by its opening brace. Both arrive on the same topic
+ * while the library is switched over, and JSON stays readable as long as a producer may fall back to it.
+ *
+ * <p>JSON is always read as this service's {@link LoanEvent}, whatever type header came with it, and
+ * fields it does not know are skipped - the same rules the consumer was configured with before.
+ */
+public class LoanEventDeserializer implements Deserializer<LoanEvent> {
+
+    private static final byte JSON_OBJECT = '{';
+
+    private final JsonDeserializer<LoanEvent> json = new JsonDeserializer<>(LoanEvent.class, false);
+
+    /** The event, from whichever format the bytes are in. */
+    @Override
+    public LoanEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length > 0 && data[0] == LoanEventWireFormat.VERSION) {
+            try {
+                return LoanEventWireFormat.decode(data);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Unreadable loan event on " + topic + ": " + e.getMessage(), e);
+            }
+        }
+        if (data.length > 0 && data[0] == JSON_OBJECT) {
+            return json.deserialize(topic, data);
+        }
+        throw new SerializationException("Loan event on " + topic + " is in no format this service reads"
+                + (data.length == 0 ? "" : ": it starts with byte " + data[0]));
+    }
+
+    /** As above; headers play no part in either format. */
+    @Override
+    public LoanEvent deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    /** Closes the JSON reader. */
+    @Override
+    public void close() {
+        json.close();
+    }
+}
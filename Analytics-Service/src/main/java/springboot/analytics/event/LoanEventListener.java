@@ -2,12 +2,22 @@ package springboot.analytics.event;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 import springboot.analytics.health.StreamHealth;
 import springboot.analytics.service.LoanStatisticsService;
 
-/** The service's only inbound path: it is fed by the topic, never told anything over HTTP. */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The service's only inbound path: it is fed by the topic, never told anything over HTTP.
+ *
+ * <p>Takes a whole poll at a time and hands it to {@link LoanStatisticsService#recordAll} as one
+ * transaction. The container commits the poll's offsets only once this returns, so a batch that
+ * fails to save is delivered again rather than lost, and one that saved is not counted twice.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -16,13 +26,30 @@ public class LoanEventListener {
     private final LoanStatisticsService statistics;
     private final StreamHealth streamHealth;
 
+    /**
+     * Records one poll's events: marks the stream alive, then folds them into the totals. A record the
+     * deserializer could not read arrives without a value and is passed over.
+     *
+     * <p>One consumer thread, on purpose: {@link LoanStatisticsService#recordAll} counts the books it
+     * has not seen before it upserts them, which only holds while no other batch saves at the same time.
+     */
     @KafkaListener(
             topics = "${library.events.topic:library.loans}",
-            groupId = "${spring.kafka.consumer.group-id:analytics-service}")
-    /** Records one loan event: marks the stream alive, then folds it into the totals. */
-    public void onLoanEvent(LoanEvent event) {
-        log.info("Received {} for '{}'", event.type(), event.bookTitle());
+            groupId = "${spring.kafka.consumer.group-id:analytics-service}",
+            batch = "true",
+            concurrency = "1")
+    public void onLoanEvents(List<ConsumerRecord<String, LoanEvent>> records) {
+        List<LoanEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, LoanEvent> consumed : records) {
+            if (consumed.value() == null) {
+                log.warn("Skipping unreadable loan event at {}-{}@{}", consumed.topic(), consumed.partition(),
+                        consumed.offset());
+            } else {
+                events.add(consumed.value());
+            }
+        }
+        log.debug("Received {} loan events", events.size());
         streamHealth.recordEvent();
-        statistics.record(event);
+        statistics.recordAll(events);
     }
 }
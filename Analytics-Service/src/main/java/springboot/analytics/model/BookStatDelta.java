@@ -0,0 +1,17 @@
+package springboot.analytics.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * What one batch of events adds to one book's tally: the borrows and returns to add, and the latest
+ * title, ISBN and activity time the batch carried, or null where it carried none.
+ */
+public record BookStatDelta(
+        UUID bookId,
+        String title,
+        String isbn,
+        long borrows,
+        long returns,
+        Instant lastActivity) {
+}
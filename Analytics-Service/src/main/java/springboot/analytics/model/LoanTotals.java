@@ -0,0 +1,36 @@
+package springboot.analytics.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Library-wide totals, in a table of one row, added to in the same transaction as the per-book
+ * tallies so the two never disagree. What the summary serves from memory is loaded from here.
+ */
+@Entity
+@Table(name = "loan_totals")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanTotals {
+
+    /** The id of the only row. */
+    public static final int ROW = 1;
+
+    @Id
+    private int id;
+
+    @Column(name = "books_tracked", nullable = false)
+    private long booksTracked;
+
+    @Column(name = "total_borrows", nullable = false)
+    private long totalBorrows;
+
+    @Column(name = "total_returns", nullable = false)
+    private long totalReturns;
+}
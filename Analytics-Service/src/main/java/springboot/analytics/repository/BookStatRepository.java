@@ -1,20 +1,25 @@
 package springboot.analytics.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import springboot.analytics.model.BookStat;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 /** Stores the running per-book tallies. */
 @Repository
-public interface BookStatRepository extends JpaRepository<BookStat, UUID> {
+public interface BookStatRepository extends JpaRepository<BookStat, UUID>, BookStatUpserts {
 
-    /** Every book, most borrowed first, ties broken by title. */
-    @Query("SELECT s FROM BookStat s ORDER BY s.timesBorrowed DESC, s.title ASC")
-    List<BookStat> findMostBorrowed();
+    /** The most borrowed books, at most limit of them, ties broken by title and then id. */
+    @Query("SELECT s FROM BookStat s ORDER BY s.timesBorrowed DESC, s.title ASC, s.bookId ASC")
+    List<BookStat> findMostBorrowed(Limit limit);
+
+    /** How many of these books already have a tally. */
+    long countByBookIdIn(Collection<UUID> bookIds);
 
     /** Borrows across every book, or 0 when there are none. */
     @Query("SELECT COALESCE(SUM(s.timesBorrowed), 0) FROM BookStat s")
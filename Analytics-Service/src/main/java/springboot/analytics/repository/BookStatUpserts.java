@@ -0,0 +1,12 @@
+package springboot.analytics.repository;
+
+import springboot.analytics.model.BookStatDelta;
+
+import java.util.Collection;
+
+/** Applies a batch's worth of per-book deltas to the tallies, without reading them first. */
+public interface BookStatUpserts {
+
+    /** Adds each delta to its book's row, creating the rows of books not seen before. */
+    void applyDeltas(Collection<BookStatDelta> deltas);
+}
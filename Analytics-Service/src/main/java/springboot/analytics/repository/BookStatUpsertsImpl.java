@@ -0,0 +1,60 @@
+package springboot.analytics.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import springboot.analytics.model.BookStatDelta;
+
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * {@link BookStatUpserts} as one JDBC batch of MERGE statements: each adds to the stored counts in
+ * the database, so nothing is read first, and the whole batch is one round trip whatever its size.
+ * Runs in the caller's transaction, through the same connection JPA uses.
+ */
+@RequiredArgsConstructor
+class BookStatUpsertsImpl implements BookStatUpserts {
+
+    private static final String MERGE = """
+            MERGE INTO book_stats t
+            USING (VALUES (CAST(? AS UUID), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS BIGINT),
+                           CAST(? AS BIGINT), CAST(? AS TIMESTAMP WITH TIME ZONE)))
+                AS d(book_id, title, isbn, borrows, returns, last_activity)
+            ON t.book_id = d.book_id
+            WHEN MATCHED THEN UPDATE SET
+                times_borrowed = t.times_borrowed + d.borrows,
+                times_returned = t.times_returned + d.returns,
+                title = COALESCE(d.title, t.title),
+                isbn = COALESCE(d.isbn, t.isbn),
+                last_activity = COALESCE(d.last_activity, t.last_activity)
+            WHEN NOT MATCHED THEN INSERT (book_id, title, isbn, times_borrowed, times_returned, last_activity)
+                VALUES (d.book_id, COALESCE(d.title, ''), d.isbn, d.borrows, d.returns, d.last_activity)
+            """;
+
+    private static final int[] TYPES = {
+        Types.OTHER, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.TIMESTAMP_WITH_TIMEZONE};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** One MERGE per book, sent as a single batch. */
+    @Override
+    public void applyDeltas(Collection<BookStatDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(deltas.size());
+        for (BookStatDelta delta : deltas) {
+            rows.add(new Object[] {
+                delta.bookId(),
+                delta.title(),
+                delta.isbn(),
+                delta.borrows(),
+                delta.returns(),
+                delta.lastActivity() == null ? null : delta.lastActivity().atOffset(ZoneOffset.UTC)});
+        }
+        jdbcTemplate.batchUpdate(MERGE, rows, TYPES);
+    }
+}
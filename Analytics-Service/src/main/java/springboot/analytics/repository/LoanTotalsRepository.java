@@ -0,0 +1,20 @@
+package springboot.analytics.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import springboot.analytics.model.LoanTotals;
+
+/** Stores the library-wide totals row. */
+@Repository
+public interface LoanTotalsRepository extends JpaRepository<LoanTotals, Integer> {
+
+    /** Adds to the totals in place, without reading them first. */
+    @Modifying
+    @Query("UPDATE LoanTotals t SET t.booksTracked = t.booksTracked + :books, "
+            + "t.totalBorrows = t.totalBorrows + :borrows, t.totalReturns = t.totalReturns + :returns "
+            + "WHERE t.id = " + LoanTotals.ROW)
+    int add(@Param("books") long books, @Param("borrows") long borrows, @Param("returns") long returns);
+}
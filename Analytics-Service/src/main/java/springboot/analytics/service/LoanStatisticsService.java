@@ -2,15 +2,23 @@ package springboot.analytics.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import springboot.analytics.event.LoanEvent;
 import springboot.analytics.model.BookStat;
+import springboot.analytics.model.BookStatDelta;
 import springboot.analytics.health.StreamHealth;
 import springboot.analytics.repository.BookStatRepository;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /** Keeps the per-book tallies up to date from the event stream, and reports them. */
 @Service
@@ -20,47 +28,117 @@ public class LoanStatisticsService {
 
     private final BookStatRepository repository;
     private final StreamHealth streamHealth;
+    private final MostBorrowedRanking ranking;
+    private final RunningTotals totals;
 
     /** Folds one event into the running totals. Unknown event types are ignored, not rejected. */
     @Transactional
     public void record(LoanEvent event) {
-        if (event == null || event.bookId() == null) {
+        if (event != null) {
+            recordAll(List.of(event));
+        }
+    }
+
+    /**
+     * Folds a batch of events into the running totals: first into one delta per book in memory, then
+     * into the table with one upsert per book, sent together. A busy book costs one statement per
+     * batch however many times it was borrowed in it. Events apply in the order given, so the latest
+     * title and activity time win; unknown types are ignored, not rejected.
+     */
+    @Transactional
+    public void recordAll(List<LoanEvent> events) {
+        Map<UUID, Tally> tallies = new LinkedHashMap<>();
+        for (LoanEvent event : events) {
+            if (event == null || event.bookId() == null) {
+                continue;
+            }
+            if (!LoanEvent.BORROWED.equals(event.type()) && !LoanEvent.RETURNED.equals(event.type())) {
+                log.debug("Ignoring unknown loan event type {}", event.type());
+                continue;
+            }
+            tallies.computeIfAbsent(event.bookId(), id -> new Tally()).add(event);
+        }
+
+        if (tallies.isEmpty()) {
             return;
         }
+        List<BookStatDelta> deltas = new ArrayList<>(tallies.size());
+        tallies.forEach((bookId, tally) -> deltas.add(tally.toDelta(bookId)));
+        // Read before the upsert, so right only with one batch saving at a time; see LoanEventListener.
+        long newBooks = tallies.size() - repository.countByBookIdIn(tallies.keySet());
+        long borrows = deltas.stream().mapToLong(BookStatDelta::borrows).sum();
+        long returns = deltas.stream().mapToLong(BookStatDelta::returns).sum();
+        repository.applyDeltas(deltas);
+        totals.store(newBooks, borrows, returns);
 
-        BookStat stat = repository.findById(event.bookId())
-                .orElseGet(() -> new BookStat(event.bookId(), event.bookTitle(), event.bookIsbn()));
+        // The touched books as saved, read back in one query and ranked once they are committed.
+        List<BookStat> saved = repository.findAllById(tallies.keySet());
+        afterCommit(() -> {
+            totals.committed(newBooks, borrows, returns);
+            ranking.offer(saved);
+        });
+    }
 
-        switch (event.type()) {
-            case LoanEvent.BORROWED -> stat.setTimesBorrowed(stat.getTimesBorrowed() + 1);
-            case LoanEvent.RETURNED -> stat.setTimesReturned(stat.getTimesReturned() + 1);
-            default -> {
-                log.debug("Ignoring unknown loan event type {}", event.type());
-                return;
+    /** Runs the work once the current transaction commits, or now outside one. */
+    private static void afterCommit(Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    work.run();
+                }
+            });
+        } else {
+            work.run();
+        }
+    }
+
+    /** One book's share of a batch, as it is folded. */
+    private static final class Tally {
+        private long borrows;
+        private long returns;
+        private String title;
+        private String isbn;
+        private Instant lastActivity;
+
+        void add(LoanEvent event) {
+            if (LoanEvent.BORROWED.equals(event.type())) {
+                borrows++;
+            } else {
+                returns++;
+            }
+            // Titles get corrected in the library from time to time; keep the latest one seen.
+            if (event.bookTitle() != null) {
+                title = event.bookTitle();
+            }
+            if (event.bookIsbn() != null) {
+                isbn = event.bookIsbn();
+            }
+            if (event.occurredAt() != null) {
+                lastActivity = event.occurredAt();
             }
         }
 
-        // Titles get corrected in the library from time to time; keep the latest one seen.
-        if (event.bookTitle() != null) {
-            stat.setTitle(event.bookTitle());
+        BookStatDelta toDelta(UUID bookId) {
+            return new BookStatDelta(bookId, title, isbn, borrows, returns, lastActivity);
         }
-        stat.setLastActivity(event.occurredAt());
-        repository.save(stat);
     }
 
-    /** The most borrowed books, at most limit of them. */
+    /**
+     * The most borrowed books, at most limit of them: from the ranking kept in memory, which the
+     * first call fills with one limited query, or from the table for a limit beyond what it keeps.
+     */
     @Transactional(readOnly = true)
     public List<BookStat> mostBorrowed(int limit) {
-        return repository.findMostBorrowed().stream().limit(limit).toList();
+        return ranking.top(limit, count -> repository.findMostBorrowed(Limit.of(count)));
     }
 
-    /** Library-wide totals, plus whether the event stream is live. */
-    @Transactional(readOnly = true)
+    /** Library-wide totals, from memory, plus whether the event stream is live. */
     public Summary summary() {
-        long borrows = repository.totalBorrows();
-        long returns = repository.totalReturns();
+        long borrows = totals.borrows();
+        long returns = totals.returns();
         return new Summary(
-                repository.count(),
+                totals.booksTracked(),
                 borrows,
                 returns,
                 Math.max(0, borrows - returns),
@@ -0,0 +1,112 @@
+package springboot.analytics.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import springboot.analytics.model.BookStat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * The most borrowed books, kept in order as events are recorded, so the popular-books read walks at
+ * most its limit of entries instead of sorting the whole table.
+ *
+ * <p>Holds the top {@code capacity} books, ordered as the table query orders them. It starts cold and
+ * is filled from one limited query on first use; from then on every saved batch offers it the books
+ * it touched, with their counts as saved. That keeps it in step with the table: borrow counts only
+ * grow, so a book outside the top can only get in by being borrowed, which offers it. A limit beyond
+ * the capacity is answered from the table. Offers come from the one listener thread, in commit order,
+ * so an older count never overwrites a newer one.
+ */
+@Component
+public class MostBorrowedRanking {
+
+    /** The table's order: most borrowed first, then by title, then by id so no two books tie. */
+    static final Comparator<BookStat> ORDER = Comparator.comparingLong(BookStat::getTimesBorrowed).reversed()
+            .thenComparing(BookStat::getTitle, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(BookStat::getBookId);
+
+    private final int capacity;
+
+    private final Lock lock = new ReentrantLock();
+    /** The fields below are guarded by {@link #lock}. */
+    private final NavigableSet<BookStat> ranked = new TreeSet<>(ORDER);
+    private final Map<UUID, BookStat> byBook = new HashMap<>();
+    private boolean warm;
+
+    /** Reads how many books to keep ranked from configuration. */
+    public MostBorrowedRanking(@Value("${analytics.popular-books.capacity:100}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * The top {@code limit} books. Within the capacity they come from memory, after filling it from
+     * {@code mostBorrowed} on the first call; beyond it, straight from {@code mostBorrowed}, which
+     * takes a limit and returns that many books from the table.
+     */
+    public List<BookStat> top(int limit, IntFunction<List<BookStat>> mostBorrowed) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        if (limit > capacity) {
+            return mostBorrowed.apply(limit);
+        }
+        lock.lock();
+        try {
+            if (!warm) {
+                mostBorrowed.apply(capacity).forEach(this::place);
+                warm = true;
+            }
+            List<BookStat> top = new ArrayList<>(Math.min(limit, ranked.size()));
+            Iterator<BookStat> best = ranked.iterator();
+            while (best.hasNext() && top.size() < limit) {
+                top.add(best.next());
+            }
+            return top;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts saved counts in their place. Ignored while cold: the filling query reads the table after
+     * these were committed, so it sees them anyway.
+     */
+    public void offer(Collection<BookStat> saved) {
+        lock.lock();
+        try {
+            if (warm) {
+                saved.forEach(this::place);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Replaces the book's old entry, if any, then drops whatever falls below the capacity. */
+    private void place(BookStat stat) {
+        BookStat previous = byBook.remove(stat.getBookId());
+        if (previous != null) {
+            ranked.remove(previous);
+        }
+        if (ranked.size() >= capacity && ORDER.compare(stat, ranked.last()) > 0) {
+            return;
+        }
+        ranked.add(stat);
+        byBook.put(stat.getBookId(), stat);
+        if (ranked.size() > capacity) {
+            byBook.remove(ranked.pollLast().getBookId());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package springboot.analytics.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import springboot.analytics.model.LoanTotals;
+import springboot.analytics.repository.BookStatRepository;
+import springboot.analytics.repository.LoanTotalsRepository;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The library-wide totals the summary reports, held in memory so reading them costs nothing, and
+ * kept in the {@link LoanTotals} row so they are never out of step with the per-book tallies.
+ *
+ * <p>Loaded once at start-up, before the listener starts: from the row, or, when there is none yet,
+ * from one pass over the tallies, which then becomes the row. Each batch adds to the row in its own
+ * transaction and to memory only after that commits, so a batch that rolls back leaves no trace.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RunningTotals implements SmartInitializingSingleton {
+
+    private final LoanTotalsRepository totalsRepository;
+    private final BookStatRepository bookStatRepository;
+
+    private final LongAdder bookCount = new LongAdder();
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder returnCount = new LongAdder();
+
+    /** Loads the totals; runs once every bean exists, before any listener container has started. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        LoanTotals totals = totalsRepository.findById(LoanTotals.ROW).orElseGet(() -> totalsRepository.save(
+                new LoanTotals(LoanTotals.ROW, bookStatRepository.count(), bookStatRepository.totalBorrows(),
+                        bookStatRepository.totalReturns())));
+        bookCount.add(totals.getBooksTracked());
+        borrowCount.add(totals.getTotalBorrows());
+        returnCount.add(totals.getTotalReturns());
+        log.info("Loan totals loaded: {} books, {} borrows, {} returns", bookCount.sum(), borrowCount.sum(),
+                returnCount.sum());
+    }
+
+    /** Adds a batch to the stored row, in the caller's transaction. */
+    void store(long newBooks, long batchBorrows, long batchReturns) {
+        totalsRepository.add(newBooks, batchBorrows, batchReturns);
+    }
+
+    /** Adds a batch to the totals in memory, once what {@link #store} wrote has committed. */
+    void committed(long newBooks, long batchBorrows, long batchReturns) {
+        bookCount.add(newBooks);
+        borrowCount.add(batchBorrows);
+        returnCount.add(batchReturns);
+    }
+
+    /** Books with a tally. */
+    public long booksTracked() {
+        return bookCount.sum();
+    }
+
+    /** Borrows across every book. */
+    public long borrows() {
+        return borrowCount.sum();
+    }
+
+    /** Returns across every book. */
+    public long returns() {
+        return returnCount.sum();
+    }
+}
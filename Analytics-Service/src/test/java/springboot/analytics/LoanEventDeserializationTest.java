@@ -1,15 +1,20 @@
 package springboot.analytics;
 
+import org.apache.kafka.common.errors.SerializationException;
 import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
 import springboot.analytics.event.LoanEvent;
+import springboot.analytics.event.LoanEventDeserializer;
+import springboot.analytics.event.LoanEventWireFormat;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Reading what the library actually puts on the topic.
@@ -29,15 +34,19 @@ class LoanEventDeserializationTest {
              "bookIsbn":"978-0-441-01359-3",
              "occurredAt":"2026-08-19T10:15:30Z"}""";
 
-    private static JsonDeserializer<LoanEvent> configuredAsTheConsumerIs() {
-        JsonDeserializer<LoanEvent> deserializer = new JsonDeserializer<>(LoanEvent.class);
-        deserializer.setUseTypeHeaders(false);
-        return deserializer;
+    /** The same borrow in the binary format the library writes now. */
+    private static final LoanEvent PUBLISHED = new LoanEvent(LoanEvent.BORROWED,
+            UUID.fromString("3f1a5f6e-7c2b-4a91-9d3e-5b8c1a2d4e6f"), "Ada Lovelace",
+            UUID.fromString("9c8b7a6d-5e4f-4321-8a9b-0c1d2e3f4a5b"), "Dune", "978-0-441-01359-3",
+            Instant.parse("2026-08-19T10:15:30Z"));
+
+    private static LoanEventDeserializer configuredAsTheConsumerIs() {
+        return new LoanEventDeserializer();
     }
 
     @Test
     void readsTheEventTheLibraryPublishes() {
-        try (JsonDeserializer<LoanEvent> deserializer = configuredAsTheConsumerIs()) {
+        try (LoanEventDeserializer deserializer = configuredAsTheConsumerIs()) {
             LoanEvent event = deserializer.deserialize(
                     "library.loans", PUBLISHED_JSON.getBytes(StandardCharsets.UTF_8));
 
@@ -58,7 +67,7 @@ class LoanEventDeserializationTest {
         Headers headers = new RecordHeaders();
         headers.add("__TypeId__", "app.adapters.output.events.LoanEvent".getBytes(StandardCharsets.UTF_8));
 
-        try (JsonDeserializer<LoanEvent> deserializer = configuredAsTheConsumerIs()) {
+        try (LoanEventDeserializer deserializer = configuredAsTheConsumerIs()) {
             assertThatCode(() -> {
                 LoanEvent event = deserializer.deserialize(
                         "library.loans", headers, PUBLISHED_JSON.getBytes(StandardCharsets.UTF_8));
@@ -72,10 +81,34 @@ class LoanEventDeserializationTest {
     void toleratesAFieldItDoesNotKnow() {
         String withExtra = PUBLISHED_JSON.replace("\"type\":", "\"somethingNew\":\"x\",\"type\":");
 
-        try (JsonDeserializer<LoanEvent> deserializer = configuredAsTheConsumerIs()) {
+        try (LoanEventDeserializer deserializer = configuredAsTheConsumerIs()) {
             assertThatCode(() -> deserializer.deserialize(
                     "library.loans", withExtra.getBytes(StandardCharsets.UTF_8)))
                     .doesNotThrowAnyException();
         }
     }
+
+    @Test
+    void readsTheBinaryFormatAndTheJsonItReplacesAsTheSameEvent() {
+        try (LoanEventDeserializer deserializer = configuredAsTheConsumerIs()) {
+            LoanEvent binary = deserializer.deserialize("library.loans", LoanEventWireFormat.encode(PUBLISHED));
+            LoanEvent json = deserializer.deserialize("library.loans", PUBLISHED_JSON.getBytes(StandardCharsets.UTF_8));
+
+            assertThat(binary).isEqualTo(PUBLISHED).isEqualTo(json);
+        }
+    }
+
+    /** Thrown, so the ErrorHandlingDeserializer skips the record instead of folding in garbage. */
+    @Test
+    void refusesBytesInNeitherFormat() {
+        byte[] futureVersion = LoanEventWireFormat.encode(PUBLISHED);
+        futureVersion[0] = 2;
+
+        try (LoanEventDeserializer deserializer = configuredAsTheConsumerIs()) {
+            assertThatThrownBy(() -> deserializer.deserialize("library.loans", futureVersion))
+                    .isInstanceOf(SerializationException.class);
+            assertThatThrownBy(() -> deserializer.deserialize("library.loans", new byte[] {1, 1}))
+                    .isInstanceOf(SerializationException.class);
+        }
+    }
 }
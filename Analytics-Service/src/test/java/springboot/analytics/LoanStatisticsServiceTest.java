@@ -5,9 +5,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import springboot.analytics.event.LoanEvent;
+import springboot.analytics.model.BookStat;
+import springboot.analytics.model.LoanTotals;
+import springboot.analytics.repository.BookStatRepository;
+import springboot.analytics.repository.LoanTotalsRepository;
 import springboot.analytics.service.LoanStatisticsService;
 
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -19,11 +25,22 @@ class LoanStatisticsServiceTest {
 
     @Autowired
     private LoanStatisticsService statistics;
+    @Autowired
+    private BookStatRepository bookStatRepository;
+    @Autowired
+    private LoanTotalsRepository loanTotalsRepository;
 
     private LoanEvent event(String type, UUID bookId, String title) {
         return new LoanEvent(type, UUID.randomUUID(), "A Member", bookId, title, "123", Instant.now());
     }
 
+    private BookStat statOf(UUID bookId) {
+        return statistics.mostBorrowed(Integer.MAX_VALUE).stream()
+                .filter(s -> s.getBookId().equals(bookId))
+                .findFirst()
+                .orElseThrow();
+    }
+
     @Test
     void countsBorrowsAndReturnsPerBook() {
         UUID bookId = UUID.randomUUID();
@@ -67,4 +84,53 @@ class LoanStatisticsServiceTest {
 
         assertThat(statistics.summary().booksTracked()).isEqualTo(before);
     }
+
+    /** A poll's worth at once, as the listener hands it over, added on top of what was saved before. */
+    @Test
+    void aBatchAddsToTheSavedTotalsPerBook() {
+        UUID dune = UUID.randomUUID();
+        UUID emma = UUID.randomUUID();
+        statistics.record(event(LoanEvent.BORROWED, dune, "Dune"));
+
+        statistics.recordAll(Arrays.asList(
+                event(LoanEvent.RETURNED, dune, "Dune"),
+                event(LoanEvent.BORROWED, emma, "Emma"),
+                null,
+                event("BOOK_RESERVED", emma, "Emma"),
+                event(LoanEvent.BORROWED, dune, "Dune"),
+                event(LoanEvent.BORROWED, dune, "Dune (Deluxe Edition)")));
+
+        BookStat duneStat = statOf(dune);
+        assertThat(duneStat.getTimesBorrowed()).isEqualTo(3);
+        assertThat(duneStat.getTimesReturned()).isEqualTo(1);
+        assertThat(duneStat.getTitle()).isEqualTo("Dune (Deluxe Edition)");
+        assertThat(statOf(emma).getTimesBorrowed()).isEqualTo(1);
+        assertThat(statOf(emma).getLastActivity()).isNotNull();
+    }
+
+    /** Served from memory, and the same figures as the stored row and as summing the tallies. */
+    @Test
+    void theSummaryKeepsPaceWithTheTalliesAndTheStoredTotals() {
+        LoanStatisticsService.Summary before = statistics.summary();
+        UUID dune = UUID.randomUUID();
+        UUID emma = UUID.randomUUID();
+
+        statistics.recordAll(List.of(
+                event(LoanEvent.BORROWED, dune, "Dune"),
+                event(LoanEvent.BORROWED, emma, "Emma"),
+                event(LoanEvent.RETURNED, dune, "Dune")));
+        statistics.record(event(LoanEvent.BORROWED, dune, "Dune"));
+
+        LoanStatisticsService.Summary after = statistics.summary();
+        assertThat(after.booksTracked() - before.booksTracked()).isEqualTo(2);
+        assertThat(after.totalBorrows() - before.totalBorrows()).isEqualTo(3);
+        assertThat(after.totalReturns() - before.totalReturns()).isEqualTo(1);
+
+        LoanTotals stored = loanTotalsRepository.findById(LoanTotals.ROW).orElseThrow();
+        assertThat(stored.getBooksTracked()).isEqualTo(after.booksTracked()).isEqualTo(bookStatRepository.count());
+        assertThat(stored.getTotalBorrows()).isEqualTo(after.totalBorrows())
+                .isEqualTo(bookStatRepository.totalBorrows());
+        assertThat(stored.getTotalReturns()).isEqualTo(after.totalReturns())
+                .isEqualTo(bookStatRepository.totalReturns());
+    }
 }
@@ -0,0 +1,108 @@
+package springboot.analytics;
+
+import org.junit.jupiter.api.Test;
+import springboot.analytics.model.BookStat;
+import springboot.analytics.service.MostBorrowedRanking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** The ranking on its own, over a stand-in for the table that counts how often it is asked. */
+class MostBorrowedRankingTest {
+
+    private final List<BookStat> table = new ArrayList<>();
+    private final AtomicInteger tableReads = new AtomicInteger();
+
+    private final IntFunction<List<BookStat>> mostBorrowed = limit -> {
+        tableReads.incrementAndGet();
+        return table.stream()
+                .sorted(Comparator.comparingLong(BookStat::getTimesBorrowed).reversed()
+                        .thenComparing(BookStat::getTitle))
+                .limit(limit)
+                .toList();
+    };
+
+    private BookStat stored(String title, long borrows) {
+        BookStat stat = saved(UUID.randomUUID(), title, borrows);
+        table.add(stat);
+        return stat;
+    }
+
+    private static BookStat saved(UUID bookId, String title, long borrows) {
+        BookStat stat = new BookStat(bookId, title, null);
+        stat.setTimesBorrowed(borrows);
+        return stat;
+    }
+
+    private static List<String> titles(List<BookStat> stats) {
+        return stats.stream().map(BookStat::getTitle).toList();
+    }
+
+    @Test
+    void fillsFromTheTableOnceThenAnswersFromMemory() {
+        MostBorrowedRanking ranking = new MostBorrowedRanking(3);
+        stored("Emma", 2);
+        stored("Dune", 5);
+        stored("Ulysses", 1);
+        stored("Middlemarch", 4);
+
+        assertThat(titles(ranking.top(2, mostBorrowed))).containsExactly("Dune", "Middlemarch");
+        assertThat(titles(ranking.top(3, mostBorrowed))).containsExactly("Dune", "Middlemarch", "Emma");
+        assertThat(tableReads).hasValue(1);
+    }
+
+    @Test
+    void aBookBorrowedPastTheLastRankedTakesItsPlace() {
+        MostBorrowedRanking ranking = new MostBorrowedRanking(2);
+        stored("Dune", 5);
+        stored("Emma", 2);
+        BookStat ulysses = stored("Ulysses", 1);
+        ranking.top(2, mostBorrowed);
+
+        ranking.offer(List.of(saved(ulysses.getBookId(), "Ulysses", 3)));
+
+        assertThat(titles(ranking.top(2, mostBorrowed))).containsExactly("Dune", "Ulysses");
+        assertThat(tableReads).hasValue(1);
+    }
+
+    @Test
+    void aRankedBookMovesWithItsNewCount() {
+        MostBorrowedRanking ranking = new MostBorrowedRanking(3);
+        stored("Dune", 5);
+        BookStat emma = stored("Emma", 2);
+        ranking.top(3, mostBorrowed);
+
+        ranking.offer(List.of(saved(emma.getBookId(), "Emma", 6)));
+
+        assertThat(ranking.top(3, mostBorrowed))
+                .extracting(BookStat::getTitle, BookStat::getTimesBorrowed)
+                .containsExactly(tuple("Emma", 6L),
+                        tuple("Dune", 5L));
+    }
+
+    @Test
+    void whatIsOfferedBeforeTheFirstReadIsLeftToTheTable() {
+        MostBorrowedRanking ranking = new MostBorrowedRanking(3);
+        ranking.offer(List.of(saved(UUID.randomUUID(), "Not in the table", 9)));
+        stored("Dune", 5);
+
+        assertThat(titles(ranking.top(3, mostBorrowed))).containsExactly("Dune");
+    }
+
+    @Test
+    void aLimitBeyondTheCapacityIsAnsweredFromTheTable() {
+        MostBorrowedRanking ranking = new MostBorrowedRanking(1);
+        stored("Dune", 5);
+        stored("Emma", 2);
+
+        assertThat(titles(ranking.top(2, mostBorrowed))).containsExactly("Dune", "Emma");
+        assertThat(ranking.top(0, mostBorrowed)).isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package app.adapters.input.events;
+
+import app.adapters.output.events.CacheInvalidation;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.search.BookSearchIndex;
+import app.adapters.output.search.CustomerSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.PartitionOffset;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Applies what other backend instances changed to this one's search indexes and caches. */
+@Component
+@ConditionalOnProperty(name = "library.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener {
+
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final BookSearchIndex bookSearchIndex;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final CacheManager cacheManager;
+
+    /**
+     * Re-reads the named row or evicts the named ISBN. This instance's own messages were applied when
+     * sent. The topic's one partition is assigned outright, from its end, with no group: every instance
+     * reads every message, and none leaves a group behind on the broker.
+     */
+    @KafkaListener(id = CacheInvalidationListenerConfig.LISTENER_ID, idIsGroup = false,
+            topicPartitions = @TopicPartition(
+                    topic = "${library.cache.invalidation.topic:library.cache-invalidations}",
+                    partitionOffsets = @PartitionOffset(partition = "0", initialOffset = "0", seekPosition = "END")),
+            containerFactory = "cacheInvalidationListenerFactory")
+    public void onInvalidation(CacheInvalidation invalidation) {
+        if (invalidation == null || broadcaster.origin().equals(invalidation.origin())) {
+            return;
+        }
+        log.debug("Applying invalidation of {} from {}", invalidation.compactionKey(), invalidation.origin());
+        switch (invalidation.kind()) {
+            case CacheInvalidation.BOOK -> bookSearchIndex.refreshFromPeer(ids(invalidation));
+            case CacheInvalidation.MEMBER -> customerSearchIndex.refreshFromPeer(ids(invalidation));
+            default -> invalidation.evictFrom(cacheManager);
+        }
+    }
+
+    /** The one id a book or member invalidation carries. */
+    private static List<UUID> ids(CacheInvalidation invalidation) {
+        return List.of(UUID.fromString(invalidation.key()));
+    }
+}
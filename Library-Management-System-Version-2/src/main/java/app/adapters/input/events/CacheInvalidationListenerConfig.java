@@ -0,0 +1,68 @@
+package app.adapters.input.events;
+
+import app.adapters.output.events.CacheInvalidation;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * The invalidation topic and the consumer that reads it, kept apart from the shared Kafka settings:
+ * unlike the members of a consumer group, every instance has to see every message.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class CacheInvalidationListenerConfig {
+
+    /** The listener container's id, for a test waiting on its partitions. */
+    public static final String LISTENER_ID = "cacheInvalidations";
+
+    /**
+     * Compacted, with one partition: invalidations are small and few, ordering per key is all that
+     * matters, and compaction keeps only the latest record for each thing invalidated.
+     */
+    @Bean
+    public NewTopic cacheInvalidationTopic(
+            @Value("${library.cache.invalidation.topic:library.cache-invalidations}") String topic) {
+        return TopicBuilder.name(topic).partitions(1).compact().build();
+    }
+
+    /**
+     * A consumer in no group, which the listener assigns its partition by hand. Nothing is committed:
+     * it starts from the end of the topic, since an instance that was not running has nothing stale -
+     * it builds its indexes and caches afresh. A record that cannot be read is logged and skipped
+     * rather than retried forever.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, CacheInvalidation> cacheInvalidationListenerFactory(
+            KafkaProperties kafkaProperties, ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> properties = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        properties.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        // No type headers: the broadcaster sends none, as with the loan events.
+        properties.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        properties.put(JsonDeserializer.VALUE_DEFAULT_TYPE, CacheInvalidation.class);
+
+        ConcurrentKafkaListenerContainerFactory<String, CacheInvalidation> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties));
+        return factory;
+    }
+}
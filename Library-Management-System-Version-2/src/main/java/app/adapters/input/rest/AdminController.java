@@ -20,6 +20,8 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -36,8 +38,11 @@ import org.springframework.web.bind.annotation.RestController;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
 /** Catalogue, author and loan administration. Every endpoint here requires the ADMIN role. */
 @RestController
 @RequestMapping("/admin")
@@ -56,15 +61,25 @@ public class AdminController extends PaginatedController {
     private final CatalogImportService catalogImportService;
     private final LoanStatisticsPort loanStatisticsPort;
 
-    /** Lists who has what out and when it is due. Outstanding loans only unless activeOnly=false. */
+    /** Lists who has what out and when it is due. Outstanding loans only unless activeOnly=false; after seeks. */
     @GetMapping(value = "/loans", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Every loan across all members")
     public ResponseEntity<Map<String, Object>> loans(
             @RequestParam(defaultValue = "true") boolean activeOnly,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "dueDate") String sortBy
+            @RequestParam(defaultValue = "dueDate") String sortBy,
+            @RequestParam(required = false) String after
     ) {
+        if (keysetRequested(after)) {
+            Window<Transaction> loans = activeOnly
+                    ? transactionUseCase.scrollActiveLoans(scrollPosition(after, sortBy), scrollSort(sortBy), size)
+                    : transactionUseCase.scrollAllLoans(scrollPosition(after, sortBy), scrollSort(sortBy), size);
+            HttpHeaders headers = windowLinks(loans, after, cursor -> methodOn(AdminController.class)
+                    .loans(activeOnly, 0, size, sortBy, cursor));
+            return ResponseEntity.ok().headers(headers).body(windowBody(loans));
+        }
+
         PageRequest pageable = pageRequest(page, size, sortBy);
         Page<Transaction> loans = activeOnly
                 ? transactionUseCase.viewActiveLoans(pageable)
@@ -106,11 +121,18 @@ public class AdminController extends PaginatedController {
         return body;
     }
 
-    /** Prefills the add-book form from one ISBN. Answers 404 when the catalogue has no match. */
+    /** Prefills the add-book form from one ISBN. Answers 404 when the catalogue has no match, 503 when it is down. */
     @GetMapping(value = "/books/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(summary = "Look a book up by ISBN in the external catalogue")
     public ResponseEntity<CreateNewBook> lookupBook(@RequestParam String isbn) {
-        return ResponseEntity.ok(bookCatalogPort.findByIsbn(isbn)
+        Optional<CreateNewBook> found;
+        try {
+            found = bookCatalogPort.findByIsbn(isbn);
+        } catch (RuntimeException e) {
+            // The catalogue could not be asked; the librarian can still add the book by hand.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(found
                 .orElseThrow(() -> new BookNotFoundException("No book found for ISBN " + isbn)));
     }
 
@@ -18,6 +18,7 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Window;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -36,6 +37,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -55,7 +57,7 @@ public class BookController extends PaginatedController {
     private final CatalogEnrichmentService catalogEnrichmentService;
     private final CurrentAccount currentAccount;
 
-    /** One page of the shelves, narrowed to matching books when query is given. */
+    /** One page of the shelves, narrowed to matching books when query is given; after switches to keyset paging. */
     @GetMapping(value = "/paginated",
             produces = {"application/paginated-books-response+json;version=1", MediaType.APPLICATION_JSON_VALUE})
     @Operation(summary = "Get all books, or those matching a query")
@@ -63,16 +65,24 @@ public class BookController extends PaginatedController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "3") int size,
             @RequestParam(defaultValue = "title") String sortBy,
-            @RequestParam(required = false) String query
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String after
     ) {
-        PageRequest pageable = pageRequest(page, size, sortBy);
         String trimmed = query == null ? "" : query.trim();
+        if (keysetRequested(after)) {
+            if (!trimmed.isEmpty()) {
+                throw new IllegalArgumentException("after pages the whole catalogue; page through a search by page.");
+            }
+            return scrollAllBooks(size, sortBy, after);
+        }
+        PageRequest pageable = pageRequest(page, size, sortBy);
 
         Page<Book> books = trimmed.isEmpty()
                 ? bookUseCase.getPaginatedBooks(pageable)
                 : bookUseCase.searchBooks(trimmed, pageable);
 
-        HttpHeaders headers = pageLinks(books, p -> methodOn(BookController.class).getAllBooks(p, size, sortBy, query));
+        HttpHeaders headers = pageLinks(books, p -> methodOn(BookController.class)
+                .getAllBooks(p, size, sortBy, query, null));
 
         if (books.isEmpty()) {
             Map<String, Object> errorResponse = Map.of(
@@ -89,6 +99,15 @@ public class BookController extends PaginatedController {
         return ResponseEntity.ok().headers(headers).body(pageBody(books));
     }
 
+    /** The keyset half of getAllBooks: the window after the cursor, with no count of the catalogue. */
+    private ResponseEntity<Map<String, Object>> scrollAllBooks(int size, String sortBy, String after) {
+        Window<Book> books = bookUseCase.scrollBooks(scrollPosition(after, sortBy), scrollSort(sortBy), size);
+
+        HttpHeaders headers = windowLinks(books, after, cursor -> methodOn(BookController.class)
+                .getAllBooks(0, size, sortBy, null, cursor));
+        return ResponseEntity.ok().headers(headers).body(windowBody(books));
+    }
+
     /** The full record for one book, including whether the caller is the one holding it. */
     @GetMapping(value = "/{id}",
             produces = {"application/single-book-response+json;version=1", MediaType.APPLICATION_JSON_VALUE})
@@ -102,7 +121,9 @@ public class BookController extends PaginatedController {
                     .body(Map.of("message", "Book not found", "bookId", id));
         }
 
-        Book book = catalogEnrichmentService.withDescription(found.get());
+        Book book = found.get();
+        // Queued, not fetched: the reader gets the blurb stored now, and a backfilled one next time.
+        catalogEnrichmentService.requestDescription(book);
         Optional<Transaction> activeLoan = transactionUseCase.findActiveLoanForBook(id);
         Optional<UUID> me = currentAccount.customerId(authentication);
 
@@ -138,9 +159,13 @@ public class BookController extends PaginatedController {
             @RequestParam(defaultValue = "20") int size
     ) {
         CatalogPage found = bookCatalogPort.search(query, page, size);
+        // One set lookup for the whole page, not a query per hit.
+        Set<String> stocked = bookUseCase.findStockedIsbns(found.results().stream()
+                .map(CatalogCandidate::isbn)
+                .toList());
 
         List<Map<String, Object>> results = found.results().stream()
-                .map(this::describeCandidate)
+                .map(candidate -> describeCandidate(candidate, stocked.contains(candidate.isbn())))
                 .toList();
 
         return ResponseEntity.ok(Map.of(
@@ -181,14 +206,14 @@ public class BookController extends PaginatedController {
     }
 
     /** Flattens one catalogue hit into the JSON the picker renders. */
-    private Map<String, Object> describeCandidate(CatalogCandidate candidate) {
+    private Map<String, Object> describeCandidate(CatalogCandidate candidate, boolean stocked) {
         Map<String, Object> described = new HashMap<>();
         described.put("title", candidate.title());
         described.put("isbn", candidate.isbn());
         described.put("publicationYear", candidate.publicationYear());
         described.put("authors", candidate.authors());
         described.put("coverId", candidate.coverId());
-        described.put("stocked", bookUseCase.searchByIsbn(candidate.isbn()).isPresent());
+        described.put("stocked", stocked);
         return described;
     }
 
@@ -1,17 +1,23 @@
 package app.adapters.input.rest;
 
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.HttpHeaders;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 
-/** Shared plumbing for the paginated endpoints: the Link headers and the response body. */
+/**
+ * Shared plumbing for the paginated endpoints: the Link headers and the response body, for both offset pages
+ * ({@code ?page=}) and keyset windows ({@code ?after=}), which seek past the last row instead of counting.
+ */
 public abstract class PaginatedController {
 
     /** A page request sorted ascending by the named field. */
@@ -19,6 +25,21 @@ public abstract class PaginatedController {
         return PageRequest.of(page, size, Sort.Direction.ASC, sortBy);
     }
 
+    /** Keyset mode is chosen by sending after at all; an empty after asks for the first window. */
+    protected boolean keysetRequested(String after) {
+        return after != null;
+    }
+
+    /** Where a keyset window starts: just after the row the cursor names. */
+    protected KeysetScrollPosition scrollPosition(String after, String sortBy) {
+        return ScrollCursor.decode(after, sortBy);
+    }
+
+    /** The ascending sort a keyset window is read in; the id is appended below as the tie-breaker. */
+    protected Sort scrollSort(String sortBy) {
+        return Sort.by(Sort.Direction.ASC, sortBy);
+    }
+
     /** self, prev and next Link headers, built from the real mapping rather than hand-made URLs. */
     protected HttpHeaders pageLinks(Page<?> page, IntFunction<Object> pageCall) {
         HttpHeaders headers = new HttpHeaders();
@@ -32,6 +53,17 @@ public abstract class PaginatedController {
         return headers;
     }
 
+    /** self and next Link headers for a keyset window. There is no prev: a cursor only seeks forward. */
+    protected HttpHeaders windowLinks(Window<?> window, String after, Function<String, Object> windowCall) {
+        HttpHeaders headers = new HttpHeaders();
+        addLink(headers, "self", windowCall.apply(after));
+        String next = nextCursor(window);
+        if (next != null) {
+            addLink(headers, "next", windowCall.apply(next));
+        }
+        return headers;
+    }
+
     /** Adds one Link header pointing at the given page. */
     private void addLink(HttpHeaders headers, String rel, Object methodOnInvocation) {
         headers.add(rel, "<" + linkTo(methodOnInvocation).toUri() + ">; rel=\"" + rel + "\"");
@@ -46,4 +78,23 @@ public abstract class PaginatedController {
         body.put("totalItems", page.getTotalElements());
         return body;
     }
+
+    /**
+     * The keyset counterpart of pageBody. No totals: working them out is the count a cursor avoids.
+     * Every keyset endpoint answers an empty window with this too, as a 200 with no next cursor.
+     */
+    protected Map<String, Object> windowBody(Window<?> window) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("data", window.getContent());
+        body.put("next", nextCursor(window));
+        return body;
+    }
+
+    /** The cursor for the window after this one, or null on the last. */
+    private String nextCursor(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        return ScrollCursor.encode(window.positionAt(window.size() - 1));
+    }
 }
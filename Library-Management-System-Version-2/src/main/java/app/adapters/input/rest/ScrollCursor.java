@@ -0,0 +1,99 @@
+package app.adapters.input.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The opaque {@code after} cursor of the keyset endpoints. It carries the last row's sort value and id,
+ * each tagged with its type so the next query compares like with like, then base64url so it survives a URL.
+ */
+@UtilityClass
+class ScrollCursor {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, List<String>>> KEYS = new TypeReference<>() { };
+
+    /** The cursor for the position after the given one. */
+    String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalStateException("Only keyset positions can be turned into a cursor");
+        }
+        Map<String, List<String>> keys = new LinkedHashMap<>();
+        keyset.getKeys().forEach((name, value) -> keys.put(name, List.of(tag(value), String.valueOf(value))));
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(JSON.writeValueAsBytes(keys));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write a cursor", e);
+        }
+    }
+
+    /** The position a cursor stands for. A blank cursor starts from the first row. */
+    KeysetScrollPosition decode(String cursor, String sortBy) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, List<String>> keys;
+        try {
+            keys = JSON.readValue(Base64.getUrlDecoder().decode(cursor.trim()), KEYS);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("The after cursor is not one this API issued.", e);
+        }
+        // A cursor from another sort order would seek on a column the query is not ordered by.
+        if (keys == null || !keys.containsKey(sortBy)) {
+            throw new IllegalArgumentException("The after cursor was issued for a different sortBy.");
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        keys.forEach((name, typed) -> values.put(name, untag(typed)));
+        return ScrollPosition.forward(values);
+    }
+
+    /** A one-letter tag for each type a sort key can have on the entities here. */
+    private String tag(Object value) {
+        return switch (value) {
+            // A null sort key cannot be sought past: SQL compares it as unknown, not as smallest.
+            case null -> throw new IllegalArgumentException("Keyset paging needs a sortBy that is never empty.");
+            case String ignored -> "s";
+            case UUID ignored -> "u";
+            case LocalDate ignored -> "d";
+            case Integer ignored -> "i";
+            case Long ignored -> "l";
+            case Boolean ignored -> "b";
+            default -> throw new IllegalStateException("Cannot put a " + value.getClass() + " in a cursor");
+        };
+    }
+
+    /** Reads back a value written by {@link #tag}. */
+    private Object untag(List<String> typed) {
+        if (typed == null || typed.size() != 2) {
+            throw new IllegalArgumentException("The after cursor is not one this API issued.");
+        }
+        String value = typed.get(1);
+        try {
+            return switch (typed.get(0)) {
+                case "s" -> value;
+                case "u" -> UUID.fromString(value);
+                case "d" -> LocalDate.parse(value);
+                case "i" -> Integer.valueOf(value);
+                case "l" -> Long.valueOf(value);
+                case "b" -> Boolean.valueOf(value);
+                default -> throw new IllegalArgumentException("The after cursor is not one this API issued.");
+            };
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("The after cursor is not one this API issued.", e);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Window;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -142,7 +143,8 @@ public class TransactionController extends PaginatedController {
             Authentication authentication,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "borrowDate") String sortBy
+            @RequestParam(defaultValue = "borrowDate") String sortBy,
+            @RequestParam(required = false) String after
     ) {
         Optional<UUID> customerId = currentAccount.customerId(authentication);
         if (customerId.isEmpty()) {
@@ -154,6 +156,14 @@ public class TransactionController extends PaginatedController {
                     "totalItems", 0));
         }
 
+        if (keysetRequested(after)) {
+            Window<Transaction> loans = transactionUseCase.scrollBorrowingHistory(
+                    customerId.get(), scrollPosition(after, sortBy), scrollSort(sortBy), size);
+            HttpHeaders headers = windowLinks(loans, after, cursor -> methodOn(TransactionController.class)
+                    .myHistory(null, 0, size, sortBy, cursor));
+            return ResponseEntity.ok().headers(headers).body(windowBody(loans));
+        }
+
         Page<Transaction> loans = transactionUseCase.viewBorrowingHistory(
                 customerId.get(), pageRequest(page, size, sortBy));
 
@@ -182,13 +192,22 @@ public class TransactionController extends PaginatedController {
             @PathVariable UUID customerId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "5") int size,
-            @RequestParam(defaultValue = "borrowDate") String sortBy
+            @RequestParam(defaultValue = "borrowDate") String sortBy,
+            @RequestParam(required = false) String after
     ) {
+        if (keysetRequested(after)) {
+            Window<Transaction> loans = transactionUseCase.scrollBorrowingHistory(
+                    customerId, scrollPosition(after, sortBy), scrollSort(sortBy), size);
+            HttpHeaders headers = windowLinks(loans, after, cursor -> methodOn(TransactionController.class)
+                    .viewBorrowingHistory(customerId, 0, size, sortBy, cursor));
+            return ResponseEntity.ok().headers(headers).body(windowBody(loans));
+        }
+
         PageRequest pageable = pageRequest(page, size, sortBy);
         Page<Transaction> transactionsPage = transactionUseCase.viewBorrowingHistory(customerId, pageable);
 
         HttpHeaders headers = pageLinks(transactionsPage, p -> methodOn(TransactionController.class)
-                .viewBorrowingHistory(customerId, p, size, sortBy));
+                .viewBorrowingHistory(customerId, p, size, sortBy, null));
 
         // Alone among the paginated endpoints, this one answers the empty case without the headers.
         if (transactionsPage.isEmpty()) {
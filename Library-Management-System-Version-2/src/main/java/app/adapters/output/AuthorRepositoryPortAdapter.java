@@ -2,19 +2,26 @@ package app.adapters.output;
 
 import app.adapters.output.entity.AuthorEntity;
 import app.adapters.output.mapper.EntityMapper;
+import app.adapters.output.entity.BookEntity;
+import app.adapters.output.projection.AuthorListingRow;
 import app.adapters.output.repositories.AuthorRepository;
+import app.adapters.output.search.BookSearchIndex;
 import app.domain.model.Author;
+import app.domain.model.Book;
 import app.domain.port.output.AuthorRepositoryPort;
 import app.infrastructure.exceptions.AuthorNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.Locale;
 
@@ -24,6 +31,7 @@ import java.util.Locale;
 @Transactional
 public class AuthorRepositoryPortAdapter implements AuthorRepositoryPort {
     private final AuthorRepository authorRepository;
+    private final BookSearchIndex bookSearchIndex;
 
     /** Stores a new author. */
     @Override
@@ -36,30 +44,33 @@ public class AuthorRepositoryPortAdapter implements AuthorRepositoryPort {
         authorRepository.save(authorEntity);
     }
 
-    /** One page of stored authors, books fetched with them. */
+    /**
+     * One page of stored authors with their books. The page is cut over author rows alone and the books
+     * of just that page are read after it: a fetch join here would make Hibernate load every author and
+     * page in memory, since LIMIT over joined rows would split an author's books across pages.
+     */
     @Override
     public Page<Author> getPaginatedAuthors(Pageable pageable) {
-        Page<AuthorEntity> authorEntities = authorRepository.findAllAuthorsWithBooks(pageable);
-
-        List<Author> authors = authorEntities.stream()
-                .map(EntityMapper::toAuthor)
-                .toList();
-
-        return new PageImpl<>(authors, pageable, authorEntities.getTotalElements());
+        return withBooks(authorRepository.findListingPage(pageable));
     }
 
     /** One page of stored authors matching a free-text query, matched case-insensitively. */
     @Override
     public Page<Author> searchAuthors(String query, Pageable pageable) {
         String queryLowerCase = query.toLowerCase(Locale.ROOT);
-        Page<AuthorEntity> authorEntities = authorRepository.
-                searchAuthorsByQuery(queryLowerCase, pageable);
-
-        List<Author> authors = authorEntities.stream()
-                .map(EntityMapper::toAuthor)
-                .toList();
+        return withBooks(authorRepository.searchListingPage(queryLowerCase, pageable));
+    }
 
-        return new PageImpl<>(authors, pageable, authorEntities.getTotalElements());
+    /** The page's authors, each with its books, read for the whole page in one query. */
+    private Page<Author> withBooks(Page<AuthorListingRow> page) {
+        List<UUID> ids = page.getContent().stream().map(AuthorListingRow::authorId).toList();
+        Map<UUID, Set<Book>> books = new HashMap<>();
+        if (!ids.isEmpty()) {
+            authorRepository.findBookRows(ids).forEach(row -> books
+                    .computeIfAbsent(row.authorId(), id -> new HashSet<>())
+                    .add(EntityMapper.toBookSummary(row)));
+        }
+        return page.map(row -> EntityMapper.toAuthor(row, books.getOrDefault(row.authorId(), new HashSet<>())));
     }
 
     /** Overwrites a stored author's name and bio; throws when the id is unknown. */
@@ -71,12 +82,25 @@ public class AuthorRepositoryPortAdapter implements AuthorRepositoryPort {
         authorEntity.setName(newAuthor.getName());
         authorEntity.setBio(newAuthor.getBio());
         authorRepository.save(authorEntity);
+        // Author names are indexed with each of their books, so a rename has to reach those entries.
+        bookSearchIndex.refresh(bookIds(authorEntity));
     }
 
     /** Removes a stored author. */
     @Override
     public void deleteAuthor(UUID id) {
+        List<UUID> credited = authorRepository.findById(id)
+                .map(AuthorRepositoryPortAdapter::bookIds)
+                .orElse(List.of());
         authorRepository.deleteById(id);
+        bookSearchIndex.refresh(credited);
+    }
+
+    /** The ids of the books an author is credited on. */
+    private static List<UUID> bookIds(AuthorEntity author) {
+        return author.getBooks() == null
+                ? List.of()
+                : author.getBooks().stream().map(BookEntity::getBookId).toList();
     }
 
     /** The stored author with exactly this name, or empty. */
@@ -2,25 +2,43 @@ package app.adapters.output;
 
 import app.adapters.output.entity.AuthorEntity;
 import app.adapters.output.entity.BookEntity;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
 import app.adapters.output.repositories.AuthorRepository;
 import app.adapters.output.repositories.BookRepository;
+import app.adapters.output.search.BookSearchIndex;
 import app.adapters.output.mapper.EntityMapper;
+import app.domain.model.Author;
 import app.domain.model.Book;
 import app.domain.port.output.BookRepositoryPort;
 import app.infrastructure.exceptions.BookNotFoundException;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import java.util.Locale;
 
 /** Persists books through JPA. Transactional at class level: a save also resolves and saves authors. */
 @Component
@@ -29,8 +47,14 @@ import java.util.Locale;
 @Slf4j
 public class BookRepositoryPortAdapter implements BookRepositoryPort {
 
+    /** Ceiling on one JDBC batch, so a very large import does not build one enormous statement batch. */
+    private static final int MAX_BATCH_SIZE = 500;
+
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final CacheInvalidationBroadcaster cacheInvalidations;
+    private final EntityManager entityManager;
 
     /** Stores a book, creating or reusing each of its authors. */
     @Override
@@ -69,14 +93,105 @@ public class BookRepositoryPortAdapter implements BookRepositoryPort {
         });
         BookEntity savedEntity = bookRepository.save(bookEntity);
         book.setBookId(savedEntity.getBookId());
+        bookSearchIndex.refresh(List.of(savedEntity.getBookId()));
         log.info("Book saved with ID: {}", savedEntity.getBookId());
     }
 
+    /**
+     * Stores a batch of books in one flush: authors resolved by name in one query, then the books,
+     * the new authors and the author links written as JDBC batches sized to the batch. All or nothing:
+     * the caller decides how large a batch one refused row may cost.
+     */
+    @Override
+    public void saveBooks(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        Set<String> names = books.stream()
+                .flatMap(book -> book.getAuthors().stream())
+                .map(Author::getName)
+                .collect(Collectors.toSet());
+        Map<String, AuthorEntity> authorsByName = new HashMap<>();
+        authorRepository.findWithBooksByNameIn(names).forEach(author -> authorsByName.put(author.getName(), author));
+
+        List<BookEntity> bookEntities = new ArrayList<>(books.size());
+        List<AuthorEntity> newAuthors = new ArrayList<>();
+        for (Book book : books) {
+            BookEntity bookEntity = BookEntity.builder()
+                    .title(book.getTitle())
+                    .isbn(book.getIsbn())
+                    .publicationYear(book.getPublicationYear())
+                    .availability(book.isAvailable())
+                    .description(book.getDescription())
+                    .createdAt(book.getCreatedAt())
+                    .authors(new HashSet<>())
+                    .build();
+            for (Author author : book.getAuthors()) {
+                AuthorEntity authorEntity = authorsByName.computeIfAbsent(author.getName(), name -> {
+                    // No id: a new entity is persisted, where one with an id would be merged, a SELECT each.
+                    AuthorEntity created = AuthorEntity.builder().name(name).bio(author.getBio()).build();
+                    newAuthors.add(created);
+                    return created;
+                });
+                authorEntity.getBooks().add(bookEntity);
+                bookEntity.getAuthors().add(authorEntity);
+            }
+            bookEntities.add(bookEntity);
+        }
+
+        // The transaction's own session, borrowed for its batch size: closing it is not ours to do.
+        @SuppressWarnings("PMD.CloseResource")
+        Session session = entityManager.unwrap(Session.class);
+        Integer batchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(Math.min(books.size(), MAX_BATCH_SIZE));
+        try {
+            bookRepository.saveAll(bookEntities);
+            authorRepository.saveAll(newAuthors);
+            // Flushed here so the inserts go out under this batch size rather than the session's own.
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(batchSize);
+        }
+
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setBookId(bookEntities.get(i).getBookId());
+        }
+        bookSearchIndex.refresh(bookEntities.stream().map(BookEntity::getBookId).toList());
+        log.info("Saved {} book(s) and {} new author(s) in one batch", books.size(), newAuthors.size());
+    }
+
+    /** Of these titles, the ones a stored book already has. */
+    @Override
+    public Set<String> findStockedTitles(Collection<String> titles) {
+        return titles.isEmpty() ? Set.of() : bookRepository.findTitlesIn(titles);
+    }
+
+    /** Of these ISBNs, the ones a stored book already has. */
+    @Override
+    public Set<String> findStockedIsbns(Collection<String> isbns) {
+        return isbns.isEmpty() ? Set.of() : bookRepository.findIsbnsIn(isbns);
+    }
+
+    /** From the search index's ISBN set once it is built; until then, the same query as above. */
+    @Override
+    public Set<String> findStockedIsbnsForDisplay(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return Set.of();
+        }
+        return bookSearchIndex.isBuilt() ? bookSearchIndex.stockedIsbns(isbns) : bookRepository.findIsbnsIn(isbns);
+    }
+
     /** Overwrites a stored book's details. */
     @Override
     public void updateBook(UUID bookID, Book newBook) {
         log.info("Updating book with ID: {}", bookID);
         bookRepository.findById(bookID).ifPresentOrElse(entity -> {
+            // Borrowing and returning come through here too; only a change to searched text needs the index.
+            boolean searchedTextChanged = !Objects.equals(entity.getTitle(), newBook.getTitle())
+                    || !Objects.equals(entity.getIsbn(), newBook.getIsbn())
+                    || entity.getPublicationYear() != newBook.getPublicationYear()
+                    || !Objects.equals(entity.getDescription(), newBook.getDescription());
+            String oldIsbn = entity.getIsbn();
             entity.setTitle(newBook.getTitle());
             entity.setIsbn(newBook.getIsbn());
             entity.setPublicationYear(newBook.getPublicationYear());
@@ -84,10 +199,44 @@ public class BookRepositoryPortAdapter implements BookRepositoryPort {
             entity.setDescription(newBook.getDescription());
             entity.setCreatedAt(newBook.getCreatedAt());
             bookRepository.save(entity);
+            if (searchedTextChanged) {
+                bookSearchIndex.refresh(List.of(bookID));
+            }
+            if (!Objects.equals(oldIsbn, newBook.getIsbn())) {
+                // A corrected ISBN: whatever any instance cached from the catalogue under either one,
+                // a remembered miss included, no longer describes this book.
+                cacheInvalidations.isbnChanged(oldIsbn);
+                cacheInvalidations.isbnChanged(newBook.getIsbn());
+            }
             log.info("Book updated: {}", entity.getTitle());
         }, () -> log.warn("Book with ID {} not found. Update skipped.", bookID));
     }
 
+    /** Marks a book out in one conditional UPDATE; true only when it was on the shelf. */
+    @Override
+    public boolean claimBook(UUID bookId) {
+        return bookRepository.claim(bookId) == 1;
+    }
+
+    /** Marks a book on the shelf in one UPDATE. */
+    @Override
+    public void releaseBook(UUID bookId) {
+        bookRepository.release(bookId);
+    }
+
+    /** Writes each blurb with a conditional UPDATE, then refreshes the index once for the books written. */
+    @Override
+    public void fillDescriptions(Map<UUID, String> descriptions) {
+        List<UUID> written = new ArrayList<>();
+        descriptions.forEach((bookId, description) -> {
+            if (bookRepository.fillDescription(bookId, description) == 1) {
+                written.add(bookId);
+            }
+        });
+        bookSearchIndex.refresh(written);
+        log.info("Backfilled {} of {} description(s)", written.size(), descriptions.size());
+    }
+
     /** Removes a stored book. */
     @Override
     public void deleteBook(UUID bookID) {
@@ -105,6 +254,7 @@ public class BookRepositoryPortAdapter implements BookRepositoryPort {
             bookRepository.save(book);
 
             bookRepository.deleteById(bookID);
+            bookSearchIndex.refresh(List.of(bookID));
             log.info("Book deleted successfully: {}", bookID);
         } else {
             log.error("Book not found with ID: {}", bookID);
@@ -112,10 +262,18 @@ public class BookRepositoryPortAdapter implements BookRepositoryPort {
         }
     }
 
-    /** One page of the stored catalogue. */
+    /** One page of the stored catalogue: one query for the rows, one for their authors. */
     @Override
     public Page<Book> getPaginatedBooks(Pageable pageable) {
-        return bookRepository.findAll(pageable).map(EntityMapper::toBook);
+        return withAuthors(bookRepository.findListingPage(pageable));
+    }
+
+    /** The books after a keyset position: the seek query, then one query for those rows' authors. */
+    @Override
+    public Window<Book> scrollBooks(KeysetScrollPosition after, Sort sort, int size) {
+        Window<BookListingRow> rows = bookRepository.findAllBy(after, sort, Limit.of(size));
+        Map<UUID, Set<Author>> authorsByBook = authorsOf(rows.map(BookListingRow::bookId).getContent());
+        return rows.map(row -> EntityMapper.toBook(row, authorsByBook.getOrDefault(row.bookId(), new HashSet<>())));
     }
 
     /** The stored book with exactly this title, or empty. */
@@ -144,9 +302,50 @@ public class BookRepositoryPortAdapter implements BookRepositoryPort {
         return bookRepository.findBookByBookId(id).map(EntityMapper::toBook);
     }
 
-    /** One page of stored books matching a free-text query. */
+    /**
+     * One page of stored books matching a free-text query, ranked by the search index. Only the ids on
+     * the requested page are read from the database: one query for their rows, one for their authors.
+     * Until the index is built, at start-up, the query is a substring match in the database instead.
+     */
     @Override
     public Page<Book> searchBooks(String query, Pageable pageable) {
-        return bookRepository.findBooksByQuery(query.toLowerCase(Locale.ROOT), pageable).map(EntityMapper::toBook);
+        if (!bookSearchIndex.isBuilt()) {
+            String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+            return needle.isEmpty()
+                    ? Page.empty(pageable)
+                    : withAuthors(bookRepository.findListingPageByQuery(needle, pageable));
+        }
+        Page<UUID> ranked = bookSearchIndex.search(query, pageable);
+        if (ranked.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ranked.getTotalElements());
+        }
+        Map<UUID, BookListingRow> rows = new HashMap<>();
+        bookRepository.findListingRows(ranked.getContent()).forEach(row -> rows.put(row.bookId(), row));
+        Map<UUID, Set<Author>> authorsByBook = authorsOf(ranked.getContent());
+
+        List<Book> books = ranked.getContent().stream()
+                .filter(rows::containsKey)
+                .map(id -> EntityMapper.toBook(rows.get(id), authorsByBook.getOrDefault(id, new HashSet<>())))
+                .toList();
+        return new PageImpl<>(books, pageable, ranked.getTotalElements());
+    }
+
+    /** Maps a page of listing rows, reading the authors of every row on it in a single batch. */
+    private Page<Book> withAuthors(Page<BookListingRow> rows) {
+        Map<UUID, Set<Author>> authorsByBook = authorsOf(rows.map(BookListingRow::bookId).getContent());
+        return rows.map(row -> EntityMapper.toBook(row, authorsByBook.getOrDefault(row.bookId(), new HashSet<>())));
+    }
+
+    /** The authors of these books keyed by book id, in one query; no query at all for an empty list. */
+    private Map<UUID, Set<Author>> authorsOf(List<UUID> bookIds) {
+        Map<UUID, Set<Author>> authorsByBook = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return authorsByBook;
+        }
+        for (BookAuthorRow authorRow : bookRepository.findAuthorRows(bookIds)) {
+            authorsByBook.computeIfAbsent(authorRow.bookId(), id -> new HashSet<>())
+                    .add(EntityMapper.toAuthorSummary(authorRow));
+        }
+        return authorsByBook;
     }
 }
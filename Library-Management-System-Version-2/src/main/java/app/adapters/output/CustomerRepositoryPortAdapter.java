@@ -3,18 +3,23 @@ package app.adapters.output;
 import app.adapters.output.entity.CustomerEntity;
 import app.adapters.output.mapper.EntityMapper;
 import app.adapters.output.repositories.CustomerRepository;
+import app.adapters.output.search.CustomerSearchIndex;
 import app.domain.model.Customer;
 import app.domain.port.output.CustomerRepositoryPort;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.Locale;
 
 /** Persists members through JPA. */
 @Component
@@ -22,6 +27,7 @@ import java.util.Locale;
 @Transactional
 public class CustomerRepositoryPortAdapter implements CustomerRepositoryPort {
     private final CustomerRepository customerRepository;
+    private final CustomerSearchIndex customerSearchIndex;
 
     /** Stores a new member and writes the assigned id back onto the model. */
     @Override
@@ -35,19 +41,69 @@ public class CustomerRepositoryPortAdapter implements CustomerRepositoryPort {
         CustomerEntity savedEntity = customerRepository.save(customerEntity);
 
         customer.setCustomerId(savedEntity.getCustomerId());
+        customerSearchIndex.refresh(List.of(savedEntity.getCustomerId()));
 
     }
 
-    /** One page of stored members, without their loans. */
+    /** One page of stored members, read as listing rows so their loans are never loaded. */
     @Override
     public Page<Customer> getPaginatedCustomers(Pageable pageable) {
-        return customerRepository.findAll(pageable).map(EntityMapper::toCustomerSummary);
+        return customerRepository.findListingPage(pageable).map(EntityMapper::toCustomerSummary);
     }
 
-    /** One page of stored members matching a free-text query, matched case-insensitively. */
+    /**
+     * One page of stored members matching a free-text query. A query that is a whole UUID is taken as a
+     * member id or a loan id and answered by primary key; anything else is a case-insensitive substring
+     * of name or email, answered by the trigram index - or by SQL when the query is too short for a
+     * trigram or the index is not built yet - with only the page's members read back. A member deleted
+     * between finding the ids and reading them back is left off the page and out of the total.
+     */
     @Override
     public Page<Customer> searchCustomer(String query, Pageable pageable) {
-        return customerRepository.searchByQuery(query.toLowerCase(Locale.ROOT), pageable).map(EntityMapper::toCustomer);
+        Optional<UUID> id = asUuid(query);
+        if (id.isPresent()) {
+            List<Customer> found = customerRepository.findByCustomerOrLoanId(id.get())
+                    .map(EntityMapper::toCustomer)
+                    .stream()
+                    .toList();
+            return new PageImpl<>(found, pageable, found.size());
+        }
+
+        Page<UUID> ranked = customerSearchIndex.answers(query)
+                ? customerSearchIndex.search(query, pageable)
+                : searchIdsInDatabase(query, pageable);
+        if (ranked.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ranked.getTotalElements());
+        }
+        Map<UUID, CustomerEntity> entities = new HashMap<>();
+        customerRepository.findWithTransactionsByIds(ranked.getContent())
+                .forEach(entity -> entities.put(entity.getCustomerId(), entity));
+        List<Customer> customers = ranked.getContent().stream()
+                .filter(entities::containsKey)
+                .map(customerId -> EntityMapper.toCustomer(entities.get(customerId)))
+                .toList();
+        long deleted = ranked.getNumberOfElements() - customers.size();
+        return new PageImpl<>(customers, pageable, ranked.getTotalElements() - deleted);
+    }
+
+    /** Member ids by a substring match in SQL, for a query the index turns away; a blank one matches nothing. */
+    private Page<UUID> searchIdsInDatabase(String query, Pageable pageable) {
+        String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        return needle.isEmpty() ? Page.empty(pageable) : customerRepository.findIdsByQuery(needle, pageable);
+    }
+
+    /** The query as a UUID when it is exactly one, ignoring surrounding space. */
+    private static Optional<UUID> asUuid(String query) {
+        String trimmed = query == null ? "" : query.trim();
+        // UUID.fromString accepts shortened forms like "1-2-3-4-5"; only the canonical 36 characters count.
+        if (trimmed.length() != 36) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(trimmed));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     /** The stored member with this id, or empty. */
@@ -83,6 +139,7 @@ public class CustomerRepositoryPortAdapter implements CustomerRepositoryPort {
                     customerEntity.setEmail(customer.getEmail());
                     customerEntity.setPrivileges(customer.isPrivileges());
                     customerRepository.save(customerEntity);
+                    customerSearchIndex.refresh(List.of(customerEntity.getCustomerId()));
                 }, () -> {
                     throw new EntityNotFoundException("Customer with ID " + customer.getCustomerId() + " not found");
                 });
@@ -93,8 +150,27 @@ public class CustomerRepositoryPortAdapter implements CustomerRepositoryPort {
     public void deleteCustomer(UUID id) {
         if (customerRepository.existsById(id)) {
             customerRepository.deleteById(id);
+            customerSearchIndex.refresh(List.of(id));
         } else {
             throw new RuntimeException("Customer with ID " + id + " not found!");
         }
     }
+
+    /** One conditional UPDATE on the member's loan counter; true when it was under the limit. */
+    @Override
+    public boolean reserveLoanSlot(UUID customerId, int limit) {
+        return customerRepository.incrementActiveLoans(customerId, limit) == 1;
+    }
+
+    /** One UPDATE on the member's loan counter. */
+    @Override
+    public void releaseLoanSlot(UUID customerId) {
+        customerRepository.decrementActiveLoans(customerId);
+    }
+
+    /** One UPDATE over every member whose counter disagrees with the loans table. */
+    @Override
+    public int reconcileActiveLoans() {
+        return customerRepository.reconcileActiveLoans();
+    }
 }
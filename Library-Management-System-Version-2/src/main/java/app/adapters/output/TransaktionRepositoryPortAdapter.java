@@ -13,8 +13,12 @@ import app.domain.port.output.TransactionRepositoryPort;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -63,6 +67,12 @@ public class TransaktionRepositoryPortAdapter implements TransactionRepositoryPo
 
     }
 
+    /** Closes the loan in one conditional UPDATE; true only when it was still open. */
+    @Override
+    public boolean closeLoan(UUID transactionId, LocalDate returnDate) {
+        return transactionRepository.closeOpenLoan(transactionId, returnDate) == 1;
+    }
+
     /** Every stored loan recorded against one book. */
     @Override
     public List<Transaction> getTransactionsForBook(Book book) {
@@ -79,6 +89,14 @@ public class TransaktionRepositoryPortAdapter implements TransactionRepositoryPo
                 .map(EntityMapper::toTransaction);
     }
 
+    /** One member's stored loans after a keyset position; no count query runs. */
+    @Override
+    public Window<Transaction> scrollBorrowingHistory(UUID customerId, KeysetScrollPosition after, Sort sort,
+                                                      int size) {
+        return transactionRepository.findByCustomerCustomerId(customerId, after, sort, Limit.of(size))
+                .map(EntityMapper::toTransaction);
+    }
+
     /** The stored loan with this id, or empty. */
     @Override
     public Optional<Transaction> findTransactionById(UUID transactionId) {
@@ -105,6 +123,19 @@ public class TransaktionRepositoryPortAdapter implements TransactionRepositoryPo
         return transactionRepository.findByReturnDateIsNull(pageable).map(EntityMapper::toTransaction);
     }
 
+    /** Every stored loan after a keyset position; no count query runs. */
+    @Override
+    public Window<Transaction> scrollAllTransactions(KeysetScrollPosition after, Sort sort, int size) {
+        return transactionRepository.findAllBy(after, sort, Limit.of(size)).map(EntityMapper::toTransaction);
+    }
+
+    /** The outstanding loans after a keyset position; no count query runs. */
+    @Override
+    public Window<Transaction> scrollActiveLoans(KeysetScrollPosition after, Sort sort, int size) {
+        return transactionRepository.findByReturnDateIsNull(after, sort, Limit.of(size))
+                .map(EntityMapper::toTransaction);
+    }
+
     /** How many books a member has out right now. */
     @Override
     public long countActiveLoans(UUID customerId) {
@@ -0,0 +1,197 @@
+package app.adapters.output.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to Open Library, so a slow or failing catalogue cannot take request threads with it.
+ *
+ * <p>The bulkhead caps how many calls are out at once; a caller who cannot get a slot soon is turned
+ * away rather than queued behind calls that may each take the full read timeout. The breaker opens
+ * after a run of consecutive failures and turns every call away at once while open. After the
+ * cool-down it lets a single probe through: success closes it, failure opens it for another round.
+ * A 4xx answer is the catalogue working, not failing, and counts as a success.
+ */
+@Slf4j
+public class CatalogCircuitBreaker {
+
+    /** Where the breaker stands. */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Semaphore slots;
+    private final Duration slotWait;
+    private final int failureThreshold;
+    private final Duration openFor;
+    private final Clock clock;
+
+    private final Lock lock = new ReentrantLock();
+    /** The fields below are guarded by {@link #lock}. */
+    private State current = State.CLOSED;
+    private int failuresInARow;
+    private Instant openedAt;
+    private boolean probeOut;
+
+    /** A breaker on the system clock. */
+    public CatalogCircuitBreaker(int maxConcurrentCalls, Duration slotWait, int failureThreshold, Duration openFor) {
+        this(maxConcurrentCalls, slotWait, failureThreshold, openFor, Clock.systemUTC());
+    }
+
+    /** As above, on a given clock, so a test can pass the cool-down without waiting for it. */
+    public CatalogCircuitBreaker(int maxConcurrentCalls, Duration slotWait, int failureThreshold, Duration openFor,
+                                 Clock clock) {
+        if (maxConcurrentCalls < 1 || failureThreshold < 1) {
+            throw new IllegalArgumentException("The catalogue breaker needs at least one slot and one failure to open");
+        }
+        this.slots = new Semaphore(maxConcurrentCalls, true);
+        this.slotWait = slotWait;
+        this.failureThreshold = failureThreshold;
+        this.openFor = openFor;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs the call if the breaker and the bulkhead allow it, recording how it went. Throws
+     * {@link CatalogUnavailableException} without calling when they do not; otherwise rethrows
+     * whatever the call threw.
+     */
+    public <T> T call(Supplier<T> call) {
+        boolean probe = admit();
+        try {
+            if (!acquireSlot()) {
+                throw new CatalogUnavailableException("Too many catalogue calls in flight");
+            }
+            try {
+                T result = call.get();
+                recordSuccess();
+                return result;
+            } catch (HttpClientErrorException e) {
+                recordSuccess();
+                throw e;
+            } catch (RuntimeException e) {
+                recordFailure();
+                throw e;
+            } finally {
+                slots.release();
+            }
+        } finally {
+            if (probe) {
+                endProbe();
+            }
+        }
+    }
+
+    /** Where the breaker stands now; an open breaker past its cool-down reads as half-open. */
+    public State state() {
+        lock.lock();
+        try {
+            return current == State.OPEN && coolDownOver() ? State.HALF_OPEN : current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Failures since the last success. */
+    public int consecutiveFailures() {
+        lock.lock();
+        try {
+            return failuresInARow;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Calls that could start now without waiting for a slot. */
+    public int availableSlots() {
+        return slots.availablePermits();
+    }
+
+    /** Lets the call through or turns it away. True when it goes through as the half-open probe. */
+    private boolean admit() {
+        lock.lock();
+        try {
+            if (current == State.OPEN && coolDownOver()) {
+                current = State.HALF_OPEN;
+            }
+            return switch (current) {
+                case CLOSED -> false;
+                case OPEN -> throw new CatalogUnavailableException("The catalogue circuit is open");
+                case HALF_OPEN -> {
+                    if (probeOut) {
+                        throw new CatalogUnavailableException("The catalogue circuit is being probed");
+                    }
+                    probeOut = true;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Waits briefly for a slot in the bulkhead; never past {@link #slotWait}. */
+    @SuppressWarnings("PMD.DoNotUseThreads") // Only to restore the interrupt flag on the caller's thread.
+    private boolean acquireSlot() {
+        try {
+            return slots.tryAcquire(slotWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Closes the breaker: the catalogue answered. */
+    private void recordSuccess() {
+        lock.lock();
+        try {
+            if (current != State.CLOSED) {
+                log.info("Open Library answered again; closing the catalogue circuit");
+            }
+            current = State.CLOSED;
+            failuresInARow = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Counts a failure, opening the breaker at the threshold or when the probe failed. */
+    private void recordFailure() {
+        lock.lock();
+        try {
+            failuresInARow++;
+            if (current == State.HALF_OPEN || failuresInARow >= failureThreshold) {
+                if (current != State.OPEN) {
+                    log.warn("Open Library failed {} time(s) in a row; opening the catalogue circuit for {}",
+                            failuresInARow, openFor);
+                }
+                current = State.OPEN;
+                openedAt = clock.instant();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frees the probe's place, whatever became of it, so the next one can go once the breaker allows. */
+    private void endProbe() {
+        lock.lock();
+        try {
+            probeOut = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held. */
+    private boolean coolDownOver() {
+        return !clock.instant().isBefore(openedAt.plus(openFor));
+    }
+}
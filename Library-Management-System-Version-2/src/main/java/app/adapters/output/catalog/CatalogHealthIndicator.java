@@ -0,0 +1,28 @@
+package app.adapters.output.catalog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * The catalogue breaker in {@code /actuator/health}, as the {@code catalog} component. Always UP: the
+ * library works without Open Library, so an open circuit is reported in the details rather than
+ * allowed to mark the whole backend unhealthy and have it restarted for someone else's outage.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogHealthIndicator implements HealthIndicator {
+
+    private final CatalogCircuitBreaker catalogCircuitBreaker;
+
+    /** The breaker's state, its run of failures and the free bulkhead slots. */
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("circuit", catalogCircuitBreaker.state())
+                .withDetail("consecutiveFailures", catalogCircuitBreaker.consecutiveFailures())
+                .withDetail("availableSlots", catalogCircuitBreaker.availableSlots())
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package app.adapters.output.catalog;
+
+/** A catalogue call turned away before it was made: the circuit is open or the bulkhead is full. */
+public class CatalogUnavailableException extends RuntimeException {
+
+    /** Says why the call was not made. */
+    public CatalogUnavailableException(String message) {
+        super(message);
+    }
+}
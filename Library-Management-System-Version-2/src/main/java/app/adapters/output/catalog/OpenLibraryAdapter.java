@@ -2,17 +2,30 @@ package app.adapters.output.catalog;
 
 import app.domain.dto.CreateNewAuthor;
 import app.domain.dto.CreateNewBook;
-import app.domain.model.CatalogCandidate;
 import app.domain.model.CatalogPage;
 import app.domain.port.output.BookCatalogPort;
+import app.infrastructure.config.cache.CacheReloader;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -20,7 +33,7 @@ import java.util.regex.Pattern;
 /** Looks books up in Open Library, reading raw JSON because the shape varies by edition. */
 @Component
 @Slf4j
-public class OpenLibraryAdapter implements BookCatalogPort {
+public class OpenLibraryAdapter implements BookCatalogPort, CacheReloader {
 
     private static final Pattern YEAR = Pattern.compile("\\d{4}");
     private static final int MAX_DESCRIPTION = 4000;
@@ -28,46 +41,187 @@ public class OpenLibraryAdapter implements BookCatalogPort {
     /** Open Library refuses larger pages, and a reader has no use for one anyway. */
     private static final int MAX_PAGE_SIZE = 100;
 
+    /** Long enough for a lookup's two calls at the client's read timeout, with room to spare. */
+    private static final Duration DEFAULT_COALESCE_TIMEOUT = Duration.ofSeconds(35);
+
+    /** ISBNs per call in a batched lookup: a short enough URL, and a response of a few hundred KB. */
+    private static final int DEFAULT_LOOKUP_BATCH = 50;
+
+    /** Turns a 4xx or 5xx search answer into the exception {@code retrieve()} would have thrown. */
+    private static final ResponseErrorHandler RESPONSE_ERRORS = new DefaultResponseErrorHandler();
+
     private final RestClient restClient;
+    private final CatalogCircuitBreaker circuitBreaker;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+    private final SearchResponseReader searchResponseReader = new SearchResponseReader(new JsonFactory());
+
+    /** Concurrent lookups of one ISBN, and searches for one page, share a single trip to Open Library. */
+    private final SingleFlight<String, Optional<CreateNewBook>> lookups;
+    private final SingleFlight<String, CatalogPage> searches;
 
-    /** Takes the shared catalogue client, so tests can pass a stubbed one. */
+    /**
+     * Takes the shared catalogue client, so tests can pass a stubbed one. Batched lookups cache nothing,
+     * and the breaker never opens.
+     */
     public OpenLibraryAdapter(RestClient catalogRestClient) {
+        this(catalogRestClient, new CatalogCircuitBreaker(Integer.MAX_VALUE, Duration.ZERO, Integer.MAX_VALUE,
+                Duration.ZERO), new NoOpCacheManager(), DEFAULT_COALESCE_TIMEOUT, DEFAULT_LOOKUP_BATCH);
+    }
+
+    /**
+     * As above, with the breaker every call goes through, the cache manager a batched lookup fills,
+     * how long a caller waits on a lookup someone else started, and how many ISBNs go in one call.
+     */
+    @Autowired
+    public OpenLibraryAdapter(RestClient catalogRestClient, CatalogCircuitBreaker catalogCircuitBreaker,
+                              CacheManager cacheManager,
+                              @Value("${library.catalog.coalesce-timeout:PT35S}") Duration coalesceTimeout,
+                              @Value("${library.catalog.lookup-batch-size:50}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("library.catalog.lookup-batch-size must be at least 1");
+        }
         this.restClient = catalogRestClient;
+        this.circuitBreaker = catalogCircuitBreaker;
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+        this.lookups = new SingleFlight<>(coalesceTimeout);
+        this.searches = new SingleFlight<>(coalesceTimeout);
     }
 
-    /** The book for one ISBN, or empty. Only hits are cached, so a timeout is retried. */
+    /**
+     * The book for one ISBN, or empty. Only hits are cached, so a timeout is retried. Readers asking
+     * for the same ISBN while it is being looked up wait for that lookup rather than starting their own,
+     * and a failed one is thrown to each of them, never handed out as "no such book".
+     */
     @Override
     @Cacheable(cacheNames = "catalogLookup", key = "#isbn", unless = "#result == null")
     public Optional<CreateNewBook> findByIsbn(String isbn) {
-        String cleaned = isbn == null ? "" : isbn.replaceAll("[^0-9Xx]", "");
+        String cleaned = clean(isbn);
         if (cleaned.isBlank()) {
             return Optional.empty();
         }
+        return lookups.execute(cleaned, () -> lookup(cleaned));
+    }
+
+    /** The one or two calls behind a lookup. Failures are thrown, to every waiter. */
+    private Optional<CreateNewBook> lookup(String cleaned) {
+        return Optional.ofNullable(lookupBatch(List.of(cleaned)).get(cleaned));
+    }
 
+    /**
+     * Many ISBNs at once, keyed as given. Those already in the lookup cache are served from it; the
+     * rest go to Open Library a batch of bibkeys per call, plus one call per batch for the editions
+     * whose authors are only under {@code data}. Each hit is cached under the ISBN as given, so a
+     * single lookup of it afterwards is a cache hit. A batch that fails is left out and caches nothing.
+     */
+    @Override
+    public Map<String, CreateNewBook> findByIsbns(Collection<String> isbns) {
+        Cache cache = cacheManager.getCache(cacheName());
+        Map<String, CreateNewBook> found = new LinkedHashMap<>();
+        // Cleaned ISBN to the spellings asked for, so "978-0-..." and "9780..." cost one lookup.
+        Map<String, List<String>> missing = new LinkedHashMap<>();
+
+        for (String isbn : isbns) {
+            String cleaned = clean(isbn);
+            if (cleaned.isBlank() || found.containsKey(isbn)) {
+                continue;
+            }
+            CreateNewBook cached = cache == null ? null : cache.get(isbn, CreateNewBook.class);
+            if (cached != null) {
+                found.put(isbn, cached);
+            } else {
+                missing.computeIfAbsent(cleaned, key -> new ArrayList<>()).add(isbn);
+            }
+        }
+
+        List<String> toFetch = List.copyOf(missing.keySet());
+        for (int from = 0; from < toFetch.size(); from += batchSize) {
+            List<String> batch = toFetch.subList(from, Math.min(from + batchSize, toFetch.size()));
+            Map<String, CreateNewBook> books;
+            try {
+                books = lookupBatch(batch);
+            } catch (RuntimeException e) {
+                log.warn("Open Library lookup for {} ISBN(s) failed: {}", batch.size(), e.getMessage());
+                continue;
+            }
+            books.forEach((cleaned, book) -> missing.get(cleaned).forEach(asked -> {
+                found.put(asked, book);
+                if (cache != null) {
+                    cache.put(asked, book);
+                }
+            }));
+        }
+        return found;
+    }
+
+    /** One call for the details of a batch, then one for the authors some editions keep under `data`. */
+    private Map<String, CreateNewBook> lookupBatch(List<String> cleaned) {
+        Map<String, CreateNewBook> books = new LinkedHashMap<>();
         JsonNode details = fetch(cleaned, "details");
-        if (details == null || details.isMissingNode()) {
-            return Optional.empty();
+        if (details == null) {
+            // An empty body: nothing known about any of them.
+            return books;
+        }
+
+        List<String> authorless = new ArrayList<>();
+        for (String isbn : cleaned) {
+            JsonNode entry = details.path("ISBN:" + isbn);
+            if (entry.isMissingNode()) {
+                continue;
+            }
+            JsonNode record = entry.path("details");
+            List<CreateNewAuthor> authors = readAuthors(record);
+            if (authors.isEmpty()) {
+                authorless.add(isbn);
+            }
+            books.put(isbn, new CreateNewBook(
+                    record.path("title").asText(null),
+                    isbn,
+                    parseYear(record.path("publish_date").asText(null)),
+                    readDescription(record),
+                    authors));
         }
-        JsonNode record = details.path("details");
 
-        List<CreateNewAuthor> authors = readAuthors(record);
-        if (authors.isEmpty()) {
+        if (!authorless.isEmpty()) {
             // Some editions carry no authors under `details` but do under `data`.
-            JsonNode data = fetch(cleaned, "data");
+            JsonNode data = fetch(authorless, "data");
             if (data != null) {
-                authors = readAuthors(data);
+                authorless.forEach(isbn -> books.get(isbn).setAuthors(readAuthors(data.path("ISBN:" + isbn))));
             }
         }
+        return books;
+    }
 
-        return Optional.of(new CreateNewBook(
-                record.path("title").asText(null),
-                cleaned,
-                parseYear(record.path("publish_date").asText(null)),
-                readDescription(record),
-                authors));
+    /** Digits and the check letter only, as Open Library's bibkeys want them. */
+    private static String clean(String isbn) {
+        return isbn == null ? "" : isbn.replaceAll("[^0-9Xx]", "");
     }
 
-    /** One page of search hits. Cached because readers page back and forth over the same query. */
+    /** Lookups are the entries worth renewing ahead of expiry: the same ISBNs come up again and again. */
+    @Override
+    public String cacheName() {
+        return "catalogLookup";
+    }
+
+    /**
+     * Looks the ISBN up again. Called on this object, not the proxy, so it reaches Open Library. A
+     * lookup that fails reads as empty here, which keeps the entry already cached.
+     */
+    @Override
+    public Optional<Object> reload(Object key) {
+        try {
+            return findByIsbn(String.valueOf(key)).map(Object.class::cast);
+        } catch (RuntimeException e) {
+            log.debug("Open Library refresh for ISBN {} failed: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * One page of search hits. Cached because readers page back and forth over the same query, and
+     * coalesced because the seeder and the discover page ask for the same pages at the same time.
+     */
     @Override
     @Cacheable(cacheNames = "catalogSearch",
             key = "#query.toLowerCase() + '#' + #page + '#' + #size",
@@ -82,86 +236,49 @@ public class OpenLibraryAdapter implements BookCatalogPort {
         int pageNumber = Math.max(page, 0) + 1;
 
         try {
-            JsonNode body = restClient.get()
-                    .uri(uri -> uri.path("/search.json")
-                            .queryParam("q", query)
-                            .queryParam("page", pageNumber)
-                            .queryParam("limit", pageSize)
-                            .queryParam("fields", "title,author_name,first_publish_year,isbn,cover_i")
-                            .build())
-                    .retrieve()
-                    .body(JsonNode.class);
-
-            if (body == null) {
-                return CatalogPage.empty();
-            }
-
-            List<CatalogCandidate> results = new ArrayList<>();
-            for (JsonNode doc : body.path("docs")) {
-                // Without an ISBN there is nothing to import against, so skip the entry.
-                String isbn = firstIsbn(doc);
-                if (isbn == null) {
-                    continue;
-                }
-                JsonNode cover = doc.path("cover_i");
-                results.add(new CatalogCandidate(
-                        doc.path("title").asText(null),
-                        isbn,
-                        doc.path("first_publish_year").asInt(0),
-                        readAuthorNames(doc),
-                        cover.isNumber() ? cover.asLong() : null));
-            }
-
-            // numFound counts every edition matching the query, including the ISBN-less ones
-            // skipped above, so the last page can come back shorter than it promises.
-            return new CatalogPage(results, body.path("numFound").asInt(results.size()));
+            return searches.execute(query.toLowerCase(Locale.ROOT) + '#' + pageNumber + '#' + pageSize,
+                    () -> fetchPage(query, pageNumber, pageSize));
+        } catch (CatalogUnavailableException e) {
+            log.debug("Open Library search for '{}' not made: {}", query, e.getMessage());
+            return CatalogPage.empty();
         } catch (Exception e) {
             log.warn("Open Library search for '{}' failed: {}", query, e.getMessage());
             return CatalogPage.empty();
         }
     }
 
-    /** Search results list every edition's ISBN; the first 13-digit one is the most useful. */
-    private String firstIsbn(JsonNode doc) {
-        String fallback = null;
-        for (JsonNode isbn : doc.path("isbn")) {
-            String value = isbn.asText();
-            if (value.length() == 13) {
-                return value;
-            }
-            if (fallback == null) {
-                fallback = value;
-            }
-        }
-        return fallback;
+    /** One page from the search endpoint, as Open Library numbers them. Failures are thrown, to every waiter. */
+    private CatalogPage fetchPage(String query, int pageNumber, int pageSize) {
+        return circuitBreaker.call(() -> restClient.get()
+                .uri(uri -> uri.path("/search.json")
+                        .queryParam("q", query)
+                        .queryParam("page", pageNumber)
+                        .queryParam("limit", pageSize)
+                        .queryParam("fields", "title,author_name,first_publish_year,isbn,cover_i")
+                        .build())
+                // Streamed straight into candidates rather than read into a tree first; see SearchResponseReader.
+                .exchange((request, response) -> {
+                    if (RESPONSE_ERRORS.hasError(response)) {
+                        RESPONSE_ERRORS.handleError(request.getURI(), request.getMethod(), response);
+                    }
+                    return searchResponseReader.read(response.getBody());
+                }));
     }
 
-    /** The search endpoint gives author names as plain strings, not objects. */
-    private List<String> readAuthorNames(JsonNode doc) {
-        List<String> authors = new ArrayList<>();
-        for (JsonNode name : doc.path("author_name")) {
-            authors.add(name.asText());
-        }
-        return authors;
-    }
-
-    /** Returns null on any failure: a lookup is a convenience, never a precondition. */
-    private JsonNode fetch(String isbn, String jscmd) {
-        try {
-            JsonNode body = restClient.get()
-                    .uri(uri -> uri.path("/api/books")
-                            .queryParam("bibkeys", "ISBN:" + isbn)
-                            .queryParam("format", "json")
-                            .queryParam("jscmd", jscmd)
-                            .build())
-                    .retrieve()
-                    .body(JsonNode.class);
-
-            return body == null ? null : body.path("ISBN:" + isbn);
-        } catch (Exception e) {
-            log.warn("Open Library lookup for ISBN {} ({}) failed: {}", isbn, jscmd, e.getMessage());
-            return null;
-        }
+    /**
+     * The books API's answer for some ISBNs, keyed {@code ISBN:<isbn>}; unknown ones are simply absent.
+     * Throws when the call fails or the breaker turns it away, so a failure is never read as a miss.
+     */
+    private JsonNode fetch(List<String> isbns, String jscmd) {
+        String bibkeys = String.join(",", isbns.stream().map(isbn -> "ISBN:" + isbn).toList());
+        return circuitBreaker.call(() -> restClient.get()
+                .uri(uri -> uri.path("/api/books")
+                        .queryParam("bibkeys", bibkeys)
+                        .queryParam("format", "json")
+                        .queryParam("jscmd", jscmd)
+                        .build())
+                .retrieve()
+                .body(JsonNode.class));
     }
 
     /** Author records from a lookup, where they are objects. */
@@ -0,0 +1,150 @@
+package app.adapters.output.catalog;
+
+import app.domain.model.CatalogCandidate;
+import app.domain.model.CatalogPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a {@code /search.json} response token by token into candidates, without building a tree of it
+ * first. A page of a hundred popular titles lists thousands of edition ISBNs, and the tree held every
+ * one of them as a node only to be thrown away a moment later. Here only the fields a candidate needs
+ * become objects: everything else is skipped unread, and an ISBN list stops producing strings at its
+ * first 13-digit entry.
+ */
+final class SearchResponseReader {
+
+    private final JsonFactory jsonFactory;
+
+    /** Reads with the given factory, which is thread-safe and meant to be shared. */
+    SearchResponseReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /** The page in the response; an empty body reads as an empty page. */
+    CatalogPage read(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return CatalogPage.empty();
+            }
+
+            List<CatalogCandidate> results = new ArrayList<>();
+            Integer numFound = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("numFound".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    numFound = parser.getIntValue();
+                } else if ("docs".equals(field) && value == JsonToken.START_ARRAY) {
+                    readDocs(parser, results);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            // numFound counts every edition matching the query, including the ISBN-less ones
+            // skipped below, so the last page can come back shorter than it promises.
+            return new CatalogPage(results, numFound == null ? results.size() : numFound);
+        }
+    }
+
+    /** The docs array, one candidate per doc that has an ISBN to import against. */
+    private static void readDocs(JsonParser parser, List<CatalogCandidate> results) throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            CatalogCandidate candidate = readDoc(parser);
+            if (candidate != null) {
+                results.add(candidate);
+            }
+        }
+    }
+
+    /** One doc, or null when it has no ISBN. Leaves the parser on the doc's closing brace. */
+    private static CatalogCandidate readDoc(JsonParser parser) throws IOException {
+        String title = null;
+        String isbn = null;
+        int year = 0;
+        List<String> authors = new ArrayList<>();
+        Long coverId = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "title" -> title = value.isScalarValue() && value != JsonToken.VALUE_NULL
+                        ? parser.getText() : null;
+                case "author_name" -> readStrings(parser, authors);
+                case "first_publish_year" -> year = readYear(parser, value);
+                case "isbn" -> isbn = readIsbn(parser);
+                case "cover_i" -> coverId = value.isNumeric() ? parser.getLongValue() : null;
+                default -> parser.skipChildren();
+            }
+            if (value.isStructStart()) {
+                // A field of an unexpected shape, say an object where a string belongs, is skipped whole.
+                parser.skipChildren();
+            }
+        }
+        // Without an ISBN there is nothing to import against, so skip the entry.
+        return isbn == null ? null : new CatalogCandidate(title, isbn, year, authors, coverId);
+    }
+
+    /** The strings of an array; anything else in it is skipped. */
+    private static void readStrings(JsonParser parser, List<String> into) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                into.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    /** The first 13-digit ISBN, else the first of any length. Later entries are stepped over unread. */
+    private static String readIsbn(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return null;
+        }
+        String chosen = null;
+        boolean thirteen = false;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (thirteen || parser.currentToken() != JsonToken.VALUE_STRING) {
+                parser.skipChildren();
+                continue;
+            }
+            // Measured on the parser's buffer, so a 10-digit ISBN never becomes a String unless it is needed.
+            if (parser.getTextLength() == 13) {
+                chosen = parser.getText();
+                thirteen = true;
+            } else if (chosen == null) {
+                chosen = parser.getText();
+            }
+        }
+        return chosen;
+    }
+
+    /** A year given as a number, or as text holding one; anything else is no year. */
+    private static int readYear(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+}
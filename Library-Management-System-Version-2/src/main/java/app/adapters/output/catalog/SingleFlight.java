@@ -0,0 +1,81 @@
+package app.adapters.output.catalog;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs one call per key at a time and hands its outcome to everyone who asked meanwhile. The cache in
+ * front only helps once a call has finished; until then, every reader of a popular uncached ISBN would
+ * go to Open Library on their own.
+ *
+ * <p>The first caller runs the call on its own thread; later callers wait on the same future. That
+ * future gives up at a deadline set when the call started, so a stuck call fails its waiters together
+ * and the next caller starts afresh. Nothing is kept once a call is done: remembering outcomes is the
+ * cache's job.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> running = new ConcurrentHashMap<>();
+    private final long timeoutMillis;
+
+    /** A call still running after the timeout is abandoned by its waiters, not by the caller running it. */
+    SingleFlight(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The coalescing timeout must be positive, was " + timeout);
+        }
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * The outcome of the call for this key, run here or joined if already running. A failure reaches
+     * every caller as it was thrown; a wait past the deadline ends in a {@link CompletionException}
+     * caused by a {@link java.util.concurrent.TimeoutException}.
+     */
+    V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> started = running.putIfAbsent(key, mine);
+        if (started != null) {
+            return join(started);
+        }
+
+        // Set up before the call, so a waiter arriving at once already has a deadline.
+        mine.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((value, failure) -> running.remove(key, mine));
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // An Error skips the catch; the waiters still must not wait out the deadline for nothing.
+            if (!mine.isDone()) {
+                mine.completeExceptionally(new IllegalStateException("The call for " + key + " did not finish"));
+            }
+        }
+    }
+
+    /** How many keys have a call running, for tests and diagnostics. */
+    int inFlight() {
+        return running.size();
+    }
+
+    /** Waits for another caller's call, rethrowing its failure unwrapped where it can. */
+    @SuppressWarnings("PMD.PreserveStackTrace") // The cause is the failure itself, trace and all.
+    private static <V> V join(CompletableFuture<V> started) {
+        try {
+            return started.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package app.adapters.output.entity;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -13,6 +14,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,7 +36,16 @@ public class CustomerEntity {
     private String email;
     private boolean privileges;
 
-    @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    /**
+     * Loans out right now, kept by conditional UPDATEs on borrow and return so the limit holds under
+     * concurrent borrows without counting the history. Never written from the entity: a member loaded
+     * before such an UPDATE would otherwise put the stale figure back on save.
+     */
+    @Column(name = "active_loans", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int activeLoans;
+
+    @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
     private List<TransactionEntity> transactions = new ArrayList<>();
 }
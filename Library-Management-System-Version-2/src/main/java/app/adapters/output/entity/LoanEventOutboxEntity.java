@@ -0,0 +1,57 @@
+package app.adapters.output.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A loan event waiting to be published, written in the same transaction as the loan itself. The
+ * generated id is the order the events happened in; the relay deletes a row once Kafka has it.
+ */
+@Entity
+@Table(name = "loan_event_outbox", indexes = @Index(name = "idx_loan_event_outbox_book", columnList = "bookId"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanEventOutboxEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String type;
+    @Column(nullable = false)
+    private UUID customerId;
+    private String customerName;
+    @Column(nullable = false)
+    private UUID bookId;
+    private String bookTitle;
+    private String bookIsbn;
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    /** Failed sends so far, which the backoff before the next one grows with. */
+    @Column(nullable = false)
+    @Builder.Default
+    // Not redundant despite appearances: @Builder.Default requires an initialiser to read the
+    // default from, and Lombok fails to compile without one.
+    @SuppressWarnings("PMD.RedundantFieldInitializer")
+    private int attempts = 0;
+
+    /** Not sent again before this, after a failure; null for a row never tried. */
+    private Instant nextAttemptAt;
+}
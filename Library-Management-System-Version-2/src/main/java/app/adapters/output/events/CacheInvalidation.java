@@ -0,0 +1,42 @@
+package app.adapters.output.events;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+
+/**
+ * What travels on the cache invalidation topic: one thing another instance may hold a stale copy of.
+ * A book or member id means re-read that row into the search index; an ISBN means forget what the
+ * catalogue caches hold for it. origin is the sending instance, which has already applied it.
+ */
+public record CacheInvalidation(String kind, String key, String origin) {
+
+    public static final String BOOK = "BOOK";
+    public static final String MEMBER = "MEMBER";
+    public static final String ISBN = "ISBN";
+
+    /** The caches keyed by ISBN, all filled from the external catalogue. */
+    private static final List<String> ISBN_CACHES = List.of("catalogLookup", "catalogDescription");
+
+    /**
+     * The record key. The topic is compacted, so only the latest invalidation per key is kept, and a
+     * book edited a hundred times costs the topic one record.
+     */
+    public String compactionKey() {
+        return kind + ":" + key;
+    }
+
+    /** Evicts an ISBN invalidation here. Books and members live in the search indexes instead. */
+    public void evictFrom(CacheManager cacheManager) {
+        if (!ISBN.equals(kind)) {
+            return;
+        }
+        for (String name : ISBN_CACHES) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.evict(key);
+            }
+        }
+    }
+}
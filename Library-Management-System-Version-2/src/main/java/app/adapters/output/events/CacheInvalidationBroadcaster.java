@@ -0,0 +1,122 @@
+package app.adapters.output.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tells the other backend instances what this one just changed, so their in-memory copies - the
+ * search indexes and the catalogue caches - do not go on serving the old version.
+ *
+ * <p>Sends after the writing transaction commits, like the index refreshes, so no instance re-reads
+ * a row that was then rolled back. The writer keeps its own copies current itself: the indexes
+ * refresh where they are written, and an ISBN is evicted here before it is sent. catalogSearch is never
+ * sent: it holds only Open Library's answers, which no write here changes, so its expiry is enough.
+ * Fire and forget, like the loan events: a broker that is down leaves the others stale until their
+ * entries expire, and never fails the write.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBroadcaster {
+
+    private final KafkaTemplate<String, CacheInvalidation> kafkaTemplate;
+    private final CacheManager cacheManager;
+    private final String topic;
+    private final boolean enabled;
+
+    /** Names this instance in what it sends, so it can pass over its own messages when they come back. */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /** Reads the topic and the on/off switch from configuration. */
+    public CacheInvalidationBroadcaster(KafkaTemplate<String, CacheInvalidation> kafkaTemplate,
+                                        CacheManager cacheManager,
+                                        @Value("${library.cache.invalidation.topic:library.cache-invalidations}")
+                                        String topic,
+                                        @Value("${library.cache.invalidation.enabled:true}") boolean enabled) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.cacheManager = cacheManager;
+        this.topic = topic;
+        this.enabled = enabled;
+    }
+
+    /** This instance's name on the topic. */
+    public String origin() {
+        return instanceId;
+    }
+
+    /** Announces that these books were written; the others re-read them into their search index. */
+    public void booksChanged(Collection<UUID> bookIds) {
+        sendAll(CacheInvalidation.BOOK, bookIds);
+    }
+
+    /** Announces that these members were written; the others re-read them into their member index. */
+    public void membersChanged(Collection<UUID> customerIds) {
+        sendAll(CacheInvalidation.MEMBER, customerIds);
+    }
+
+    /** Forgets what the catalogue caches hold for an ISBN, here and on every other instance. */
+    public void isbnChanged(String isbn) {
+        evictAndSend(CacheInvalidation.ISBN, isbn);
+    }
+
+    /** One record per id, once the transaction has committed. Copied first: the caller's list may change. */
+    private void sendAll(String kind, Collection<UUID> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<UUID> copy = List.copyOf(ids);
+        afterCommit(() -> copy.forEach(id -> send(kind, id.toString())));
+    }
+
+    /** Evicts locally and sends, both once the transaction has committed. */
+    private void evictAndSend(String kind, String key) {
+        if (key == null) {
+            return;
+        }
+        afterCommit(() -> {
+            new CacheInvalidation(kind, key, instanceId).evictFrom(cacheManager);
+            send(kind, key);
+        });
+    }
+
+    /** Sends one invalidation and forgets it. */
+    private void send(String kind, String key) {
+        if (!enabled) {
+            return;
+        }
+        CacheInvalidation invalidation = new CacheInvalidation(kind, key, instanceId);
+        try {
+            kafkaTemplate.send(topic, invalidation.compactionKey(), invalidation)
+                    .whenComplete((result, error) -> {
+                        if (error != null) {
+                            log.warn("Could not broadcast invalidation of {}: {}",
+                                    invalidation.compactionKey(), error.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("Could not broadcast invalidation of {}: {}", invalidation.compactionKey(), e.getMessage());
+        }
+    }
+
+    /** Runs the work once the current transaction commits, or now outside one. */
+    private static void afterCommit(Runnable work) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    work.run();
+                }
+            });
+        } else {
+            work.run();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package app.adapters.output.events;
+
+import app.adapters.output.entity.LoanEventOutboxEntity;
+import app.adapters.output.repositories.LoanEventOutboxRepository;
+import app.domain.model.Book;
+import app.domain.model.Customer;
+import app.domain.port.output.LoanEventPort;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Records loan events in the outbox table, inside the transaction that borrows or returns the book.
+ * Either the loan and its event are both stored or neither is, and no broker is contacted on the way:
+ * {@link LoanEventRelay} publishes the rows afterwards.
+ */
+@Component
+public class LoanEventOutbox implements LoanEventPort {
+
+    private final LoanEventOutboxRepository outboxRepository;
+    private final boolean enabled;
+
+    /** Reads the on/off switch from configuration. */
+    public LoanEventOutbox(LoanEventOutboxRepository outboxRepository,
+                           @Value("${library.events.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.enabled = enabled;
+    }
+
+    /** Records a borrow. */
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void bookBorrowed(Customer customer, Book book) {
+        record(LoanEvent.BORROWED, customer, book);
+    }
+
+    /** Records a return. */
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void bookReturned(Customer customer, Book book) {
+        record(LoanEvent.RETURNED, customer, book);
+    }
+
+    /** One outbox row, flushed with the loan when the caller commits. */
+    private void record(String type, Customer customer, Book book) {
+        if (!enabled || customer == null || book == null) {
+            return;
+        }
+        outboxRepository.save(LoanEventOutboxEntity.builder()
+                .type(type)
+                .customerId(customer.getCustomerId())
+                .customerName(customer.getName())
+                .bookId(book.getBookId())
+                .bookTitle(book.getTitle())
+                .bookIsbn(book.getIsbn())
+                .occurredAt(Instant.now())
+                .build());
+    }
+}
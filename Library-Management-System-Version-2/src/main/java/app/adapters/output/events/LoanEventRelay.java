@@ -0,0 +1,314 @@
+package app.adapters.output.events;
+
+import app.adapters.output.entity.LoanEventOutboxEntity;
+import app.adapters.output.repositories.LoanEventOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes what {@link LoanEventOutbox} recorded, oldest first, and deletes each row once Kafka has
+ * acknowledged it. Nothing here runs inside a borrow: a broker that is slow or down delays the events,
+ * never the loan, and they wait in the table until it is back.
+ *
+ * <p>A drain reads one batch and sends it in rounds. Each round sends the oldest unsent event of every
+ * book in the batch at once and waits for all of them, so one book's events reach the topic in order -
+ * the book id is the record key - while different books share the round trip. A send that fails stops
+ * that book for the rest of the drain and backs its oldest row off, twice as long after each failure up
+ * to a cap; the books behind it are not held up. Full batches are drained back to back until the table
+ * is caught up.
+ *
+ * <p>Delivery is at least once: a crash between Kafka's acknowledgement and the delete sends those
+ * events again, which consumers see as the same event twice. The rows are locked while a batch is out,
+ * so a second instance skips its turn rather than sending them as well. How many events are waiting is
+ * the {@code library.events.outbox.pending} gauge, and passing the high-water mark is logged.
+ */
+@Component
+@Slf4j
+public class LoanEventRelay implements MeterBinder, DisposableBean {
+
+    /** Batches per drain, so a large backlog is caught up on without holding the scheduler's thread for good. */
+    private static final int MAX_BATCHES_PER_DRAIN = 50;
+
+    private final LoanEventOutboxRepository outboxRepository;
+    private final KafkaTemplate<String, LoanEvent> kafkaTemplate;
+    private final TransactionOperations transactions;
+    private final Clock clock;
+    private final String topic;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final long highWaterMark;
+
+    /** One drain at a time, whether the scheduler's or one started by hand. */
+    private final Lock drainLock = new ReentrantLock();
+
+    /** Rows left after the last drain; what the gauge reports, so a scrape never queries the table. */
+    private final AtomicLong backlog = new AtomicLong();
+    /** Set while the backlog is above the high-water mark, so it is logged once per crossing. */
+    private final AtomicBoolean aboveHighWaterMark = new AtomicBoolean();
+
+    /**
+     * Reads the topic, the wire format, the batch size, the timeouts and the high-water mark from
+     * configuration, and makes a producer of its own for the format.
+     */
+    @Autowired
+    public LoanEventRelay(LoanEventOutboxRepository outboxRepository,
+                          ProducerFactory<String, LoanEvent> producerFactory,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${library.events.format:binary}") String format,
+                          @Value("${library.events.topic:library.loans}") String topic,
+                          @Value("${library.events.enabled:true}") boolean enabled,
+                          @Value("${library.events.relay.batch-size:200}") int batchSize,
+                          @Value("${library.events.relay.send-timeout:PT10S}") Duration sendTimeout,
+                          @Value("${library.events.relay.initial-backoff:PT1S}") Duration initialBackoff,
+                          @Value("${library.events.relay.max-backoff:PT5M}") Duration maxBackoff,
+                          @Value("${library.events.outbox.high-water-mark:10000}") long highWaterMark) {
+        this(outboxRepository, templateFor(producerFactory, format), new TransactionTemplate(transactionManager),
+                Clock.systemUTC(),
+                new Settings(topic, enabled, batchSize, sendTimeout, initialBackoff, maxBackoff, highWaterMark));
+    }
+
+    /** A relay with its transactions and clock supplied, as the tests run it. */
+    LoanEventRelay(LoanEventOutboxRepository outboxRepository, KafkaTemplate<String, LoanEvent> kafkaTemplate,
+                   TransactionOperations transactions, Clock clock, Settings settings) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactions = transactions;
+        this.clock = clock;
+        this.topic = settings.topic();
+        this.enabled = settings.enabled();
+        this.batchSize = settings.batchSize();
+        this.sendTimeout = settings.sendTimeout();
+        this.initialBackoff = settings.initialBackoff();
+        this.maxBackoff = settings.maxBackoff();
+        this.highWaterMark = settings.highWaterMark();
+    }
+
+    /**
+     * The application's producer settings with the value serializer for the given format: binary, in
+     * {@link LoanEventWireFormat}, or the JSON every consumer could read before it. Not a bean - another
+     * KafkaTemplate bean would displace the one the cache invalidations are sent with.
+     */
+    static KafkaTemplate<String, LoanEvent> templateFor(ProducerFactory<String, LoanEvent> producerFactory,
+                                                        String format) {
+        Class<?> serializer = switch (format.toLowerCase(Locale.ROOT)) {
+            case "binary" -> LoanEventSerializer.class;
+            case "json" -> JsonSerializer.class;
+            default -> throw new IllegalArgumentException(
+                    "library.events.format must be binary or json, not '" + format + "'");
+        };
+        return new KafkaTemplate<>(producerFactory, Map.of(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, serializer));
+    }
+
+    /** The relay's configuration in one piece. */
+    record Settings(String topic, boolean enabled, int batchSize, Duration sendTimeout,
+                    Duration initialBackoff, Duration maxBackoff, long highWaterMark) { }
+
+    /** Registers the backlog gauge. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("library.events.outbox.pending", backlog, AtomicLong::get)
+                .description("Loan events recorded but not yet acknowledged by Kafka")
+                .register(registry);
+    }
+
+    /** Closes the producer this relay made. */
+    @Override
+    public void destroy() {
+        kafkaTemplate.destroy();
+    }
+
+    /** Rows waiting, as of the last drain. */
+    public long pending() {
+        return backlog.get();
+    }
+
+    /**
+     * Publishes what is due, a batch at a time. On a fixed delay, so one drain finishes before the
+     * next is due however slow the broker is being.
+     */
+    @Scheduled(fixedDelayString = "${library.events.relay.delay:PT1S}",
+            initialDelayString = "${library.events.relay.delay:PT1S}")
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        drainLock.lock();
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_DRAIN; i++) {
+                Boolean full = transactions.execute(status -> relayBatch());
+                if (!Boolean.TRUE.equals(full)) {
+                    break;
+                }
+            }
+            watchBacklog(outboxRepository.count());
+        } catch (DataAccessException e) {
+            // Most often another instance holding the rows; the next drain tries again.
+            log.debug("Loan event relay skipped a drain: {}", e.getMessage());
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Sends one batch and deletes what Kafka acknowledged. True when the batch was full and every
+     * event in it was dealt with, so another may follow at once.
+     */
+    private boolean relayBatch() {
+        Instant now = clock.instant();
+        List<LoanEventOutboxEntity> batch = outboxRepository.findDue(now, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        Map<UUID, Deque<LoanEventOutboxEntity>> byBook = new LinkedHashMap<>();
+        for (LoanEventOutboxEntity row : batch) {
+            byBook.computeIfAbsent(row.getBookId(), id -> new ArrayDeque<>()).add(row);
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        List<LoanEventOutboxEntity> failed = new ArrayList<>();
+        while (!byBook.isEmpty()) {
+            sendRound(byBook, delivered, failed, now);
+        }
+
+        if (!delivered.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(delivered);
+        }
+        if (!failed.isEmpty()) {
+            outboxRepository.saveAll(failed);
+        }
+        log.debug("Loan event relay: {} sent, {} failed, of a batch of {}", delivered.size(), failed.size(),
+                batch.size());
+        return batch.size() == batchSize && delivered.size() == batch.size();
+    }
+
+    /**
+     * Sends the oldest event of every book still in play, then waits for them all. A producer that
+     * refuses a record outright - no broker metadata within max.block.ms - ends the batch there, rather
+     * than blocking that long again for every other book; the rows not tried are left as they were.
+     */
+    private void sendRound(Map<UUID, Deque<LoanEventOutboxEntity>> byBook, List<Long> delivered,
+                           List<LoanEventOutboxEntity> failed, Instant now) {
+        Map<UUID, CompletableFuture<?>> sends = new LinkedHashMap<>();
+        boolean producerAvailable = true;
+        for (Map.Entry<UUID, Deque<LoanEventOutboxEntity>> book : byBook.entrySet()) {
+            try {
+                sends.put(book.getKey(), send(book.getValue().getFirst()));
+            } catch (RuntimeException e) {
+                sends.put(book.getKey(), CompletableFuture.failedFuture(e));
+                producerAvailable = false;
+                break;
+            }
+        }
+
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (Map.Entry<UUID, CompletableFuture<?>> send : sends.entrySet()) {
+            Deque<LoanEventOutboxEntity> rows = byBook.get(send.getKey());
+            LoanEventOutboxEntity head = rows.removeFirst();
+            String error = await(send.getValue(), deadline);
+            if (error == null) {
+                delivered.add(head.getId());
+            } else {
+                backOff(head, now);
+                failed.add(head);
+                log.warn("Could not publish {} for book {} (attempt {}): {}", head.getType(), head.getBookTitle(),
+                        head.getAttempts(), error);
+                rows.clear();
+            }
+        }
+        if (!producerAvailable) {
+            byBook.clear();
+            return;
+        }
+        Iterator<Deque<LoanEventOutboxEntity>> remaining = byBook.values().iterator();
+        while (remaining.hasNext()) {
+            if (remaining.next().isEmpty()) {
+                remaining.remove();
+            }
+        }
+    }
+
+    /** Hands one row to the producer, keyed by its book. */
+    private CompletableFuture<?> send(LoanEventOutboxEntity row) {
+        LoanEvent event = new LoanEvent(row.getType(), row.getCustomerId(), row.getCustomerName(),
+                row.getBookId(), row.getBookTitle(), row.getBookIsbn(), row.getOccurredAt());
+        return kafkaTemplate.send(topic, String.valueOf(row.getBookId()), event);
+    }
+
+    /** Null once the send is acknowledged, else why it was not by the deadline. */
+    @SuppressWarnings("PMD.DoNotUseThreads") // Only to restore the interrupt flag on the scheduler's thread.
+    private static String await(CompletableFuture<?> send, long deadline) {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+        } catch (TimeoutException e) {
+            return "no acknowledgement in time";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    /** Counts the failure and puts the next try off: the initial backoff, doubled per earlier failure, capped. */
+    private void backOff(LoanEventOutboxEntity row, Instant now) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        Duration backoff = attempts > 30 ? maxBackoff : initialBackoff.multipliedBy(1L << (attempts - 1));
+        row.setNextAttemptAt(now.plus(backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff));
+    }
+
+    /** Records the backlog and warns once each time it rises past the high-water mark. */
+    private void watchBacklog(long waiting) {
+        backlog.set(waiting);
+        if (waiting > highWaterMark) {
+            if (!aboveHighWaterMark.getAndSet(true)) {
+                log.warn("{} loan events are waiting to be published, above the high-water mark of {}; "
+                        + "is the broker reachable?", waiting, highWaterMark);
+            }
+        } else if (aboveHighWaterMark.getAndSet(false)) {
+            log.info("Loan event backlog is back under the high-water mark: {} waiting", waiting);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package app.adapters.output.events;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/** Writes loan events in {@link LoanEventWireFormat}, the producer side of {@code library.events.format=binary}. */
+public class LoanEventSerializer implements Serializer<LoanEvent> {
+
+    /** The event's bytes; null stays null, as Kafka expects of a serializer. */
+    @Override
+    public byte[] serialize(String topic, LoanEvent event) {
+        if (event == null) {
+            return null;
+        }
+        try {
+            return LoanEventWireFormat.encode(event);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Cannot encode loan event for " + topic + ": " + e.getMessage(), e);
+        }
+    }
+}
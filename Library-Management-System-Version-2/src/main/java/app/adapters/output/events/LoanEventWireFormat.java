@@ -0,0 +1,150 @@
+package app.adapters.output.events;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The binary layout of a {@link LoanEvent} on {@code library.loans}, version 1. Analytics-Service
+ * keeps a copy of this class next to its own record: the layout, like the record, is the contract.
+ *
+ * <p>Big-endian, in this order: the version byte; the type as a code, or {@code 0} followed by the
+ * type as a string for a type this version has no code for; a byte with one bit per field that is
+ * present; then each present field - ids as two longs, strings as an unsigned short length and UTF-8,
+ * the time as epoch seconds and nanoseconds. A borrow comes to about a third of its JSON size, and
+ * writing it allocates the one array it returns.
+ *
+ * <p>A JSON event starts with {@code '{'}, which is never a version byte, so a reader can take both
+ * while producers move over. A change to the layout gets a new version byte, and readers learn it
+ * before any producer writes it.
+ */
+public final class LoanEventWireFormat {
+
+    /** The first byte of every event in this layout. */
+    public static final byte VERSION = 1;
+
+    private static final byte TYPE_OTHER = 0;
+    private static final byte TYPE_BORROWED = 1;
+    private static final byte TYPE_RETURNED = 2;
+
+    private static final int CUSTOMER_ID = 1;
+    private static final int CUSTOMER_NAME = 1 << 1;
+    private static final int BOOK_ID = 1 << 2;
+    private static final int BOOK_TITLE = 1 << 3;
+    private static final int BOOK_ISBN = 1 << 4;
+    private static final int OCCURRED_AT = 1 << 5;
+
+    private static final int UUID_BYTES = 2 * Long.BYTES;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private LoanEventWireFormat() {
+    }
+
+    /** The event in this layout; a string too long for its length field is refused. */
+    public static byte[] encode(LoanEvent event) {
+        byte typeCode = typeCode(event.type());
+        byte[] type = typeCode == TYPE_OTHER ? utf8(event.type()) : null;
+        byte[] customerName = utf8(event.customerName());
+        byte[] bookTitle = utf8(event.bookTitle());
+        byte[] bookIsbn = utf8(event.bookIsbn());
+
+        int presence = (event.customerId() == null ? 0 : CUSTOMER_ID)
+                | (customerName == null ? 0 : CUSTOMER_NAME)
+                | (event.bookId() == null ? 0 : BOOK_ID)
+                | (bookTitle == null ? 0 : BOOK_TITLE)
+                | (bookIsbn == null ? 0 : BOOK_ISBN)
+                | (event.occurredAt() == null ? 0 : OCCURRED_AT);
+        int size = 3 + stringSize(type)
+                + (event.customerId() == null ? 0 : UUID_BYTES) + stringSize(customerName)
+                + (event.bookId() == null ? 0 : UUID_BYTES) + stringSize(bookTitle) + stringSize(bookIsbn)
+                + (event.occurredAt() == null ? 0 : Long.BYTES + Integer.BYTES);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).put(VERSION).put(typeCode);
+        putString(buffer, type);
+        buffer.put((byte) presence);
+        putUuid(buffer, event.customerId());
+        putString(buffer, customerName);
+        putUuid(buffer, event.bookId());
+        putString(buffer, bookTitle);
+        putString(buffer, bookIsbn);
+        if (event.occurredAt() != null) {
+            buffer.putLong(event.occurredAt().getEpochSecond()).putInt(event.occurredAt().getNano());
+        }
+        return buffer.array();
+    }
+
+    /** The event these bytes hold; bytes of another version, or cut short, are refused. */
+    public static LoanEvent decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown loan event version " + version);
+            }
+            byte typeCode = buffer.get();
+            String type = switch (typeCode) {
+                case TYPE_BORROWED -> LoanEvent.BORROWED;
+                case TYPE_RETURNED -> LoanEvent.RETURNED;
+                case TYPE_OTHER -> getString(buffer);
+                default -> throw new IllegalArgumentException("Unknown loan event type code " + typeCode);
+            };
+            int presence = buffer.get();
+            return new LoanEvent(
+                    type,
+                    (presence & CUSTOMER_ID) == 0 ? null : getUuid(buffer),
+                    (presence & CUSTOMER_NAME) == 0 ? null : getString(buffer),
+                    (presence & BOOK_ID) == 0 ? null : getUuid(buffer),
+                    (presence & BOOK_TITLE) == 0 ? null : getString(buffer),
+                    (presence & BOOK_ISBN) == 0 ? null : getString(buffer),
+                    (presence & OCCURRED_AT) == 0 ? null : Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Loan event cut short at byte " + buffer.position(), e);
+        }
+    }
+
+    private static byte typeCode(String type) {
+        if (LoanEvent.BORROWED.equals(type)) {
+            return TYPE_BORROWED;
+        }
+        return LoanEvent.RETURNED.equals(type) ? TYPE_RETURNED : TYPE_OTHER;
+    }
+
+    private static byte[] utf8(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("Loan event field too long to encode: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return bytes == null ? 0 : Short.BYTES + bytes.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes != null) {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        if (id != null) {
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
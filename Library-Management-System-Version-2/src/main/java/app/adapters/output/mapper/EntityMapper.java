@@ -4,6 +4,11 @@ import app.adapters.output.entity.AuthorEntity;
 import app.adapters.output.entity.BookEntity;
 import app.adapters.output.entity.CustomerEntity;
 import app.adapters.output.entity.TransactionEntity;
+import app.adapters.output.projection.AuthorBookRow;
+import app.adapters.output.projection.AuthorListingRow;
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
+import app.adapters.output.projection.CustomerListingRow;
 import app.domain.model.Author;
 import app.domain.model.Book;
 import app.domain.model.Customer;
@@ -14,7 +19,10 @@ import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Function;
 
-/** Turns JPA entities into domain models. Associations stop one level deep to avoid recursion. */
+/**
+ * Turns JPA entities and listing rows into domain models. Associations stop one level deep to avoid recursion;
+ * listings map from rows so a page never loads the entity graph behind it.
+ */
 @UtilityClass
 public class EntityMapper {
 
@@ -27,6 +35,11 @@ public class EntityMapper {
                 mapSet(entity.getBooks(), EntityMapper::toBookSummary));
     }
 
+    /** Author from a listing row, with the books already read for its page. */
+    public static Author toAuthor(AuthorListingRow row, Set<Book> books) {
+        return new Author(row.authorId(), row.name(), row.bio(), books);
+    }
+
     /** Author on its own, for use inside a book. */
     public static Author toAuthorSummary(AuthorEntity entity) {
         return new Author(entity.getAuthorId(), entity.getName(), entity.getBio());
@@ -46,6 +59,25 @@ public class EntityMapper {
         return book;
     }
 
+    /** Book from a listing row, with the authors already read for its page. */
+    public static Book toBook(BookListingRow row, Set<Author> authors) {
+        Book book = new Book(
+                row.bookId(),
+                row.title(),
+                row.isbn(),
+                row.publicationYear(),
+                row.availability(),
+                row.createdAt(),
+                authors);
+        book.setDescription(row.description());
+        return book;
+    }
+
+    /** Author credit from a listing row, for use inside a book. */
+    public static Author toAuthorSummary(BookAuthorRow row) {
+        return new Author(row.authorId(), row.name(), row.bio());
+    }
+
     /** Book on its own, for use inside an author. */
     public static Book toBookSummary(BookEntity entity) {
         Book book = new Book(
@@ -60,6 +92,20 @@ public class EntityMapper {
         return book;
     }
 
+    /** Book credit from an author's listing row, for use inside an author. */
+    public static Book toBookSummary(AuthorBookRow row) {
+        Book book = new Book(
+                row.bookId(),
+                row.title(),
+                row.isbn(),
+                row.publicationYear(),
+                row.availability(),
+                row.createdAt(),
+                new HashSet<>());
+        book.setDescription(row.description());
+        return book;
+    }
+
     /** Customer with its borrowing history, each entry holding only the ids it links. */
     public static Customer toCustomer(CustomerEntity entity) {
         Customer customer = toCustomerSummary(entity);
@@ -90,6 +136,11 @@ public class EntityMapper {
                 entity.isPrivileges());
     }
 
+    /** Customer from a listing row; no borrowing history is read. */
+    public static Customer toCustomerSummary(CustomerListingRow row) {
+        return new Customer(row.customerId(), row.name(), row.email(), row.privileges());
+    }
+
     /** Loan with its member and book, each mapped without their own histories. */
     public static Transaction toTransaction(TransactionEntity entity) {
         Transaction transaction = new Transaction(
@@ -0,0 +1,16 @@
+package app.adapters.output.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** One book credited to one author, so a whole page's books come back in a single query. */
+public record AuthorBookRow(
+        UUID authorId,
+        UUID bookId,
+        String title,
+        String isbn,
+        int publicationYear,
+        boolean availability,
+        String description,
+        LocalDate createdAt) {
+}
@@ -0,0 +1,7 @@
+package app.adapters.output.projection;
+
+import java.util.UUID;
+
+/** An author's own columns, one row per author: what an author page is counted and ordered over. */
+public record AuthorListingRow(UUID authorId, String name, String bio) {
+}
@@ -0,0 +1,7 @@
+package app.adapters.output.projection;
+
+import java.util.UUID;
+
+/** One author credit on one book, so a whole page's authors come back in a single query. */
+public record BookAuthorRow(UUID bookId, UUID authorId, String name, String bio) {
+}
@@ -0,0 +1,15 @@
+package app.adapters.output.projection;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/** A book's own columns and nothing it links to: what a catalogue page shows, read in one query. */
+public record BookListingRow(
+        UUID bookId,
+        String title,
+        String isbn,
+        int publicationYear,
+        boolean availability,
+        String description,
+        LocalDate createdAt) {
+}
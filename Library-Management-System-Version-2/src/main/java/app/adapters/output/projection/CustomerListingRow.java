@@ -0,0 +1,7 @@
+package app.adapters.output.projection;
+
+import java.util.UUID;
+
+/** A member's own columns, without the loan history the entity would drag along. */
+public record CustomerListingRow(UUID customerId, String name, String email, boolean privileges) {
+}
@@ -1,6 +1,8 @@
 package app.adapters.output.repositories;
 
 import app.adapters.output.entity.AuthorEntity;
+import app.adapters.output.projection.AuthorBookRow;
+import app.adapters.output.projection.AuthorListingRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,21 +21,46 @@ public interface AuthorRepository extends JpaRepository<AuthorEntity, UUID> {
     /** The author with exactly this name, or empty. */
     Optional<AuthorEntity> findByName(String name);
 
-    @Query(
-            value = "SELECT a FROM AuthorEntity a LEFT JOIN FETCH a.books",
-            countQuery = "SELECT COUNT(a) FROM AuthorEntity a"
-    )
+    /**
+     * The authors holding any of these names, with their books and those books' authors fetched in the
+     * same query. All three are EAGER, so without the joins each author and each book costs a SELECT.
+     */
+    @Query("SELECT a FROM AuthorEntity a LEFT JOIN FETCH a.books b LEFT JOIN FETCH b.authors "
+            + "WHERE a.name IN :names")
+    List<AuthorEntity> findWithBooksByNameIn(@Param("names") Collection<String> names);
 
-    /** One page of authors with their books fetched, to avoid a query per row. */
-    Page<AuthorEntity> findAllAuthorsWithBooks(Pageable pageable);
+    /**
+     * One page of authors as listing rows. Nothing is joined, so LIMIT and OFFSET run in SQL over one
+     * row per author; the books follow in {@link #findBookRows}.
+     */
+    @Query(value = "SELECT new app.adapters.output.projection.AuthorListingRow(a.authorId, a.name, a.bio) "
+            + "FROM AuthorEntity a",
+            countQuery = "SELECT COUNT(a) FROM AuthorEntity a")
+    Page<AuthorListingRow> findListingPage(Pageable pageable);
 
-    @Query("SELECT a FROM AuthorEntity a LEFT JOIN a.books b " +
-            "WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR CAST(a.authorId AS string) LIKE CONCAT('%', :query, '%') " +
-            "OR LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :query, '%'))")
-
-    /** One page of authors matching on name, id, or a book's title or ISBN. */
-    Page<AuthorEntity> searchAuthorsByQuery(@Param("query") String query, Pageable pageable);
+    /**
+     * One page of authors matching on name, id, or a book's title or ISBN. The book match is an EXISTS
+     * rather than a join, so an author with two matching books is still one row and the page and count
+     * stay exact.
+     */
+    @Query(value = "SELECT new app.adapters.output.projection.AuthorListingRow(a.authorId, a.name, a.bio) "
+            + "FROM AuthorEntity a WHERE "
+            + "(LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%')) "
+            + "OR CAST(a.authorId AS string) LIKE CONCAT('%', :query, '%') "
+            + "OR EXISTS (SELECT 1 FROM BookEntity b JOIN b.authors ba WHERE ba = a "
+            + "AND (LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) "
+            + "OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :query, '%')))))",
+            countQuery = "SELECT COUNT(a) FROM AuthorEntity a WHERE "
+            + "(LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%')) "
+            + "OR CAST(a.authorId AS string) LIKE CONCAT('%', :query, '%') "
+            + "OR EXISTS (SELECT 1 FROM BookEntity b JOIN b.authors ba WHERE ba = a "
+            + "AND (LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) "
+            + "OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :query, '%')))))")
+    Page<AuthorListingRow> searchListingPage(@Param("query") String query, Pageable pageable);
 
+    /** Every book credited to these authors, in one query rather than one per row. */
+    @Query("SELECT new app.adapters.output.projection.AuthorBookRow(a.authorId, "
+            + "b.bookId, b.title, b.isbn, b.publicationYear, b.availability, b.description, b.createdAt) "
+            + "FROM AuthorEntity a JOIN a.books b WHERE a.authorId IN :authorIds")
+    List<AuthorBookRow> findBookRows(@Param("authorIds") Collection<UUID> authorIds);
 }
@@ -1,15 +1,24 @@
 package app.adapters.output.repositories;
 
 import app.adapters.output.entity.BookEntity;
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /** Spring Data access to books. */
@@ -27,15 +36,87 @@ public interface BookRepository extends JpaRepository<BookEntity, UUID> {
     @Query("SELECT b FROM BookEntity b WHERE b.isbn = :isbn")
     Optional<BookEntity> findBooksByIsbn(@Param("isbn") String isbn);
 
+    /** Of these titles, the ones a stored book already has: one query for a whole import. */
+    @Query("SELECT b.title FROM BookEntity b WHERE b.title IN :titles")
+    Set<String> findTitlesIn(@Param("titles") Collection<String> titles);
+
+    /** Of these ISBNs, the ones a stored book already has: one query for a whole import. */
+    @Query("SELECT b.isbn FROM BookEntity b WHERE b.isbn IN :isbns")
+    Set<String> findIsbnsIn(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Marks the book out if it is on the shelf; 1 when it was, 0 otherwise. The row lock the UPDATE takes
+     * makes a second borrower wait and then match nothing. Pending changes are flushed first and the
+     * context cleared after, so nothing read later in the transaction still shows the book as in.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookEntity b SET b.availability = false WHERE b.bookId = :bookId AND b.availability = true")
+    int claim(@Param("bookId") UUID bookId);
+
+    /** Marks the book on the shelf, without reading it first. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookEntity b SET b.availability = true WHERE b.bookId = :bookId")
+    int release(@Param("bookId") UUID bookId);
+
+    /**
+     * Sets the blurb only if the book still has none, so a background backfill never overwrites one a
+     * librarian wrote in the meantime. 1 when written, 0 otherwise.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE BookEntity b SET b.description = :description "
+            + "WHERE b.bookId = :bookId AND (b.description IS NULL OR TRIM(b.description) = '')")
+    int fillDescription(@Param("bookId") UUID bookId, @Param("description") String description);
+
     /** The book with this id, or empty. */
     Optional<BookEntity> findBookByBookId(@Param("id") UUID id);
 
-    @Query("SELECT b FROM BookEntity b LEFT JOIN b.authors a " +
-            "WHERE LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(b.isbn) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR CAST(b.publicationYear AS string) LIKE CONCAT('%', :query, '%') " +
-            "OR LOWER(a.name) LIKE LOWER(CONCAT('%', :query, '%'))")
+    /** One page of the catalogue as listing rows: no authors, no loans, just the book's columns. */
+    @Query(value = "SELECT new app.adapters.output.projection.BookListingRow("
+            + "b.bookId, b.title, b.isbn, b.publicationYear, b.availability, b.description, b.createdAt) "
+            + "FROM BookEntity b",
+            countQuery = "SELECT COUNT(b) FROM BookEntity b")
+    Page<BookListingRow> findListingPage(Pageable pageable);
+
+    /** The listing rows after a keyset position. Spring Data appends the id to the sort and runs no count. */
+    Window<BookListingRow> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /** Listing rows for these books, in no particular order; the caller knows the order it wants. */
+    @Query("SELECT new app.adapters.output.projection.BookListingRow("
+            + "b.bookId, b.title, b.isbn, b.publicationYear, b.availability, b.description, b.createdAt) "
+            + "FROM BookEntity b WHERE b.bookId IN :bookIds")
+    List<BookListingRow> findListingRows(@Param("bookIds") Collection<UUID> bookIds);
+
+    /**
+     * One page of listing rows matching on title, ISBN, year or author name, each book once. The search
+     * index answers searches; this is only for the moments before it is built.
+     */
+    @Query(value = "SELECT DISTINCT new app.adapters.output.projection.BookListingRow("
+            + "b.bookId, b.title, b.isbn, b.publicationYear, b.availability, b.description, b.createdAt) "
+            + "FROM BookEntity b LEFT JOIN b.authors a "
+            + "WHERE LOWER(b.title) LIKE CONCAT('%', :query, '%') "
+            + "OR LOWER(b.isbn) LIKE CONCAT('%', :query, '%') "
+            + "OR CAST(b.publicationYear AS string) LIKE CONCAT('%', :query, '%') "
+            + "OR LOWER(a.name) LIKE CONCAT('%', :query, '%')",
+            countQuery = "SELECT COUNT(DISTINCT b) FROM BookEntity b LEFT JOIN b.authors a "
+                    + "WHERE LOWER(b.title) LIKE CONCAT('%', :query, '%') "
+                    + "OR LOWER(b.isbn) LIKE CONCAT('%', :query, '%') "
+                    + "OR CAST(b.publicationYear AS string) LIKE CONCAT('%', :query, '%') "
+                    + "OR LOWER(a.name) LIKE CONCAT('%', :query, '%')")
+    Page<BookListingRow> findListingPageByQuery(@Param("query") String query, Pageable pageable);
+
+    /** Every book as a listing row: what the search index is built from. */
+    @Query("SELECT new app.adapters.output.projection.BookListingRow("
+            + "b.bookId, b.title, b.isbn, b.publicationYear, b.availability, b.description, b.createdAt) "
+            + "FROM BookEntity b")
+    List<BookListingRow> findAllListingRows();
+
+    /** Every author credit for these books, in one query rather than one per row. */
+    @Query("SELECT new app.adapters.output.projection.BookAuthorRow(b.bookId, a.authorId, a.name, a.bio) "
+            + "FROM BookEntity b JOIN b.authors a WHERE b.bookId IN :bookIds")
+    List<BookAuthorRow> findAuthorRows(@Param("bookIds") Collection<UUID> bookIds);
 
-    /** One page of books matching on title, ISBN, year or author name. */
-    Page<BookEntity> findBooksByQuery(@Param("query") String query, Pageable pageable);
+    /** Every author credit in the catalogue, for building the search index. */
+    @Query("SELECT new app.adapters.output.projection.BookAuthorRow(b.bookId, a.authorId, a.name, a.bio) "
+            + "FROM BookEntity b JOIN b.authors a")
+    List<BookAuthorRow> findAllAuthorRows();
 }
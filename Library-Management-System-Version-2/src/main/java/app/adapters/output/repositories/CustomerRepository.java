@@ -1,13 +1,17 @@
 package app.adapters.output.repositories;
 
 import app.adapters.output.entity.CustomerEntity;
+import app.adapters.output.projection.CustomerListingRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,12 +20,59 @@ import java.util.UUID;
 public interface CustomerRepository extends JpaRepository<CustomerEntity, UUID> {
     /** The member with exactly this name, or empty. */
     Optional<CustomerEntity> findByName(String name);
-    @Query("SELECT c FROM CustomerEntity c LEFT JOIN c.transactions t " +
-            "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR LOWER(c.email) LIKE LOWER(CONCAT('%', :query, '%')) " +
-            "OR CAST(c.customerId AS string) LIKE CONCAT('%', :query, '%') " +
-            "OR CAST(t.transactionId AS string) LIKE CONCAT('%', :query, '%')")
-
-    /** One page of members matching on name, email, id or a loan id. */
-    Page<CustomerEntity> searchByQuery(@Param("query") String query, Pageable pageable);
+
+    /** One page of members as listing rows, without touching their loans. */
+    @Query(value = "SELECT new app.adapters.output.projection.CustomerListingRow("
+            + "c.customerId, c.name, c.email, c.privileges) FROM CustomerEntity c",
+            countQuery = "SELECT COUNT(c) FROM CustomerEntity c")
+    Page<CustomerListingRow> findListingPage(Pageable pageable);
+
+    /** Listing rows for these members, in no particular order. */
+    @Query("SELECT new app.adapters.output.projection.CustomerListingRow("
+            + "c.customerId, c.name, c.email, c.privileges) FROM CustomerEntity c WHERE c.customerId IN :ids")
+    List<CustomerListingRow> findListingRows(@Param("ids") Collection<UUID> ids);
+
+    /** Every member as a listing row: what the member search index is built from. */
+    @Query("SELECT new app.adapters.output.projection.CustomerListingRow("
+            + "c.customerId, c.name, c.email, c.privileges) FROM CustomerEntity c")
+    List<CustomerListingRow> findAllListingRows();
+
+    /**
+     * One page of the ids of members whose name or email contains the query, which must be lower case.
+     * For the queries the member search index cannot answer: too short for a trigram, or before it is built.
+     */
+    @Query(value = "SELECT c.customerId FROM CustomerEntity c "
+            + "WHERE LOWER(c.name) LIKE CONCAT('%', :query, '%') OR LOWER(c.email) LIKE CONCAT('%', :query, '%')",
+            countQuery = "SELECT COUNT(c) FROM CustomerEntity c WHERE LOWER(c.name) LIKE CONCAT('%', :query, '%') "
+                    + "OR LOWER(c.email) LIKE CONCAT('%', :query, '%')")
+    Page<UUID> findIdsByQuery(@Param("query") String query, Pageable pageable);
+
+    /** These members with their loans fetched in the same query, rather than one more query each. */
+    @Query("SELECT DISTINCT c FROM CustomerEntity c LEFT JOIN FETCH c.transactions WHERE c.customerId IN :ids")
+    List<CustomerEntity> findWithTransactionsByIds(@Param("ids") Collection<UUID> ids);
+
+    /** The member with this id, or the member who took out the loan with this id: two primary-key probes. */
+    @Query("SELECT c FROM CustomerEntity c WHERE c.customerId = :id OR c.customerId = "
+            + "(SELECT t.customer.customerId FROM TransactionEntity t WHERE t.transactionId = :id)")
+    Optional<CustomerEntity> findByCustomerOrLoanId(@Param("id") UUID id);
+
+    /** Takes one loan slot if the member is under the limit; 1 when taken, 0 at the limit or unknown. */
+    @Modifying
+    @Query("UPDATE CustomerEntity c SET c.activeLoans = c.activeLoans + 1 "
+            + "WHERE c.customerId = :id AND c.activeLoans < :limit")
+    int incrementActiveLoans(@Param("id") UUID customerId, @Param("limit") int limit);
+
+    /** Gives one loan slot back; never below zero, so a loan the counter missed cannot drive it negative. */
+    @Modifying
+    @Query("UPDATE CustomerEntity c SET c.activeLoans = c.activeLoans - 1 "
+            + "WHERE c.customerId = :id AND c.activeLoans > 0")
+    int decrementActiveLoans(@Param("id") UUID customerId);
+
+    /** Resets every counter that disagrees with the open loans on record; returns how many it corrected. */
+    @Modifying
+    @Query("UPDATE CustomerEntity c SET c.activeLoans = "
+            + "(SELECT COUNT(t) FROM TransactionEntity t WHERE t.customer = c AND t.returnDate IS NULL) "
+            + "WHERE c.activeLoans <> "
+            + "(SELECT COUNT(t) FROM TransactionEntity t WHERE t.customer = c AND t.returnDate IS NULL)")
+    int reconcileActiveLoans();
 }
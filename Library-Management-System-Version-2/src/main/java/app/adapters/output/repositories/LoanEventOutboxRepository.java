@@ -0,0 +1,33 @@
+package app.adapters.output.repositories;
+
+import app.adapters.output.entity.LoanEventOutboxEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Spring Data access to the loan event outbox. */
+@Repository
+public interface LoanEventOutboxRepository extends JpaRepository<LoanEventOutboxEntity, Long> {
+
+    /**
+     * The oldest events that may be sent at {@code now}, in the order they happened, locked until the
+     * transaction ends. A book with an event backing off is left out as a whole - only its oldest event
+     * is ever backed off - so however many rows it has, they never crowd out the books that are due,
+     * and its later events cannot overtake it. A second instance's relay finds the rows taken and
+     * skips its turn, rather than sending the same rows again.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "0"))
+    @Query("SELECT o FROM LoanEventOutboxEntity o WHERE NOT EXISTS (SELECT 1 FROM LoanEventOutboxEntity w "
+            + "WHERE w.bookId = o.bookId AND w.nextAttemptAt > :now) ORDER BY o.id")
+    List<LoanEventOutboxEntity> findDue(@Param("now") Instant now, Limit limit);
+}
@@ -1,9 +1,16 @@
 package app.adapters.output.repositories;
 
 import app.adapters.output.entity.TransactionEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -19,15 +26,31 @@ public interface TransactionRepository extends JpaRepository<TransactionEntity,
     /** A book can only be out on one loan at a time, so the open one is unambiguous. */
     Optional<TransactionEntity> findFirstByBookBookIdAndReturnDateIsNull(UUID bookId);
 
+    /** Sets the return date of a loan still open; 1 when it was, 0 when it had been closed already. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TransactionEntity t SET t.returnDate = :returnDate "
+            + "WHERE t.transactionId = :id AND t.returnDate IS NULL")
+    int closeOpenLoan(@Param("id") UUID transactionId, @Param("returnDate") LocalDate returnDate);
+
     /** One page of one member's loans. */
     Page<TransactionEntity> findByCustomerCustomerId(UUID customerId, Pageable pageable);
 
+    /** One member's loans after a keyset position, without the count an offset page needs. */
+    Window<TransactionEntity> findByCustomerCustomerId(UUID customerId, ScrollPosition position, Sort sort,
+                                                       Limit limit);
+
     /** How many loans a member has ever had. */
     long countByCustomerCustomerId(UUID customerId);
 
     /** A loan still out: no return date has been recorded yet. */
     Page<TransactionEntity> findByReturnDateIsNull(Pageable pageable);
 
+    /** Loans still out after a keyset position, without the count an offset page needs. */
+    Window<TransactionEntity> findByReturnDateIsNull(ScrollPosition position, Sort sort, Limit limit);
+
+    /** Every loan after a keyset position, without the count an offset page needs. */
+    Window<TransactionEntity> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
     /** How many books a member has out right now. */
     long countByCustomerCustomerIdAndReturnDateIsNull(UUID customerId);
 
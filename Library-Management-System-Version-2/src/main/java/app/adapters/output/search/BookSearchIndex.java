@@ -0,0 +1,256 @@
+package app.adapters.output.search;
+
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.repositories.BookRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory inverted index over the catalogue's title, ISBN, year, author names and description,
+ * so a search is a few map lookups instead of a LIKE scan across a join.
+ *
+ * <p>Kept current by the book and author adapters, which hand it the ids they touched; see
+ * {@link SearchIndex} for how. Each query term matches index terms by prefix, which is what a search
+ * box typed into a letter at a time needs, and every term has to match for a book to count.
+ *
+ * <p>Alongside the terms it keeps the set of stocked ISBNs, exact as stored, so marking which search
+ * hits from the external catalogue are already on the shelves is a set lookup rather than a query.
+ */
+@Component
+public class BookSearchIndex extends SearchIndex<BookSearchIndex.Rows> {
+
+    /** Hyphens inside an ISBN would otherwise split it into fragments no reader types. */
+    private static final Pattern DIGIT_HYPHEN = Pattern.compile("(?<=\\d)-(?=\\d)");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** What a match in each field is worth. A hit in the title says more than one in the blurb. */
+    private static final int TITLE_WEIGHT = 4;
+    private static final int ISBN_WEIGHT = 4;
+    private static final int AUTHOR_WEIGHT = 3;
+    private static final int YEAR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** A whole-word match outranks a prefix match on the same term. */
+    private static final int EXACT_TERM_FACTOR = 2;
+
+    private final BookRepository bookRepository;
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    /** term -> book id -> weight of that term in that book. Sorted, so a prefix is a sub-map. */
+    private final NavigableMap<String, Map<UUID, Integer>> postings = new TreeMap<>();
+    private final Map<UUID, Document> documents = new HashMap<>();
+    /** ISBN -> how many indexed books carry it. A count, so removing one copy leaves the other stocked. */
+    private final Map<String, Integer> isbns = new HashMap<>();
+
+    /** Takes the repository it builds from and refreshes through, and the way to tell other instances. */
+    public BookSearchIndex(BookRepository bookRepository, CacheInvalidationBroadcaster broadcaster) {
+        this.bookRepository = bookRepository;
+        this.broadcaster = broadcaster;
+    }
+
+    /** One indexed book: its terms and ISBN, so it can be taken out again, and its title to break score ties. */
+    private record Document(String title, String isbn, Map<String, Integer> terms) { }
+
+    /** Books as read from the database, with their author names by book id. */
+    record Rows(List<BookListingRow> books, Map<UUID, List<String>> authors) { }
+
+    /**
+     * One page of the ids matching the query, best match first, with the exact number of matches as
+     * the total. Ties go to title order, so equally good matches still page predictably.
+     */
+    public Page<UUID> search(String query, Pageable pageable) {
+        List<String> queryTerms = terms(query);
+        if (queryTerms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Map.Entry<UUID, Integer>> ranked;
+        lock.readLock().lock();
+        try {
+            Map<UUID, Integer> scores = score(queryTerms);
+            ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<UUID, Integer>comparingByValue().reversed()
+                    .thenComparing(entry -> documents.get(entry.getKey()).title())
+                    .thenComparing(Map.Entry::getKey));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ranked.stream().map(Map.Entry::getKey).toList(), pageable, ranked.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        List<UUID> page = ranked.subList(from, to).stream().map(Map.Entry::getKey).toList();
+        return new PageImpl<>(page, pageable, ranked.size());
+    }
+
+    /** Of these ISBNs, the ones an indexed book has, compared exactly as stored. */
+    public Set<String> stockedIsbns(Collection<String> candidates) {
+        Set<String> stocked = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (String isbn : candidates) {
+                if (isbns.containsKey(isbn)) {
+                    stocked.add(isbn);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stocked;
+    }
+
+    /** Books matching every query term, each with the sum of its best match per term. */
+    private Map<UUID, Integer> score(List<String> queryTerms) {
+        Map<UUID, Integer> totals = null;
+        for (String queryTerm : queryTerms) {
+            Map<UUID, Integer> termScores = new HashMap<>();
+            postings.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true)
+                    .forEach((term, books) -> {
+                        int factor = term.equals(queryTerm) ? EXACT_TERM_FACTOR : 1;
+                        books.forEach((bookId, weight) -> termScores.merge(bookId, weight * factor, Math::max));
+                    });
+
+            if (totals == null) {
+                totals = termScores;
+            } else {
+                Map<UUID, Integer> previous = totals;
+                totals = new HashMap<>();
+                for (Map.Entry<UUID, Integer> entry : termScores.entrySet()) {
+                    Integer sofar = previous.get(entry.getKey());
+                    if (sofar != null) {
+                        totals.put(entry.getKey(), sofar + entry.getValue());
+                    }
+                }
+            }
+            if (totals.isEmpty()) {
+                break;
+            }
+        }
+        return totals == null ? Map.of() : totals;
+    }
+
+    /** Reads the whole catalogue, two queries in all. */
+    @Override
+    protected Rows readAll() {
+        return new Rows(bookRepository.findAllListingRows(), authorNames(bookRepository.findAllAuthorRows()));
+    }
+
+    @Override
+    protected Rows read(Set<UUID> ids) {
+        return new Rows(bookRepository.findListingRows(ids), authorNames(bookRepository.findAuthorRows(ids)));
+    }
+
+    @Override
+    protected void clear() {
+        postings.clear();
+        documents.clear();
+        isbns.clear();
+    }
+
+    @Override
+    protected void load(Rows rows) {
+        rows.books().forEach(row -> add(row, rows.authors().getOrDefault(row.bookId(), List.of())));
+    }
+
+    @Override
+    protected void broadcast(Collection<UUID> ids) {
+        broadcaster.booksChanged(ids);
+    }
+
+    @Override
+    protected int count(Rows rows) {
+        return rows.books().size();
+    }
+
+    @Override
+    protected Rows only(Rows rows, Set<UUID> ids) {
+        return new Rows(rows.books().stream().filter(row -> ids.contains(row.bookId())).toList(),
+                rows.authors());
+    }
+
+    /** Indexes one book. Caller holds the write lock. */
+    private void add(BookListingRow row, List<String> authorNames) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, row.title(), TITLE_WEIGHT);
+        addField(weights, row.isbn(), ISBN_WEIGHT);
+        addField(weights, String.valueOf(row.publicationYear()), YEAR_WEIGHT);
+        authorNames.forEach(name -> addField(weights, name, AUTHOR_WEIGHT));
+        addField(weights, row.description(), DESCRIPTION_WEIGHT);
+
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>())
+                .put(row.bookId(), weight));
+        String title = row.title() == null ? "" : row.title().toLowerCase(Locale.ROOT);
+        documents.put(row.bookId(), new Document(title, row.isbn(), weights));
+        if (row.isbn() != null) {
+            isbns.merge(row.isbn(), 1, Integer::sum);
+        }
+    }
+
+    /** Takes one book out of every posting list it is on. Caller holds the write lock. */
+    @Override
+    protected void remove(UUID bookId) {
+        Document document = documents.remove(bookId);
+        if (document == null) {
+            return;
+        }
+        if (document.isbn() != null) {
+            isbns.computeIfPresent(document.isbn(), (isbn, count) -> count == 1 ? null : count - 1);
+        }
+        for (String term : document.terms().keySet()) {
+            Map<UUID, Integer> books = postings.get(term);
+            if (books != null) {
+                books.remove(bookId);
+                if (books.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /** Adds a field's terms. A term found in several fields is worth all of them together. */
+    private static void addField(Map<String, Integer> weights, String text, int weight) {
+        // One field counts once per term: "the" three times in a title is not three times the match.
+        new HashSet<>(terms(text)).forEach(term -> weights.merge(term, weight, Integer::sum));
+    }
+
+    /** Lower-cased words and numbers, with ISBN hyphens closed up. The same rules for books and queries. */
+    static List<String> terms(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = DIGIT_HYPHEN.matcher(text.toLowerCase(Locale.ROOT)).replaceAll("");
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATORS.split(normalized)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /** Author names grouped by the book they are credited on. */
+    private static Map<UUID, List<String>> authorNames(List<BookAuthorRow> rows) {
+        Map<UUID, List<String>> names = new HashMap<>();
+        rows.forEach(row -> names.computeIfAbsent(row.bookId(), id -> new ArrayList<>()).add(row.name()));
+        return names;
+    }
+}
@@ -0,0 +1,222 @@
+package app.adapters.output.search;
+
+import app.adapters.output.projection.CustomerListingRow;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.repositories.CustomerRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A trigram index over member names and emails, so the desk's search box finds "smi" inside
+ * "Goldsmith" without a LIKE scan of the member table.
+ *
+ * <p>A query of three characters or more is cut into trigrams; only members holding every one of them
+ * are candidates, and each candidate is then checked for the whole query as a substring, which is the
+ * match the old LIKE gave. A shorter query has no trigram to look up, and scanning every member for it
+ * would hold the lock for the length of the table, so {@link #answers} turns it away and the adapter
+ * asks the database. Kept current by the member adapter; see {@link SearchIndex} for how.
+ */
+@Component
+public class CustomerSearchIndex extends SearchIndex<List<CustomerListingRow>> {
+
+    private static final int GRAM = 3;
+
+    private final CustomerRepository customerRepository;
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    /** trigram -> members whose name or email contains it. */
+    private final Map<String, Set<UUID>> grams = new HashMap<>();
+    private final Map<UUID, Member> members = new HashMap<>();
+
+    /** Takes the repository it builds from and refreshes through, and the way to tell other instances. */
+    public CustomerSearchIndex(CustomerRepository customerRepository, CacheInvalidationBroadcaster broadcaster) {
+        this.customerRepository = customerRepository;
+        this.broadcaster = broadcaster;
+    }
+
+    /** One indexed member, lower-cased once here rather than on every comparison. */
+    private record Member(UUID id, String name, String email) {
+
+        /** Whether the query appears anywhere in the name or the email. */
+        boolean contains(String query) {
+            return name.contains(query) || email.contains(query);
+        }
+
+        /** Every trigram of the name and the email. */
+        Set<String> trigrams() {
+            Set<String> all = new HashSet<>(trigramsOf(name));
+            all.addAll(trigramsOf(email));
+            return all;
+        }
+    }
+
+    /** Whether {@link #search} can answer this query: the index is built and the query holds a trigram. */
+    public boolean answers(String query) {
+        return isBuilt() && needle(query).length() >= GRAM;
+    }
+
+    /**
+     * One page of the ids of members whose name or email contains the query, ignoring case, in the
+     * pageable's order by name or email (name when it asks for anything else), with the exact total.
+     * A query {@link #answers} turns away matches nothing here.
+     */
+    public Page<UUID> search(String query, Pageable pageable) {
+        String needle = needle(query);
+        if (needle.length() < GRAM) {
+            return Page.empty(pageable);
+        }
+
+        List<Member> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Member member : candidates(needle)) {
+                if (member.contains(needle)) {
+                    matches.add(member);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(order(pageable.getSort()));
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matches.stream().map(Member::id).toList(), pageable, matches.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to).stream().map(Member::id).toList(),
+                pageable, matches.size());
+    }
+
+    /** Members holding every trigram of the query, smallest posting list first. Caller holds the read lock. */
+    private Collection<Member> candidates(String needle) {
+        List<Set<UUID>> postings = new ArrayList<>();
+        for (String gram : trigramsOf(needle)) {
+            Set<UUID> posting = grams.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        List<Member> candidates = new ArrayList<>();
+        for (UUID id : postings.getFirst()) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            if (inAll) {
+                candidates.add(members.get(id));
+            }
+        }
+        return candidates;
+    }
+
+    /** Reads every member in one query. */
+    @Override
+    protected List<CustomerListingRow> readAll() {
+        return customerRepository.findAllListingRows();
+    }
+
+    @Override
+    protected List<CustomerListingRow> read(Set<UUID> ids) {
+        return customerRepository.findListingRows(ids);
+    }
+
+    @Override
+    protected void clear() {
+        grams.clear();
+        members.clear();
+    }
+
+    @Override
+    protected void load(List<CustomerListingRow> rows) {
+        rows.forEach(this::add);
+    }
+
+    @Override
+    protected void broadcast(Collection<UUID> ids) {
+        broadcaster.membersChanged(ids);
+    }
+
+    @Override
+    protected int count(List<CustomerListingRow> rows) {
+        return rows.size();
+    }
+
+    @Override
+    protected List<CustomerListingRow> only(List<CustomerListingRow> rows, Set<UUID> ids) {
+        return rows.stream().filter(row -> ids.contains(row.customerId())).toList();
+    }
+
+    /** Indexes one member. Caller holds the write lock. */
+    private void add(CustomerListingRow row) {
+        Member member = new Member(row.customerId(), lower(row.name()), lower(row.email()));
+        members.put(member.id(), member);
+        member.trigrams().forEach(gram -> grams.computeIfAbsent(gram, g -> new HashSet<>()).add(member.id()));
+    }
+
+    /** Takes one member out of every posting it is on. Caller holds the write lock. */
+    @Override
+    protected void remove(UUID id) {
+        Member member = members.remove(id);
+        if (member == null) {
+            return;
+        }
+        for (String gram : member.trigrams()) {
+            Set<UUID> posting = grams.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /** The pageable's first order if it names a field held here, by name otherwise; id breaks ties. */
+    private static Comparator<Member> order(Sort sort) {
+        Sort.Order first = sort.stream().findFirst().orElse(Sort.Order.asc("name"));
+        Comparator<Member> byField = "email".equals(first.getProperty())
+                ? Comparator.comparing(Member::email)
+                : Comparator.comparing(Member::name);
+        if (first.isDescending()) {
+            byField = byField.reversed();
+        }
+        return byField.thenComparing(Member::id);
+    }
+
+    /** Every run of three characters in the text. */
+    private static Set<String> trigramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /** The query as matched: trimmed and lower-cased. */
+    private static String needle(String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Lower-cased, with a missing value read as empty. */
+    private static String lower(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
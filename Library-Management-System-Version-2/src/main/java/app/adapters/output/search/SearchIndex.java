@@ -0,0 +1,229 @@
+package app.adapters.output.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * What {@link BookSearchIndex} and {@link CustomerSearchIndex} share: being built from the database
+ * once the application is ready, and kept current by re-reading the ids the adapters hand over.
+ *
+ * <p>A refresh inside a transaction waits for the commit, so an index never holds a row the database
+ * rolled back; outside one it happens now. Every backend instance holds its own indexes over the same
+ * database, so each refresh is also broadcast and arrives elsewhere as {@link #refreshFromPeer}. A
+ * refresh that lands while a rebuild is reading is read again once the rebuild has swapped in, so the
+ * rebuild's older copy never wins.
+ *
+ * <p>The reads themselves run outside the lock, so two reads of one id - two quick edits, or an edit
+ * here and the broadcast of one elsewhere - can finish in either order. Each read takes a ticket before
+ * it starts, and only the id's latest ticket may apply what it read: a later ticket read after every
+ * commit an earlier one was sent for. A rebuild takes a ticket too, and voids the ones before it.
+ *
+ * @param <S> what one read from the database yields: the rows the index is made from
+ */
+@Slf4j
+public abstract class SearchIndex<S> {
+
+    /** Guards the subclass's structures as well as the fields here. */
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** One rebuild at a time, so each knows which reloads it may have overwritten. */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    /** False until the first build, when the index knows of nothing at all. Guarded by {@link #lock}. */
+    private boolean built;
+    /** Ids reloaded since the running rebuild began reading; null when none is. Guarded by {@link #lock}. */
+    private Set<UUID> reloadedDuringRebuild;
+    /** The last ticket handed out. Guarded by {@link #lock}. */
+    private long lastTicket;
+    /** Id -> the ticket of its latest read still to apply. Guarded by {@link #lock}. */
+    private final Map<UUID, Long> latestRead = new HashMap<>();
+
+    /** Every row the index covers. */
+    protected abstract S readAll();
+
+    /** The rows for these ids; an id no longer stored has none. */
+    protected abstract S read(Set<UUID> ids);
+
+    /** Empties the index. Caller holds the write lock. */
+    protected abstract void clear();
+
+    /** Indexes the rows read. Caller holds the write lock. */
+    protected abstract void load(S rows);
+
+    /** Takes one id out of the index. Caller holds the write lock. */
+    protected abstract void remove(UUID id);
+
+    /** Tells the other instances these ids changed. */
+    protected abstract void broadcast(Collection<UUID> ids);
+
+    /** How many rows were read, for the log line once built. */
+    protected abstract int count(S rows);
+
+    /** The rows read for just these ids, for a read some of whose ids a later one has overtaken. */
+    protected abstract S only(S rows, Set<UUID> ids);
+
+    /** Reads every row and replaces the index with them, then reads again whatever was refreshed meanwhile. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long ticket = startRebuild();
+            S rows;
+            try {
+                rows = readAll();
+            } catch (RuntimeException e) {
+                setReloadedDuringRebuild(null);
+                throw e;
+            }
+
+            Set<UUID> stale;
+            lock.writeLock().lock();
+            try {
+                clear();
+                load(rows);
+                built = true;
+                // Whatever those reads would apply was committed before this ticket, so readAll saw it.
+                latestRead.values().removeIf(earlier -> earlier < ticket);
+                stale = reloadedDuringRebuild;
+                reloadedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!stale.isEmpty()) {
+                reload(stale);
+            }
+            log.info("{} built over {} rows", getClass().getSimpleName(), count(rows));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads these ids and indexes them as stored; an id no longer stored drops out. Inside a
+     * transaction this waits for the commit. The other instances are told to do the same.
+     */
+    public void refresh(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        broadcast(ids);
+        Set<UUID> copy = new HashSet<>(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(copy);
+                }
+            });
+        } else {
+            reload(copy);
+        }
+    }
+
+    /** Re-reads what another instance wrote, now and without telling anyone: they already know. */
+    public void refreshFromPeer(Collection<UUID> ids) {
+        reload(new HashSet<>(ids));
+    }
+
+    /** Whether the index has been built yet; until then it knows of nothing at all. */
+    public boolean isBuilt() {
+        lock.readLock().lock();
+        try {
+            return built;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the given ids back from storage and swaps their entries, leaving out any id a later read
+     * or a rebuild has overtaken: what that one read is at least as new.
+     */
+    private void reload(Set<UUID> ids) {
+        long ticket = startRead(ids);
+        S rows;
+        try {
+            rows = read(ids);
+        } catch (RuntimeException e) {
+            finishRead(ids, ticket);
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Set<UUID> current = finishRead(ids, ticket);
+            if (current.isEmpty()) {
+                return;
+            }
+            if (reloadedDuringRebuild != null) {
+                reloadedDuringRebuild.addAll(current);
+            }
+            current.forEach(this::remove);
+            load(current.size() == ids.size() ? rows : only(rows, current));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Hands out the next ticket and makes it the latest read of each id. */
+    private long startRead(Set<UUID> ids) {
+        lock.writeLock().lock();
+        try {
+            long ticket = ++lastTicket;
+            ids.forEach(id -> latestRead.put(id, ticket));
+            return ticket;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Clears this read's tickets, returning the ids it was still the latest read of. */
+    private Set<UUID> finishRead(Set<UUID> ids, long ticket) {
+        lock.writeLock().lock();
+        try {
+            Set<UUID> current = new HashSet<>();
+            for (UUID id : ids) {
+                if (latestRead.remove(id, ticket)) {
+                    current.add(id);
+                }
+            }
+            return current;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Starts collecting the ids reloaded from here on, and hands out the rebuild's ticket. */
+    private long startRebuild() {
+        lock.writeLock().lock();
+        try {
+            reloadedDuringRebuild = new HashSet<>();
+            return ++lastTicket;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setReloadedDuringRebuild(Set<UUID> ids) {
+        lock.writeLock().lock();
+        try {
+            reloadedDuringRebuild = ids;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
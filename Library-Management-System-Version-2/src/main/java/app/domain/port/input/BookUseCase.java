@@ -2,10 +2,15 @@ package app.domain.port.input;
 
 import app.domain.dto.CreateNewBook;
 import app.domain.model.Book;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 
@@ -17,6 +22,9 @@ public interface BookUseCase {
     /** One page of the catalogue. */
     Page<Book> getPaginatedBooks(Pageable pageable);
 
+    /** The size books after a keyset position, read without counting the catalogue. */
+    Window<Book> scrollBooks(KeysetScrollPosition after, Sort sort, int size);
+
     /** One page of books matching a free-text query. */
     Page<Book> searchBooks(String query, Pageable pageable);
 
@@ -32,6 +40,9 @@ public interface BookUseCase {
     /** The book with this id, or empty. */
     Optional<Book> searchById(UUID id);
 
+    /** Of these ISBNs, the ones already on the shelves, all in one go: for marking search hits. */
+    Set<String> findStockedIsbns(Collection<String> isbns);
+
     /** Overwrites a book's details. */
     void updateBook(UUID bookId, Book book);
 
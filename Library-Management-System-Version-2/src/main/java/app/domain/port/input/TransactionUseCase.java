@@ -2,8 +2,11 @@ package app.domain.port.input;
 
 import app.domain.dto.CreateNewTransaktion;
 import app.domain.model.Transaction;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.time.LocalDate;
 import java.util.Optional;
@@ -33,6 +36,15 @@ public interface TransactionUseCase {
     /** One page of the loans still outstanding. */
     Page<Transaction> viewActiveLoans(Pageable pageable);
 
+    /** One member's loans after a keyset position, without counting them. */
+    Window<Transaction> scrollBorrowingHistory(UUID customerId, KeysetScrollPosition after, Sort sort, int size);
+
+    /** Every loan after a keyset position, without counting them. */
+    Window<Transaction> scrollAllLoans(KeysetScrollPosition after, Sort sort, int size);
+
+    /** The outstanding loans after a keyset position, without counting them. */
+    Window<Transaction> scrollActiveLoans(KeysetScrollPosition after, Sort sort, int size);
+
     /** The loan with this id, or empty. */
     Optional<Transaction> findById(UUID transactionId);
 
@@ -4,15 +4,37 @@ import app.domain.dto.CreateNewBook;
 import app.domain.model.CatalogCandidate;
 import app.domain.model.CatalogPage;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-/** An external catalogue to prefill book details from. Never throws: a lookup is a convenience. */
+/**
+ * An external catalogue to prefill book details from. A single lookup throws when the catalogue could
+ * not be asked, so callers that remember misses never remember an outage as one; the rest never throw.
+ */
 public interface BookCatalogPort {
 
-    /** The catalogue's entry for one ISBN, or empty when unknown or unreachable. */
+    /** The catalogue's entry for one ISBN, or empty when it has none. Throws when it is unreachable. */
     Optional<CreateNewBook> findByIsbn(String isbn);
 
+    /**
+     * The catalogue's entries for many ISBNs, keyed by the ISBN as given; unknown and unreachable ones
+     * are left out. One lookup each unless the catalogue can answer several in one call.
+     */
+    default Map<String, CreateNewBook> findByIsbns(Collection<String> isbns) {
+        Map<String, CreateNewBook> found = new LinkedHashMap<>();
+        for (String isbn : isbns) {
+            try {
+                findByIsbn(isbn).ifPresent(book -> found.put(isbn, book));
+            } catch (RuntimeException e) {
+                // Left out, as an unknown one would be; the caller reports it as skipped.
+            }
+        }
+        return found;
+    }
+
     /** One page of free-text search. Candidates carry no description; that is fetched on import. */
     CatalogPage search(String query, int page, int size);
 
@@ -1,10 +1,17 @@
 package app.domain.port.output;
 
 import app.domain.model.Book;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /** Storage the domain needs for books. */
@@ -12,9 +19,43 @@ public interface BookRepositoryPort {
     /** Stores a new book. */
     void saveBook(Book book);
 
+    /**
+     * Stores many new books in one go, creating or reusing each author by name. The caller has
+     * already ruled out duplicates; each book gets its assigned id. All or nothing: one row the
+     * database refuses fails the whole call.
+     */
+    void saveBooks(List<Book> books);
+
+    /** Of these titles, the ones a stored book already has. */
+    Set<String> findStockedTitles(Collection<String> titles);
+
+    /** Of these ISBNs, the ones a stored book already has. */
+    Set<String> findStockedIsbns(Collection<String> isbns);
+
+    /**
+     * As {@link #findStockedIsbns}, answered from memory where it can be. A write on another instance
+     * may take a moment to show, so this is for marking search hits; a write decides on the other.
+     */
+    Set<String> findStockedIsbnsForDisplay(Collection<String> isbns);
+
     /** Overwrites the stored book with this id. */
     void updateBook(UUID bookID, Book book);
 
+    /**
+     * Takes a book off the shelf if, and only if, it is on the shelf now, in one conditional write.
+     * False when it is already out or not stored; of two concurrent claims at most one succeeds.
+     */
+    boolean claimBook(UUID bookId);
+
+    /** Puts a book back on the shelf in one write, the counterpart of {@link #claimBook}. */
+    void releaseBook(UUID bookId);
+
+    /**
+     * Backfills blurbs, book id to text, in one transaction. A book that has gained a blurb since, or
+     * is gone, is left as it is.
+     */
+    void fillDescriptions(Map<UUID, String> descriptions);
+
     /** Removes the stored book. */
     void deleteBook(UUID bookId);
 
@@ -36,4 +77,7 @@ public interface BookRepositoryPort {
     /** One page of the stored catalogue. */
     Page<Book> getPaginatedBooks(Pageable pageable);
 
+    /** The stored books after a keyset position, read without counting the catalogue. */
+    Window<Book> scrollBooks(KeysetScrollPosition after, Sort sort, int size);
+
 }
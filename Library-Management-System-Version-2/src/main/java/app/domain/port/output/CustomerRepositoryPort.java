@@ -32,4 +32,16 @@ public interface CustomerRepositoryPort {
 
     /** One page of stored members matching a free-text query. */
     Page<Customer> searchCustomer(String query, Pageable pageable);
+
+    /**
+     * Counts one more loan against the member if that keeps them within the limit, in one conditional
+     * write. False at the limit or for an unknown member; concurrent borrows can never overshoot.
+     */
+    boolean reserveLoanSlot(UUID customerId, int limit);
+
+    /** Counts one loan fewer against the member. */
+    void releaseLoanSlot(UUID customerId);
+
+    /** Rebuilds every member's loan count from the open loans on record; returns how many were wrong. */
+    int reconcileActiveLoans();
 }
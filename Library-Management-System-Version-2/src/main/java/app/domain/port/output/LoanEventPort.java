@@ -3,7 +3,10 @@ package app.domain.port.output;
 import app.domain.model.Book;
 import app.domain.model.Customer;
 
-/** Announces that a loan started or ended. Implementations swallow errors: this never fails a borrow. */
+/**
+ * Announces that a loan started or ended. Called inside the loan's transaction, and records the event
+ * there rather than sending it: the event is stored if and only if the loan is, and no broker is waited on.
+ */
 public interface LoanEventPort {
 
     /** Announces that a member took a book out. */
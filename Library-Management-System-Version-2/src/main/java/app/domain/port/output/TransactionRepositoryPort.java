@@ -2,8 +2,11 @@ package app.domain.port.output;
 
 import app.domain.model.Book;
 import app.domain.model.Transaction;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,12 +21,18 @@ public interface TransactionRepositoryPort {
     /** Overwrites a stored loan. */
     void updateTransaction(Transaction transaction);
 
+    /** Records the return of a loan that is still open; false when it was already closed. One UPDATE. */
+    boolean closeLoan(UUID transactionId, LocalDate returnDate);
+
     /** Every loan ever recorded against one book. */
     List<Transaction> getTransactionsForBook(Book book);
 
     /** One page of one member's loans. */
     Page<Transaction> viewBorrowingHistory(UUID customerId, Pageable pageable);
 
+    /** One member's loans after a keyset position, read without counting them. */
+    Window<Transaction> scrollBorrowingHistory(UUID customerId, KeysetScrollPosition after, Sort sort, int size);
+
     /** The stored loan with this id, or empty. */
     Optional<Transaction> findTransactionById(UUID transactionId);
 
@@ -36,6 +45,12 @@ public interface TransactionRepositoryPort {
     /** One page of the loans still outstanding. */
     Page<Transaction> findActiveLoans(Pageable pageable);
 
+    /** Every stored loan after a keyset position, read without counting them. */
+    Window<Transaction> scrollAllTransactions(KeysetScrollPosition after, Sort sort, int size);
+
+    /** The outstanding loans after a keyset position, read without counting them. */
+    Window<Transaction> scrollActiveLoans(KeysetScrollPosition after, Sort sort, int size);
+
     /** How many books a member currently has out. */
     long countActiveLoans(UUID customerId);
 
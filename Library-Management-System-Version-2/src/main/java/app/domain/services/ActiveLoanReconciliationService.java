@@ -0,0 +1,33 @@
+package app.domain.services;
+
+import app.domain.port.output.CustomerRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rebuilds each member's active-loan counter from the loans on record. Borrow and return keep the counter
+ * exact; this catches whatever wrote a loan without them, such as a row fixed by hand.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActiveLoanReconciliationService {
+
+    private final CustomerRepositoryPort customerRepositoryPort;
+
+    /** Runs when the application is ready, which also fills in members stored before the counter, then nightly. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.loans.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        int corrected = customerRepositoryPort.reconcileActiveLoans();
+        if (corrected > 0) {
+            log.warn("Corrected the active-loan count of {} member(s)", corrected);
+        } else {
+            log.debug("Every member's active-loan count matches their open loans");
+        }
+    }
+}
@@ -8,11 +8,15 @@ import app.domain.port.input.BookUseCase;
 import app.domain.port.output.BookRepositoryPort;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -24,6 +28,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BookService implements BookUseCase {
 
+    /** Why a book is turned away; the bulk import reports the same reasons. */
+    static final String DUPLICATE_TITLE = "Book with the same title already exists.";
+    static final String DUPLICATE_ISBN = "Book with the same isbn already exists.";
+
     private final BookRepositoryPort bookRepositoryPort;
     private final AuthorUseCase authorUseCase;
 
@@ -31,10 +39,10 @@ public class BookService implements BookUseCase {
     @Override
     public Book createNewBook(CreateNewBook bookToCreate) {
         if (bookRepositoryPort.searchBookByTitle(bookToCreate.getTitle()).isPresent()) {
-            throw new IllegalArgumentException("Book with the same title already exists.");
+            throw new IllegalArgumentException(DUPLICATE_TITLE);
         }
         if (bookRepositoryPort.searchByIsbn(bookToCreate.getIsbn()).isPresent()) {
-            throw new IllegalArgumentException("Book with the same isbn already exists.");
+            throw new IllegalArgumentException(DUPLICATE_ISBN);
         }
 
         Set<Author> authors = bookToCreate.getAuthors().stream()
@@ -62,6 +70,12 @@ public class BookService implements BookUseCase {
         return bookRepositoryPort.getPaginatedBooks(pageable);
     }
 
+    /** The books after a keyset position, without counting the catalogue. */
+    @Override
+    public Window<Book> scrollBooks(KeysetScrollPosition after, Sort sort, int size) {
+        return bookRepositoryPort.scrollBooks(after, sort, size);
+    }
+
     /** The book with exactly this title, or empty. */
     @Override
     public Optional<Book> searchBookByTitle(String title) {
@@ -86,6 +100,12 @@ public class BookService implements BookUseCase {
         return bookRepositoryPort.searchBookById(id);
     }
 
+    /** Of these ISBNs, the ones already on the shelves, as the display path knows them. */
+    @Override
+    public Set<String> findStockedIsbns(Collection<String> isbns) {
+        return bookRepositoryPort.findStockedIsbnsForDisplay(isbns);
+    }
+
     /** One page of books matching a free-text query. */
     @Override
     public Page<Book> searchBooks(String query, Pageable pageable) {
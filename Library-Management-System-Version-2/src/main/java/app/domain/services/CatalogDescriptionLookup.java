@@ -15,7 +15,10 @@ public class CatalogDescriptionLookup {
 
     private final BookCatalogPort bookCatalogPort;
 
-    /** The blurb for an ISBN, or empty when there is none. Blank blurbs count as none. */
+    /**
+     * The blurb for an ISBN, or empty when there is none. Blank blurbs count as none. A catalogue
+     * failure is thrown rather than returned, so it is not cached as a miss.
+     */
     @Cacheable(cacheNames = "catalogDescription", key = "#isbn")
     public Optional<String> forIsbn(String isbn) {
         return bookCatalogPort.findByIsbn(isbn)
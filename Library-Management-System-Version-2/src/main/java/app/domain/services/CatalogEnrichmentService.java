@@ -1,46 +1,166 @@
 package app.domain.services;
 
 import app.domain.model.Book;
-import app.domain.port.input.BookUseCase;
-import lombok.RequiredArgsConstructor;
+import app.domain.port.output.BookRepositoryPort;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
-/** Fills in a book's blurb the first time it is opened. Never on the borrow or edit paths. */
+/**
+ * Fills in missing blurbs in the background. Never on the borrow or edit paths, and no longer on the
+ * read path either: opening a book only queues it, and the reader gets whatever is stored now.
+ *
+ * <p>The queue is bounded and holds each ISBN once, however many readers open the book before it is
+ * looked up. A drain takes a batch, looks each ISBN up no faster than the configured rate - Open
+ * Library is a shared public service - and writes what it found in one transaction. A book dropped
+ * because the queue was full, or lost to a failed lookup, is queued again the next time it is opened.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class CatalogEnrichmentService {
 
     private final CatalogDescriptionLookup descriptionLookup;
-    private final BookUseCase bookUseCase;
+    private final BookRepositoryPort bookRepositoryPort;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
 
-    /** Backfills a missing blurb and saves it. Returns the book either way, and never throws. */
-    public Book withDescription(Book book) {
-        if (book == null || hasText(book.getDescription()) || !hasText(book.getIsbn())) {
-            return book;
+    /** A burst of one, so an idle spell earns no rush of lookups when books are next queued. */
+    private final TokenBucket lookupRate;
+
+    /** ISBN to the book waiting for its blurb, oldest first. Guarded by {@link #queueLock}. */
+    private final Map<String, UUID> pending = new LinkedHashMap<>();
+    private final Lock queueLock = new ReentrantLock();
+
+    /** One drain at a time; held across the lookups, which the queue lock never is. */
+    private final Lock drainLock = new ReentrantLock();
+
+    /** Reads the queue's bounds and the lookup rate from configuration. */
+    public CatalogEnrichmentService(CatalogDescriptionLookup descriptionLookup,
+                                    BookRepositoryPort bookRepositoryPort,
+                                    @Value("${library.catalog.enrichment.enabled:true}") boolean enabled,
+                                    @Value("${library.catalog.enrichment.queue-capacity:1000}") int capacity,
+                                    @Value("${library.catalog.enrichment.batch-size:20}") int batchSize,
+                                    @Value("${library.catalog.enrichment.lookups-per-second:2}")
+                                    double lookupsPerSecond) {
+        this.descriptionLookup = descriptionLookup;
+        this.bookRepositoryPort = bookRepositoryPort;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lookupRate = new TokenBucket(lookupsPerSecond, 1);
+    }
+
+    /**
+     * Queues a backfill when the book has an ISBN but no blurb, and returns at once. True when the
+     * book was queued by this call; false when it needs nothing, is already queued, or the queue is full.
+     */
+    public boolean requestDescription(Book book) {
+        if (!enabled || book == null || hasText(book.getDescription()) || !hasText(book.getIsbn())) {
+            return false;
+        }
+        queueLock.lock();
+        try {
+            if (pending.containsKey(book.getIsbn()) || pending.size() >= capacity) {
+                return false;
+            }
+            pending.put(book.getIsbn(), book.getBookId());
+            return true;
+        } finally {
+            queueLock.unlock();
         }
+    }
 
+    /** How many books are waiting. */
+    public int queued() {
+        queueLock.lock();
         try {
-            Optional<String> description = descriptionLookup.forIsbn(book.getIsbn());
-            if (description.isEmpty()) {
-                return book;
+            return pending.size();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    /**
+     * Looks up one batch and writes the blurbs found. On a fixed delay, so one drain finishes before
+     * the next is due however slow Open Library is being; locked for a drain started by hand.
+     */
+    @Scheduled(fixedDelayString = "${library.catalog.enrichment.drain-delay:PT5S}",
+            initialDelayString = "${library.catalog.enrichment.drain-delay:PT5S}")
+    public void drain() {
+        drainLock.lock();
+        try {
+            drainBatch();
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /** The body of a drain, run under {@link #drainLock}. */
+    private void drainBatch() {
+        Map<String, UUID> batch = take();
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, String> found = new LinkedHashMap<>();
+        for (Map.Entry<String, UUID> entry : batch.entrySet()) {
+            if (!awaitLookupSlot()) {
+                break;
+            }
+            try {
+                descriptionLookup.forIsbn(entry.getKey()).ifPresent(text -> found.put(entry.getValue(), text));
+            } catch (Exception e) {
+                // A missing blurb is cosmetic; the next view of the book queues it again.
+                log.debug("Could not look up a description for ISBN {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        if (!found.isEmpty()) {
+            bookRepositoryPort.fillDescriptions(found);
+        }
+        log.debug("Enrichment drain: {} looked up, {} found, {} still queued", batch.size(), found.size(), queued());
+    }
+
+    /** Removes and returns up to one batch, oldest first. */
+    private Map<String, UUID> take() {
+        Map<String, UUID> batch = new LinkedHashMap<>();
+        queueLock.lock();
+        try {
+            Iterator<Map.Entry<String, UUID>> oldest = pending.entrySet().iterator();
+            while (oldest.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, UUID> entry = oldest.next();
+                batch.put(entry.getKey(), entry.getValue());
+                oldest.remove();
             }
+        } finally {
+            queueLock.unlock();
+        }
+        return batch;
+    }
 
-            book.setDescription(description.get());
-            bookUseCase.updateBook(book.getBookId(), book);
-            return book;
-        } catch (Exception e) {
-            // A missing blurb is cosmetic; never fail the read over it.
-            log.debug("Could not backfill description for ISBN {}: {}", book.getIsbn(), e.getMessage());
-            return book;
+    /** Waits until the rate allows another lookup. False if interrupted, which ends the drain. */
+    @SuppressWarnings("PMD.DoNotUseThreads") // Only to restore the interrupt flag on the scheduler's thread.
+    private boolean awaitLookupSlot() {
+        try {
+            lookupRate.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     /** True when the value is neither null nor blank. */
-    private boolean hasText(String value) {
+    private static boolean hasText(String value) {
         return value != null && !value.isBlank();
     }
 }
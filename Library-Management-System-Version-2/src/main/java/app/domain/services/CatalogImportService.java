@@ -2,46 +2,96 @@ package app.domain.services;
 
 import app.domain.dto.CreateNewAuthor;
 import app.domain.dto.CreateNewBook;
+import app.domain.model.Author;
 import app.domain.model.Book;
 import app.domain.model.CatalogCandidate;
 import app.domain.port.input.BookUseCase;
 import app.domain.port.output.BookCatalogPort;
-import lombok.RequiredArgsConstructor;
+import app.domain.port.output.BookRepositoryPort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 /** Puts books from the external catalogue onto the shelves. Already-stocked ones are skipped. */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class CatalogImportService {
 
     /** Stands in when the catalogue names no author at all. */
     private static final String UNKNOWN_AUTHOR = "Unknown author";
 
+    /** Books per batched save. Each chunk commits alone, so a refused row costs at most its own chunk. */
+    private static final int SAVE_CHUNK_SIZE = 100;
+
     private final BookCatalogPort bookCatalogPort;
     private final BookUseCase bookUseCase;
+    private final BookRepositoryPort bookRepositoryPort;
+    private final int chunkSize;
+
+    /**
+     * Shared by every import running at once, so two librarians importing together still keep to one
+     * limit on Open Library: at most this many chunks in flight, started no faster than the bucket allows.
+     */
+    private final Semaphore lookupPermits;
+    private final TokenBucket lookupRate;
+
+    /** Reads how an import spreads its lookups from configuration. */
+    public CatalogImportService(BookCatalogPort bookCatalogPort,
+                                BookUseCase bookUseCase,
+                                BookRepositoryPort bookRepositoryPort,
+                                @Value("${library.catalog.import.chunk-size:50}") int chunkSize,
+                                @Value("${library.catalog.import.concurrency:4}") int concurrency,
+                                @Value("${library.catalog.import.chunks-per-second:2}") double chunksPerSecond,
+                                @Value("${library.catalog.import.burst:4}") int burst) {
+        if (chunkSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("library.catalog.import chunk-size and concurrency must be at least 1");
+        }
+        this.bookCatalogPort = bookCatalogPort;
+        this.bookUseCase = bookUseCase;
+        this.bookRepositoryPort = bookRepositoryPort;
+        this.chunkSize = chunkSize;
+        this.lookupPermits = new Semaphore(concurrency, true);
+        this.lookupRate = new TokenBucket(chunksPerSecond, burst);
+    }
 
     /** What a bulk import did, per ISBN, so the caller can report it without guessing. */
     public record ImportSummary(List<String> imported, List<String> skipped) {
     }
 
-    /** Stocks books from ISBNs, looking each one up. One bad ISBN never fails the rest of the batch. */
+    /**
+     * Stocks books from ISBNs. The lookups run concurrently, a chunk of ISBNs per task; the books are
+     * then written here, one at a time in the order given, so duplicates are caught and reported
+     * exactly as if each ISBN had been imported in turn. One bad ISBN never fails the rest of the batch.
+     */
     public ImportSummary importAll(List<String> isbns) {
         List<String> imported = new ArrayList<>();
         List<String> skipped = new ArrayList<>();
 
-        for (String isbn : isbns == null ? List.<String>of() : isbns) {
-            Optional<CreateNewBook> candidate = bookCatalogPort.findByIsbn(isbn);
-            if (candidate.isEmpty() || candidate.get().getTitle() == null) {
+        List<String> requested = isbns == null ? List.of() : isbns;
+        Map<String, CreateNewBook> found = lookUp(requested);
+        for (String isbn : requested) {
+            // The lookup map takes no null keys; a null ISBN was never looked up, so it is not found.
+            CreateNewBook candidate = isbn == null ? null : found.get(isbn);
+            if (candidate == null || candidate.getTitle() == null) {
                 skipped.add(isbn + " (not found)");
                 continue;
             }
 
-            CreateNewBook book = withAuthors(candidate.get());
+            CreateNewBook book = withAuthors(candidate);
             try {
                 bookUseCase.createNewBook(book);
                 imported.add(book.getTitle());
@@ -53,24 +103,123 @@ public class CatalogImportService {
         return new ImportSummary(imported, skipped);
     }
 
-    /** Stocks search results in bulk with no per-book lookup, which is what makes the seed affordable. */
+    /**
+     * The catalogue's entries for the ISBNs, a chunk per virtual thread; a single chunk is looked up
+     * on the caller's thread, under the same limits. Waiting on Open Library is all these threads do,
+     * so they cost next to nothing; the semaphore and the bucket, not the number of threads, are what
+     * bound the load on it. A chunk that fails is simply not found.
+     */
+    @SuppressWarnings("PMD.DoNotUseThreads") // Lookups only; nothing transactional runs off the caller's thread.
+    private Map<String, CreateNewBook> lookUp(List<String> isbns) {
+        List<String> distinct = isbns.stream().filter(Objects::nonNull).distinct().toList();
+        Map<String, CreateNewBook> found = new ConcurrentHashMap<>();
+        if (distinct.size() <= chunkSize) {
+            try {
+                lookUpChunk(distinct, found);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return found;
+        }
+
+        try (ExecutorService lookups = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int from = 0; from < distinct.size(); from += chunkSize) {
+                List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+                lookups.submit(() -> {
+                    lookUpChunk(chunk, found);
+                    return null;
+                });
+            }
+        }
+        return found;
+    }
+
+    /** One chunk, once a permit and a token are free. */
+    private void lookUpChunk(List<String> chunk, Map<String, CreateNewBook> found) throws InterruptedException {
+        lookupPermits.acquire();
+        try {
+            lookupRate.acquire();
+            found.putAll(bookCatalogPort.findByIsbns(chunk));
+        } catch (RuntimeException e) {
+            log.warn("Catalogue lookup of {} ISBN(s) failed: {}", chunk.size(), e.getMessage());
+        } finally {
+            lookupPermits.release();
+        }
+    }
+
+    /**
+     * Stocks search results in bulk. Titles and ISBNs already stocked are read in one query each, the
+     * batch is checked against them and against itself in memory, and what is left is written in
+     * batched saves. The summary reads as if each candidate had been added in turn.
+     */
     public ImportSummary importCandidates(Collection<CatalogCandidate> candidates) {
         List<String> imported = new ArrayList<>();
         List<String> skipped = new ArrayList<>();
 
-        for (CatalogCandidate candidate : candidates == null ? List.<CatalogCandidate>of() : candidates) {
+        List<CatalogCandidate> batch = candidates == null ? List.of() : List.copyOf(candidates);
+        // Grown as books are accepted, so a later duplicate in the same batch is refused like a stocked one.
+        Set<String> titles = new HashSet<>(bookRepositoryPort.findStockedTitles(batch.stream()
+                .map(CatalogCandidate::title).filter(Objects::nonNull).collect(Collectors.toSet())));
+        Set<String> isbns = new HashSet<>(bookRepositoryPort.findStockedIsbns(batch.stream()
+                .map(CatalogCandidate::isbn).filter(Objects::nonNull).collect(Collectors.toSet())));
+
+        List<Book> books = new ArrayList<>();
+        for (CatalogCandidate candidate : batch) {
             if (candidate.title() == null || candidate.isbn() == null) {
                 skipped.add(candidate.isbn() + " (incomplete)");
-                continue;
+            } else if (titles.contains(candidate.title())) {
+                skipped.add(candidate.title() + " (" + BookService.DUPLICATE_TITLE + ")");
+            } else if (isbns.contains(candidate.isbn())) {
+                skipped.add(candidate.title() + " (" + BookService.DUPLICATE_ISBN + ")");
+            } else {
+                titles.add(candidate.title());
+                isbns.add(candidate.isbn());
+                books.add(toBook(candidate));
             }
+        }
+
+        saveInChunks(books, skipped).forEach(book -> imported.add(book.getTitle()));
+        return new ImportSummary(imported, skipped);
+    }
+
+    /**
+     * Writes the books a chunk per batched save, each chunk its own transaction, and returns the ones
+     * stored. A chunk the database refuses - a title too long for its column, an author another import
+     * has just added - is written again a book at a time, so only the book at fault is skipped.
+     */
+    private List<Book> saveInChunks(List<Book> books, List<String> skipped) {
+        List<Book> saved = new ArrayList<>();
+        for (int from = 0; from < books.size(); from += SAVE_CHUNK_SIZE) {
+            List<Book> chunk = books.subList(from, Math.min(from + SAVE_CHUNK_SIZE, books.size()));
             try {
-                imported.add(addCandidate(candidate).getTitle());
-            } catch (IllegalArgumentException alreadyStocked) {
-                skipped.add(candidate.title() + " (" + alreadyStocked.getMessage() + ")");
+                bookRepositoryPort.saveBooks(chunk);
+                saved.addAll(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Batched save of {} book(s) failed, saving them one at a time: {}",
+                        chunk.size(), e.getMessage());
+                for (Book book : chunk) {
+                    try {
+                        bookRepositoryPort.saveBook(book);
+                        saved.add(book);
+                    } catch (RuntimeException refused) {
+                        log.warn("Could not save '{}': {}", book.getTitle(), refused.getMessage());
+                        skipped.add(book.getTitle() + " (could not be saved)");
+                    }
+                }
             }
         }
+        return saved;
+    }
 
-        return new ImportSummary(imported, skipped);
+    /** A new, available book for a candidate, credited to its authors or to an unknown one. */
+    private static Book toBook(CatalogCandidate candidate) {
+        Book book = new Book(candidate.title(), candidate.isbn(), candidate.publicationYear(), true, LocalDate.now());
+        if (candidate.authors() == null || candidate.authors().isEmpty()) {
+            book.getAuthors().add(new Author(UNKNOWN_AUTHOR, ""));
+        } else {
+            candidate.authors().forEach(name -> book.getAuthors().add(new Author(name, "")));
+        }
+        return book;
     }
 
     /** Stocks the exact edition picked, not a re-lookup, which could return another language. */
@@ -0,0 +1,54 @@
+package app.domain.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A rate limit shared between threads: tokens refill at a steady rate up to a small burst, and each
+ * call to {@link #acquire()} takes one, waiting for it if there is none. The wait happens outside the
+ * lock, so a caller waiting for its token never holds up another taking one that is already there.
+ */
+public final class TokenBucket {
+
+    private final Lock lock = new ReentrantLock();
+    private final double burst;
+    private final double tokensPerNano;
+
+    /** Tokens in hand, fractional between refills. Guarded by {@link #lock}, as is {@link #refilledAt}. */
+    private double tokens;
+    private long refilledAt;
+
+    /** A full bucket of {@code burst} tokens, refilling at {@code perSecond}. */
+    public TokenBucket(double perSecond, int burst) {
+        if (perSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate and a burst of at least one");
+        }
+        this.burst = burst;
+        this.tokensPerNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /** Takes a token, waiting as long as the rate requires. */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long wait;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+                refilledAt = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            } finally {
+                lock.unlock();
+            }
+            // Another caller may take the token first; then this one simply waits again.
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
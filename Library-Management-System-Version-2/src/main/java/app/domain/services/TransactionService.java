@@ -16,12 +16,14 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,6 +41,8 @@ public class TransactionService implements TransactionUseCase {
     private static final int LOAN_WEEKS = 2;
     private static final int EXTENSION_WEEKS = 2;
 
+    private static final String NO_OPEN_LOAN = "This book has no open loan to return.";
+
     private final TransactionRepositoryPort transactionRepositoryPort;
     private final BookRepositoryPort bookRepositoryPort;
     private final CustomerRepositoryPort customerRepositoryPort;
@@ -70,31 +74,15 @@ public class TransactionService implements TransactionUseCase {
         );
 
         transactionRepositoryPort.saveTransaction(transaction);
+        // Outside the borrow rules, as before, but still an open loan the member's counter has to show.
+        customerRepositoryPort.reserveLoanSlot(customer.getCustomerId(), Integer.MAX_VALUE);
         return transaction;
     }
 
     /** Closes the book's open loan, puts it back on the shelf and announces the return. */
     @Override
     public String returnBook(UUID bookId) {
-        List<Transaction> transactions = transactionRepositoryPort
-                .getTransactionsForBook(new Book(bookId, null, null, 0, false, null));
-
-        if (transactions.isEmpty()) {
-            throw new EntityNotFoundException("No transaction found for the given book.");
-        }
-
-        // Pick the loan that is still open. Using the first transaction would re-close an
-        // already-returned loan and credit the return to the wrong customer.
-        Transaction transaction = transactions.stream()
-                .filter(t -> t.getReturnDate() == null)
-                .findFirst()
-                .orElseThrow(() -> new EntityNotFoundException("This book has no open loan to return."));
-
-        transaction.setReturnDate(LocalDate.now());
-        transaction.getBook().setAvailable(true);
-
-        transactionRepositoryPort.updateTransaction(transaction);
-        bookRepositoryPort.updateBook(transaction.getBook().getBookId(), transaction.getBook());
+        Transaction transaction = closeOpenLoan(bookId, LocalDate.now());
 
         notificationPort.notifyBookReturned(transaction.getCustomer(), transaction.getBook());
         loanEventPort.bookReturned(transaction.getCustomer(), transaction.getBook());
@@ -102,18 +90,43 @@ public class TransactionService implements TransactionUseCase {
         return transaction.getTransactionId().toString();
     }
 
+    /**
+     * Closes the one open loan on a book and shelves the book. Only that loan is read, never the book's
+     * whole history, and the two writes are single UPDATEs rather than read-modify-write round trips.
+     */
+    private Transaction closeOpenLoan(UUID bookId, LocalDate returnDate) {
+        Transaction transaction = transactionRepositoryPort.findActiveLoanForBook(bookId)
+                .orElseThrow(() -> new EntityNotFoundException(NO_OPEN_LOAN));
+
+        // Conditional on the loan still being open, so a second return racing this one closes nothing.
+        if (!transactionRepositoryPort.closeLoan(transaction.getTransactionId(), returnDate)) {
+            throw new EntityNotFoundException(NO_OPEN_LOAN);
+        }
+        bookRepositoryPort.releaseBook(bookId);
+        customerRepositoryPort.releaseLoanSlot(transaction.getCustomerId());
+
+        transaction.setReturnDate(returnDate);
+        if (transaction.getBook() != null) {
+            transaction.getBook().setAvailable(true);
+        }
+        return transaction;
+    }
+
     /** Lends a book, refusing when it is out, the member lacks privileges, or the limit is reached. */
     @Override
     public Transaction borrowBook(UUID customerId, UUID bookId) {
         // Named exceptions rather than a bare RuntimeException: the web layer has to tell a
         // missing record (404) and a broken library rule (400) apart from an actual failure (500).
+        // The claim is the availability check: one conditional UPDATE, so of two borrowers racing for the
+        // same copy exactly one wins. A refusal further down rolls the claim back with everything else.
+        if (!bookRepositoryPort.claimBook(bookId)) {
+            throw bookRepositoryPort.searchBookById(bookId).isPresent()
+                    ? new BorrowNotAllowedException("Book is not available for borrowing.")
+                    : new BookNotFoundException("Book not found.");
+        }
         Book book = bookRepositoryPort.searchBookById(bookId)
                 .orElseThrow(() -> new BookNotFoundException("Book not found."));
 
-        if (!book.isAvailable()) {
-            throw new BorrowNotAllowedException("Book is not available for borrowing.");
-        }
-
         Customer customer = customerRepositoryPort.getCustomer(customerId)
                 .orElseThrow(() -> new EntityNotFoundException("Customer not found."));
 
@@ -121,8 +134,11 @@ public class TransactionService implements TransactionUseCase {
             throw new BorrowNotAllowedException("Customer does not have borrowing privileges.");
         }
 
-        long onLoan = transactionRepositoryPort.countActiveLoans(customerId);
-        if (onLoan >= MAX_ACTIVE_LOANS) {
+        // A counter on the member row rather than a count of their history, taken in the same conditional
+        // way as the book: two borrows racing for the member's last slot cannot both get it. The loans are
+        // only counted on a refusal, where a member given loans past the limit by date may hold more.
+        if (!customerRepositoryPort.reserveLoanSlot(customerId, MAX_ACTIVE_LOANS)) {
+            long onLoan = transactionRepositoryPort.countActiveLoans(customerId);
             throw new BorrowNotAllowedException(
                     "You already have " + onLoan + " books out. The limit is " + MAX_ACTIVE_LOANS
                             + " at a time - return one before borrowing another.");
@@ -136,9 +152,8 @@ public class TransactionService implements TransactionUseCase {
         transaction.setBook(book);
 
         transactionRepositoryPort.saveTransaction(transaction);
-
+        // Already stored by the claim; this only brings the returned copy in line.
         book.setAvailable(false);
-        bookRepositoryPort.updateBook(bookId, book);
 
         notificationPort.notifyBookBorrowed(customer, book, transaction.getDueDate());
         loanEventPort.bookBorrowed(customer, book);
@@ -184,6 +199,25 @@ public class TransactionService implements TransactionUseCase {
         return transactionRepositoryPort.findActiveLoans(pageable);
     }
 
+    /** One member's loans after a keyset position, without counting them. */
+    @Override
+    public Window<Transaction> scrollBorrowingHistory(UUID customerId, KeysetScrollPosition after, Sort sort,
+                                                      int size) {
+        return transactionRepositoryPort.scrollBorrowingHistory(customerId, after, sort, size);
+    }
+
+    /** Every loan after a keyset position, without counting them. */
+    @Override
+    public Window<Transaction> scrollAllLoans(KeysetScrollPosition after, Sort sort, int size) {
+        return transactionRepositoryPort.scrollAllTransactions(after, sort, size);
+    }
+
+    /** The outstanding loans after a keyset position, without counting them. */
+    @Override
+    public Window<Transaction> scrollActiveLoans(KeysetScrollPosition after, Sort sort, int size) {
+        return transactionRepositoryPort.scrollActiveLoans(after, sort, size);
+    }
+
     /** The loan with this id, or empty. */
     @Override
     public Optional<Transaction> findById(UUID transactionId) {
@@ -199,13 +233,14 @@ public class TransactionService implements TransactionUseCase {
     /** Records a borrow dated in the past, for seeding and imports. Skips the loan limit. */
     @Override
     public void borrowBookWithDates(UUID customerId, UUID bookId, LocalDate borrowDate) {
+        if (!bookRepositoryPort.claimBook(bookId)) {
+            throw bookRepositoryPort.searchBookById(bookId).isPresent()
+                    ? new IllegalArgumentException("Book is already borrowed")
+                    : new IllegalStateException("Book not found");
+        }
         Book book = bookRepositoryPort.searchBookById(bookId)
                 .orElseThrow(() -> new IllegalStateException("Book not found"));
 
-        if (!book.isAvailable()) {
-            throw new IllegalArgumentException("Book is already borrowed");
-        }
-
         Customer customer = customerRepositoryPort.getCustomer(customerId)
                 .orElseThrow(() -> new IllegalStateException("Customer not found"));
 
@@ -217,28 +252,15 @@ public class TransactionService implements TransactionUseCase {
         transaction.setBook(book);
 
         book.setAvailable(false);
-        bookRepositoryPort.updateBook(bookId, book);
         transactionRepositoryPort.saveTransaction(transaction);
+        // Counted like any loan, but past the limit: seeded history is what it is.
+        customerRepositoryPort.reserveLoanSlot(customerId, Integer.MAX_VALUE);
     }
 
-    /** Closes a book's open loans on a past date, for seeding and imports. */
+    /** Closes a book's open loan on a past date, for seeding and imports. */
     @Override
     public void returnBookWithDates(UUID bookId, LocalDate returnDate) {
-        List<Transaction> transactions = transactionRepositoryPort
-                .getTransactionsForBook(new Book(bookId, null, null, 0, false, null));
-
-        if (transactions.isEmpty()) {
-            throw new EntityNotFoundException("No transaction found for the given book.");
-        }
-
-        transactions.forEach(transaction -> {
-            if (transaction.getReturnDate() == null) {
-                transaction.setReturnDate(returnDate);
-                transaction.getBook().setAvailable(true);
-                transactionRepositoryPort.updateTransaction(transaction);
-                bookRepositoryPort.updateBook(transaction.getBook().getBookId(), transaction.getBook());
-                log.info("Returned book for transaction: {}", transaction.getTransactionId());
-            }
-        });
+        Transaction transaction = closeOpenLoan(bookId, returnDate);
+        log.info("Returned book for transaction: {}", transaction.getTransactionId());
     }
 }
@@ -1,21 +1,136 @@
 package app.infrastructure.config.cache;
 
+import app.domain.model.CatalogPage;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.servlet.Filter;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.actuate.metrics.cache.CaffeineCacheMeterBinderProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.filter.ShallowEtagHeaderFilter;
 
-/** Enables caching and names the caches. */
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Enables caching and names the caches. Every cache is a bounded Caffeine cache with its own limits
+ * from {@link CacheSettings}, and records hits, misses and evictions, which Actuator publishes as the
+ * {@code cache.*} metrics. Declaring the manager here also keeps Boot from picking Redis because its
+ * starter is on the classpath.
+ */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheSettings.class)
 @Slf4j
 public class CacheConfig implements CachingConfigurer {
 
+    /** For a cache with no spec of its own: bounded all the same, and forgotten within the hour. */
+    static final CacheSettings.Spec DEFAULT_SPEC = new CacheSettings.Spec(1_000, Duration.ofHours(1), null, null);
+
+    /**
+     * One Caffeine cache per configured spec, built up front so the metrics see them. A cache with a
+     * refresh interval gets a loader that asks its {@link CacheReloader}; the reloaders are looked up
+     * only when a refresh happens, since they are the very beans this manager caches for. The caches
+     * {@code library.cache.persistent.caches} names also keep a copy on disk when the tier is enabled.
+     */
+    @Bean
+    public CacheManager cacheManager(CacheSettings settings, ObjectProvider<CacheReloader> reloaders) {
+        CaffeineCacheManager manager = new PersistentCaffeineCacheManager(settings, Clock.systemUTC());
+        CacheSettings.Persistent persistent = settings.persistent();
+        // A cache with no spec may still be one the tier keeps, so with the tier on they all expire as those do.
+        manager.setCaffeine(builder("default", DEFAULT_SPEC, persistent.enabled()));
+        settings.specs().forEach((name, spec) ->
+                manager.registerCustomCache(name, build(name, spec, persistent.keeps(name), reloaders)));
+        return manager;
+    }
+
+    /** The native cache for one spec: a loading cache only when it refreshes. */
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(
+            String name, CacheSettings.Spec spec, boolean onDisk, ObjectProvider<CacheReloader> reloaders) {
+        Caffeine<Object, Object> builder = builder(name, spec, onDisk);
+        if (spec.refreshAfterWrite() == null) {
+            return builder.build();
+        }
+        return builder.refreshAfterWrite(spec.refreshAfterWrite()).build(new CacheLoader<>() {
+            /** Nothing: a miss is for the cached method to compute, not the loader. */
+            @Override
+            public Object load(Object key) {
+                return null;
+            }
+
+            /** The reloader's fresh value, or the old one when there is no reloader or no answer. */
+            @Override
+            public Object reload(Object key, Object oldValue) {
+                return reloaders.orderedStream()
+                        .filter(reloader -> name.equals(reloader.cacheName()))
+                        .findFirst()
+                        .flatMap(reloader -> reloader.reload(key))
+                        .orElse(oldValue);
+            }
+        });
+    }
+
+    /**
+     * A builder bounded by weight and the spec's expiries, recording statistics. A cache kept on disk
+     * expires by a {@link WriteDeadlineExpiry} instead, so what it reads back keeps its write time.
+     */
+    static Caffeine<Object, Object> builder(String name, CacheSettings.Spec spec, boolean onDisk) {
+        if (spec.maximumWeight() <= 0) {
+            // Zero is what an omitted maximum-weight binds to, and it would evict every entry on sight.
+            throw new IllegalArgumentException("library.cache.specs[" + name + "].maximum-weight must be positive");
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumWeight(spec.maximumWeight())
+                .weigher(CacheConfig::weigh)
+                .recordStats();
+        if (onDisk && spec.expireAfterWrite() != null) {
+            WriteDeadlineExpiry expiry = new WriteDeadlineExpiry(spec.expireAfterWrite(), spec.expireAfterAccess());
+            return builder.expireAfter(expiry).removalListener((key, value, cause) -> expiry.removed(key, value));
+        }
+        if (spec.expireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (spec.expireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.expireAfterAccess());
+        }
+        return builder;
+    }
+
+    /** One per entry, plus one per hit for a search page, so a page of a hundred is not one lookup's worth. */
+    static int weigh(Object key, Object value) {
+        return value instanceof CatalogPage page ? 1 + page.results().size() : 1;
+    }
+
+    /**
+     * Publishes a disk-backed cache's {@code cache.*} metrics from the Caffeine cache in front of its file,
+     * which Boot would otherwise not recognise and leave unmetered.
+     */
+    @Bean
+    public CacheMeterBinderProvider<PersistentCache> persistentCacheMeterBinderProvider() {
+        CaffeineCacheMeterBinderProvider caffeine = new CaffeineCacheMeterBinderProvider();
+        return new CacheMeterBinderProvider<>() {
+            @Override
+            public MeterBinder getMeterBinder(PersistentCache cache, Iterable<Tag> tags) {
+                return cache.delegate() instanceof CaffeineCache caffeineCache
+                        ? caffeine.getMeterBinder(caffeineCache, tags)
+                        : null;
+            }
+        };
+    }
+
     /** Adds ETags to responses, so an unchanged body comes back as a 304. */
     @Bean
     public Filter shallowEtagFilter() {
@@ -0,0 +1,343 @@
+package app.infrastructure.config.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One cache's entries on disk, as an append-only log: every put and every eviction is a record at the
+ * end of the file, and the latest record for a key is the one that counts. Reading it back maps the
+ * file into memory and replays it once.
+ *
+ * <p>Records are written without an fsync: losing the last few to a crash costs a few catalogue calls,
+ * nothing more. A record cut short by one is recognised on the next load and dropped. Entries older
+ * than the time to live are skipped on load and left out whenever the log is compacted, which happens
+ * on load and whenever superseded records outnumber live ones.
+ *
+ * <p>A put also lets go of the oldest entries once they pass the time to live, or once the entries
+ * together weigh more than the cache's maximum weight, so a cache keyed on whatever readers type does
+ * not grow its file without end. Those entries count as superseded from then on. Oldest first is not
+ * the order Caffeine evicts in, but it bounds the file to what memory could hold, which is the point.
+ *
+ * <p>Values are stored as JSON with their class name, and only classes of this application, or plain
+ * strings, are read back: a file that says otherwise is not trusted to name what gets instantiated.
+ */
+@Slf4j
+final class CacheFile implements AutoCloseable {
+
+    /** "LCF1": a file without it, or of another version, is started afresh rather than misread. */
+    private static final int MAGIC = 0x4C434631;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+
+    /** Compaction waits for at least this much garbage, so a small cache is not rewritten on every put. */
+    private static final int COMPACT_SLACK = 1_000;
+
+    private final Path path;
+    private final Duration timeToLive;
+    private final long maximumWeight;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final Lock lock = new ReentrantLock();
+    /** The fields below are guarded by {@link #lock}. */
+    private FileChannel channel;
+    /**
+     * Keys whose latest record is a put and which are still kept, oldest write first; compaction
+     * measures the log's garbage against them.
+     */
+    private final Map<String, Live> live = new LinkedHashMap<>();
+    private long liveWeight;
+    /** Keys let go of whose puts the log still holds until it is next rewritten; an eviction still has to say so. */
+    private final Set<String> letGo = new HashSet<>();
+    private long records;
+
+    /**
+     * A log at this path whose entries last this long, null keeping them until evicted, and weigh no
+     * more than this together, weighed as {@link CacheConfig#weigh} weighs them in memory.
+     */
+    CacheFile(Path path, Duration timeToLive, long maximumWeight, ObjectMapper objectMapper, Clock clock) {
+        this.path = path;
+        this.timeToLive = timeToLive;
+        this.maximumWeight = maximumWeight;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /** One replayed entry: the value's class and JSON, or no class for a cached null. */
+    private record Entry(long writtenAt, String type, byte[] json) { }
+
+    /** When a kept key was written, and what its value weighs. */
+    private record Live(long writtenAt, int weight) { }
+
+    /** A decoded entry, and how long its write has left to run; null when entries last until evicted. */
+    record Stored(Object value, Duration timeLeft) { }
+
+    /**
+     * The live entries, oldest write first, decoded, less the oldest of them if together they weigh more
+     * than the maximum. Compacts the log to exactly these and opens it for appending; a missing or
+     * foreign file is replaced by an empty log.
+     */
+    Map<String, Stored> load() throws IOException {
+        lock.lock();
+        try {
+            Map<String, Entry> entries = replay();
+            long now = clock.millis();
+            Map<String, Stored> values = new LinkedHashMap<>();
+            live.clear();
+            liveWeight = 0;
+            entries.forEach((key, entry) -> {
+                try {
+                    Object value = decode(entry);
+                    values.put(key, new Stored(value, timeToLive == null
+                            ? null
+                            : timeToLive.minusMillis(now - entry.writtenAt())));
+                    keep(key, entry.writtenAt(), CacheConfig.weigh(key, value));
+                } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+                    // A class renamed or reshaped since the entry was written: one lookup more, nothing worse.
+                    log.debug("Cache file {}: skipping unreadable entry {}: {}", path, key, e.getMessage());
+                }
+            });
+            letGoOfOldest(Long.MIN_VALUE);
+            values.keySet().retainAll(live.keySet());
+            entries.keySet().retainAll(live.keySet());
+            rewrite(entries);
+            return values;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Appends a put of this value, which may be null, then compacts if the log has grown stale. */
+    void put(String key, Object value) throws IOException {
+        byte[] type = value == null ? new byte[0] : value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] json = value == null ? new byte[0] : objectMapper.writeValueAsBytes(value);
+        long now = clock.millis();
+        lock.lock();
+        try {
+            append(record(OP_PUT, now, key, type, json));
+            forget(key);
+            letGo.remove(key);
+            keep(key, now, CacheConfig.weigh(key, value));
+            letGoOfOldest(timeToLive == null ? Long.MIN_VALUE : now - timeToLive.toMillis());
+            compactIfStale();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Appends an eviction, for a key the log still holds a put of; otherwise there is nothing to write. */
+    void remove(String key) throws IOException {
+        lock.lock();
+        try {
+            boolean kept = forget(key);
+            boolean stillLogged = letGo.remove(key);
+            if (kept || stillLogged) {
+                append(record(OP_REMOVE, clock.millis(), key, null, null));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Empties the log. */
+    void clear() throws IOException {
+        lock.lock();
+        try {
+            live.clear();
+            liveWeight = 0;
+            rewrite(Map.of());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Entries the log holds that are not superseded, evicted or let go of. */
+    int size() {
+        lock.lock();
+        try {
+            return live.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Closes the file; later writes fail. */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The latest record per key, unexpired, from the mapped file. Stops at a torn record. */
+    private Map<String, Entry> replay() throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        long cutoff = timeToLive == null ? Long.MIN_VALUE : clock.millis() - timeToLive.toMillis();
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+                log.info("Cache file {} is not one this version wrote; starting it afresh", path);
+                return entries;
+            }
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    log.info("Cache file {} ends in a torn record; dropping it", path);
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                byte op = body.get();
+                long writtenAt = body.getLong();
+                String key = new String(bytes(body, body.getShort()), StandardCharsets.UTF_8);
+                // Removed and re-added keys move to the end, so the order stays that of the writes.
+                entries.remove(key);
+                if (op == OP_PUT && writtenAt > cutoff) {
+                    String type = new String(bytes(body, body.getShort()), StandardCharsets.UTF_8);
+                    entries.put(key, new Entry(writtenAt, type, bytes(body, body.getInt())));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /** Replaces the log with one put per entry, through a temporary file, and reopens it for appending. */
+    private void rewrite(Map<String, Entry> entries) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, ByteBuffer.allocate(Integer.BYTES).putInt(MAGIC).flip());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                Entry value = entry.getValue();
+                writeFully(out, record(OP_PUT, value.writtenAt(), entry.getKey(),
+                        value.type().getBytes(StandardCharsets.UTF_8), value.json()));
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        letGo.clear();
+        records = entries.size();
+    }
+
+    /**
+     * Rewrites the log from itself, keeping only the entries still kept, once superseded, expired and
+     * let-go records outnumber the live ones.
+     */
+    private void compactIfStale() throws IOException {
+        if (records > 2L * live.size() + COMPACT_SLACK) {
+            Map<String, Entry> entries = replay();
+            entries.keySet().retainAll(live.keySet());
+            rewrite(entries);
+        }
+    }
+
+    /** Records a key as kept, newest write last. */
+    private void keep(String key, long writtenAt, int weight) {
+        live.put(key, new Live(writtenAt, weight));
+        liveWeight += weight;
+    }
+
+    /** Stops keeping a key; true if it was kept. */
+    private boolean forget(String key) {
+        Live forgotten = live.remove(key);
+        if (forgotten == null) {
+            return false;
+        }
+        liveWeight -= forgotten.weight();
+        return true;
+    }
+
+    /** Lets go of the oldest writes while they are no later than the cutoff or the kept ones weigh too much. */
+    private void letGoOfOldest(long cutoff) {
+        Iterator<Map.Entry<String, Live>> oldest = live.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Live> entry = oldest.next();
+            if (entry.getValue().writtenAt() > cutoff && liveWeight <= maximumWeight) {
+                return;
+            }
+            oldest.remove();
+            liveWeight -= entry.getValue().weight();
+            letGo.add(entry.getKey());
+        }
+    }
+
+    private void append(ByteBuffer record) throws IOException {
+        writeFully(channel, record);
+        records++;
+    }
+
+    /** One record: length, operation, write time, key and, for a put, the value's class and JSON. */
+    private static ByteBuffer record(byte op, long writtenAt, String key, byte[] type, byte[] json) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Cache key too long to store: " + keyBytes.length + " bytes");
+        }
+        int length = 1 + Long.BYTES + Short.BYTES + keyBytes.length
+                + (op == OP_PUT ? Short.BYTES + type.length + Integer.BYTES + json.length : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + length)
+                .putInt(length)
+                .put(op)
+                .putLong(writtenAt)
+                .putShort((short) keyBytes.length)
+                .put(keyBytes);
+        if (op == OP_PUT) {
+            buffer.putShort((short) type.length).put(type).putInt(json.length).put(json);
+        }
+        return buffer.flip();
+    }
+
+    /** The value an entry holds, if its class is one this application may read back. */
+    private Object decode(Entry entry) throws IOException, ClassNotFoundException {
+        if (entry.type().isEmpty()) {
+            return null;
+        }
+        if (!entry.type().startsWith("app.") && !String.class.getName().equals(entry.type())) {
+            throw new IllegalArgumentException("not a cacheable type: " + entry.type());
+        }
+        return objectMapper.readValue(entry.json(), Class.forName(entry.type()));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package app.infrastructure.config.cache;
+
+import java.util.Optional;
+
+/**
+ * Recomputes entries of one cache, so {@code refresh-after-write} can renew a hot entry in the
+ * background while readers keep getting the old value, instead of all of them waiting on the miss.
+ */
+public interface CacheReloader {
+
+    /** The cache whose entries this recomputes. */
+    String cacheName();
+
+    /**
+     * The fresh value for a key, read past the cache. Empty keeps the current entry until it expires,
+     * so a catalogue that is briefly down does not empty the cache.
+     */
+    Optional<Object> reload(Object key);
+}
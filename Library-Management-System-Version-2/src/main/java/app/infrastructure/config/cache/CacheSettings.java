@@ -0,0 +1,57 @@
+package app.infrastructure.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-cache bounds from {@code library.cache.specs[name].*}, and which caches also keep a copy on disk
+ * from {@code library.cache.persistent.*}. A cache named nowhere here still works, on
+ * {@link CacheConfig#DEFAULT_SPEC}, but is created on first use and so misses the metrics.
+ */
+@ConfigurationProperties("library.cache")
+public record CacheSettings(Map<String, Spec> specs, Persistent persistent) {
+
+    /** Treats an absent block as no named caches rather than a null map, and as no disk copy. */
+    public CacheSettings {
+        specs = specs == null ? Map.of() : Map.copyOf(specs);
+        persistent = persistent == null ? new Persistent(false, null, null) : persistent;
+    }
+
+    /**
+     * How one cache is bounded. Weight is what {@link CacheConfig} weighs an entry at - one per entry,
+     * one per hit for a search page - so a big page counts for what it holds. Any duration may be
+     * left out; refresh only applies where a {@link CacheReloader} serves the cache.
+     */
+    public record Spec(long maximumWeight, Duration expireAfterWrite, Duration expireAfterAccess,
+                       Duration refreshAfterWrite) {
+
+        /**
+         * How long a copy on disk is worth reading back: the write expiry, else the access expiry, since
+         * the file cannot tell when an entry was last read. Null when the cache never expires entries.
+         */
+        Duration timeToLive() {
+            return expireAfterWrite != null ? expireAfterWrite : expireAfterAccess;
+        }
+    }
+
+    /**
+     * The disk tier: off unless enabled, and then only for the caches named, each an append-only file
+     * in the directory. A relative directory is taken from where the application was started.
+     */
+    public record Persistent(boolean enabled, String directory, Set<String> caches) {
+
+        /** Files go under {@code data/cache} unless told otherwise; no caches are named by default. */
+        public Persistent {
+            directory = directory == null || directory.isBlank() ? "data/cache" : directory;
+            caches = caches == null ? Set.of() : Set.copyOf(caches);
+        }
+
+        /** Whether the named cache keeps a copy on disk. */
+        boolean keeps(String name) {
+            return enabled && caches.contains(name);
+        }
+    }
+}
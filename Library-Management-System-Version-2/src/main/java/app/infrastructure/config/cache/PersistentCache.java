@@ -0,0 +1,215 @@
+package app.infrastructure.config.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory cache with a {@link CacheFile} behind it, so its entries survive a restart. Reads are
+ * the in-memory cache's alone; every write goes to both. The file is read back on the first use of
+ * the cache after start-up, not during it, and what it holds is put into the in-memory cache then.
+ *
+ * <p>The file is a second copy, never a precondition: when it cannot be read or written, the cache
+ * logs it once and carries on in memory only. Only string keys are kept on disk, which all of this
+ * application's cached methods use. An entry read back expires when it would have without the
+ * restart. A background refresh renews the copy in memory only; the file keeps the older value,
+ * which its time to live still bounds, until the next put.
+ */
+@Slf4j
+public final class PersistentCache implements Cache, AutoCloseable {
+
+    private final Cache memory;
+    private final CacheFile file;
+
+    private final AtomicBoolean loaded = new AtomicBoolean();
+    private final Lock loadLock = new ReentrantLock();
+    /** Cleared for good on the first failure, after which the file is left alone. */
+    private final AtomicBoolean usable = new AtomicBoolean(true);
+
+    /** Puts the file behind the given in-memory cache. */
+    PersistentCache(Cache memory, CacheFile file) {
+        this.memory = memory;
+        this.file = file;
+    }
+
+    /** The in-memory cache, which the metrics and the background refresh work on. */
+    public Cache delegate() {
+        return memory;
+    }
+
+    /** The in-memory cache's name, which is the configured one. */
+    @Override
+    public String getName() {
+        return memory.getName();
+    }
+
+    /** The Caffeine cache in memory. */
+    @Override
+    public Object getNativeCache() {
+        return memory.getNativeCache();
+    }
+
+    /** From memory, once the file has been read into it. */
+    @Override
+    public ValueWrapper get(Object key) {
+        ensureLoaded();
+        return memory.get(key);
+    }
+
+    /** As above, typed. */
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        ensureLoaded();
+        return memory.get(key, type);
+    }
+
+    /** Computed values are written to the file as they are to memory. */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ensureLoaded();
+        return memory.get(key, () -> {
+            T value = valueLoader.call();
+            store(key, value);
+            return value;
+        });
+    }
+
+    /** Into memory and onto the end of the file. */
+    @Override
+    public void put(Object key, Object value) {
+        ensureLoaded();
+        memory.put(key, value);
+        store(key, value);
+    }
+
+    /** Into both, unless memory already holds the key. */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ensureLoaded();
+        ValueWrapper existing = memory.putIfAbsent(key, value);
+        if (existing == null) {
+            store(key, value);
+        }
+        return existing;
+    }
+
+    /** Out of memory, and an eviction record in the file. */
+    @Override
+    public void evict(Object key) {
+        ensureLoaded();
+        memory.evict(key);
+        erase(key);
+    }
+
+    /** Also erases a key memory has already let go of, since the file may still hold it. */
+    @Override
+    public boolean evictIfPresent(Object key) {
+        ensureLoaded();
+        boolean present = memory.evictIfPresent(key);
+        erase(key);
+        return present;
+    }
+
+    /** Empties memory and the file. */
+    @Override
+    public void clear() {
+        ensureLoaded();
+        memory.clear();
+        whileUsable(file::clear);
+    }
+
+    /** As {@link #clear}, reporting whether memory held anything. */
+    @Override
+    public boolean invalidate() {
+        ensureLoaded();
+        boolean hadEntries = memory.invalidate();
+        whileUsable(file::clear);
+        return hadEntries;
+    }
+
+    /** Closes the file. */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /** Reads the file into memory once, on whichever call comes first. */
+    private void ensureLoaded() {
+        if (loaded.get()) {
+            return;
+        }
+        loadLock.lock();
+        try {
+            if (loaded.get()) {
+                return;
+            }
+            whileUsable(() -> {
+                Map<String, CacheFile.Stored> entries = file.load();
+                entries.forEach(this::restore);
+                log.info("Cache '{}' read {} entries back from disk", getName(), entries.size());
+            });
+            loaded.set(true);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Puts an entry read back from the file, with only the time its write has left when the cache
+     * expires variably; a plain put would give it a whole time to live again.
+     */
+    private void restore(String key, CacheFile.Stored stored) {
+        if (stored.timeLeft() != null && memory instanceof CaffeineCache caffeine && caffeine.isAllowNullValues()) {
+            Optional<Policy.VarExpiration<Object, Object>> expiry = caffeine.getNativeCache().policy().expireVariably();
+            if (expiry.isPresent()) {
+                Object value = stored.value() == null ? NullValue.INSTANCE : stored.value();
+                expiry.get().put(key, value, stored.timeLeft());
+                return;
+            }
+        }
+        memory.put(key, stored.value());
+    }
+
+    private void store(Object key, Object value) {
+        if (key instanceof String text) {
+            whileUsable(() -> file.put(text, value));
+        }
+    }
+
+    private void erase(Object key) {
+        if (key instanceof String text) {
+            whileUsable(() -> file.remove(text));
+        }
+    }
+
+    /** One file operation, unless an earlier one failed; a failure here turns the file off. */
+    private void whileUsable(FileOperation operation) {
+        if (!usable.get()) {
+            return;
+        }
+        try {
+            operation.run();
+        } catch (IOException | RuntimeException e) {
+            if (usable.getAndSet(false)) {
+                log.warn("Cache '{}' can no longer use its file, carrying on in memory: {}", getName(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    /** A step against the file. */
+    @FunctionalInterface
+    private interface FileOperation {
+        void run() throws IOException;
+    }
+}
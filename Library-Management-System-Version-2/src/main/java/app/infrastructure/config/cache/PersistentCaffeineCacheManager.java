@@ -0,0 +1,64 @@
+package app.infrastructure.config.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The Caffeine manager, with the caches {@link CacheSettings.Persistent} names put in front of a file
+ * each. The others, and every cache when the tier is off, are plain Caffeine caches as before.
+ */
+@Slf4j
+class PersistentCaffeineCacheManager extends CaffeineCacheManager implements AutoCloseable {
+
+    private final CacheSettings settings;
+    private final Path directory;
+    /** Its own mapper, so the file format does not shift with the web layer's JSON settings. */
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final Clock clock;
+    private final List<PersistentCache> opened = new CopyOnWriteArrayList<>();
+
+    /** A manager for these settings, dating what it writes by the given clock. */
+    PersistentCaffeineCacheManager(CacheSettings settings, Clock clock) {
+        this.settings = settings;
+        this.directory = Path.of(settings.persistent().directory());
+        this.clock = clock;
+    }
+
+    /** Wraps a cache the settings name in a {@link PersistentCache}; any other is left as Caffeine made it. */
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        Cache adapted = super.adaptCaffeineCache(name, cache);
+        if (!settings.persistent().keeps(name)) {
+            return adapted;
+        }
+        CacheSettings.Spec spec = settings.specs().getOrDefault(name, CacheConfig.DEFAULT_SPEC);
+        PersistentCache persistentCache = new PersistentCache(adapted,
+                new CacheFile(directory.resolve(name + ".cache"), spec.timeToLive(), spec.maximumWeight(),
+                        objectMapper, clock));
+        opened.add(persistentCache);
+        return persistentCache;
+    }
+
+    /** Closes every cache file, on shutdown. */
+    @Override
+    @SuppressWarnings("PMD.CloseResource") // Each is closed here; the caches themselves live as long as this manager.
+    public void close() {
+        for (PersistentCache cache : opened) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Cache file for '{}' did not close cleanly: {}", cache.getName(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package app.infrastructure.config.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Expire-after-write, and expire-after-access within it when the spec has both, as one variable expiry.
+ * A cache kept on disk needs it: Caffeine's fixed expiries count from when an entry entered memory,
+ * so an entry read back from the file would start a whole new time to live, whereas a variable one
+ * can be put with only what its write left it.
+ *
+ * <p>An entry that also expires after access cannot outlive its write, so each one's write deadline is
+ * kept until it is removed. An entry read back from disk is put with its time left and nothing
+ * recorded; the first read takes that time left as its deadline.
+ */
+final class WriteDeadlineExpiry implements Expiry<Object, Object> {
+
+    private final long writeNanos;
+    /** Zero when the spec has no access expiry. */
+    private final long accessNanos;
+    /** By key, for caches with an access expiry only. */
+    private final Map<Object, Deadline> deadlines = new ConcurrentHashMap<>();
+
+    /** When the write of this value stops it being served, on the cache's ticker. */
+    private record Deadline(Object value, long at) { }
+
+    /** An expiry for entries that last this long after a write and, if not null, this long after a read. */
+    WriteDeadlineExpiry(Duration expireAfterWrite, Duration expireAfterAccess) {
+        this.writeNanos = expireAfterWrite.toNanos();
+        this.accessNanos = expireAfterAccess == null ? 0 : expireAfterAccess.toNanos();
+    }
+
+    /** A full write's worth, or less when it goes unread. */
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return written(key, value, currentTime);
+    }
+
+    /** A replaced or refreshed value counts as a new write. */
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return written(key, value, currentTime);
+    }
+
+    /** Unchanged when only writes count; otherwise another access window, cut off at the write deadline. */
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals") // The entry's own value, not an equal one written later.
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        if (accessNanos == 0) {
+            return currentDuration;
+        }
+        Deadline deadline = deadlines.get(key);
+        if (deadline == null || deadline.value() != value) {
+            deadline = new Deadline(value, currentTime + currentDuration);
+            deadlines.put(key, deadline);
+        }
+        return Math.max(0, Math.min(accessNanos, deadline.at() - currentTime));
+    }
+
+    /** Forgets a removed entry's deadline, unless the key already holds a newer value. */
+    @SuppressWarnings("PMD.CompareObjectsWithEquals") // As above.
+    void removed(Object key, Object value) {
+        deadlines.computeIfPresent(key, (same, deadline) -> deadline.value() == value ? null : deadline);
+    }
+
+    private long written(Object key, Object value, long now) {
+        if (accessNanos == 0) {
+            return writeNanos;
+        }
+        deadlines.put(key, new Deadline(value, now + writeNanos));
+        return Math.min(accessNanos, writeNanos);
+    }
+}
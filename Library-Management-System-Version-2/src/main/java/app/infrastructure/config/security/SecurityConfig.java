@@ -157,6 +157,7 @@ public class SecurityConfig {
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
                         .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole(ADMIN)
                         .anyRequest().authenticated()
                 )
                 // Username/password form, rendered by templates/login.html and posted back to /login.
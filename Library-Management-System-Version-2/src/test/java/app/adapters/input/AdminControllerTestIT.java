@@ -15,6 +15,7 @@ import app.domain.port.input.BookUseCase;
 import app.domain.port.input.CustomerUseCase;
 import app.domain.port.input.TransactionUseCase;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
@@ -25,6 +26,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -36,6 +38,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -217,6 +220,41 @@ class AdminControllerTestIT {
                 .andExpect(jsonPath("$.totalItems").value(Matchers.greaterThan(0)));
     }
 
+    /** Outstanding loans can be walked by cursor, one window after another, until next runs out. */
+    @Test
+    void loans_byCursor() throws Exception {
+        Book first = existingBook();
+        Book second = bookUseCase.createNewBook(new CreateNewBook("Second Book", "0987654321", 2022,
+                List.of(new CreateNewAuthor("Test Author", "test"))));
+        Customer customer = customerUseCase.createNewCustomer(
+                new CreateNewCustomer("Borrower", "borrower@example.com", true));
+        transactionUseCase.borrowBook(customer.getCustomerId(), first.getBookId());
+        transactionUseCase.borrowBook(customer.getCustomerId(), second.getBookId());
+
+        MvcResult window = mockMvc.perform(get("/admin/loans").param("size", "1").param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.totalItems").doesNotExist())
+                .andExpect(jsonPath("$.next").isString())
+                .andReturn();
+        String next = JsonPath.read(window.getResponse().getContentAsString(), "$.next");
+
+        mockMvc.perform(get("/admin/loans").param("size", "1").param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()));
+    }
+
+    /** With nothing out, the first window is empty, and answered like any other. */
+    @Test
+    void loans_byCursorWithNothingOut() throws Exception {
+        mockMvc.perform(get("/admin/loans").param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isEmpty())
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()))
+                .andExpect(header().doesNotExist("next"));
+    }
+
     /** The catalogue must start with every copy on the shelf: nothing is out until someone borrows. */
     @Test
     void seededCatalogueStartsWithNoOutstandingLoans() throws Exception {
@@ -16,6 +16,7 @@ import app.domain.port.input.CustomerUseCase;
 import app.domain.port.input.TransactionUseCase;
 import app.domain.dto.CreateNewBook;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
@@ -26,6 +27,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.UUID;
@@ -102,6 +104,81 @@ public class BookControllerTestIT {
                 .andExpect(jsonPath("$.data[3].title").value("To Kill a Mockingbird"))
                 .andExpect(jsonPath("$.data[4].title").value("War and Peace"));
     }
+
+    /** The cursor walks the same order as the page numbers, but without totals and so without a count. */
+    @Test
+    public void testGetAllBooksByCursor() throws Exception {
+        MvcResult first = mockMvc.perform(get("/books/paginated")
+                        .param("size", "5")
+                        .param("sortBy", "title")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(5))
+                .andExpect(jsonPath("$.data[0].title").value("1984"))
+                .andExpect(jsonPath("$.data[4].title").value("The Divine Comedy"))
+                .andExpect(jsonPath("$.totalItems").doesNotExist())
+                .andExpect(header().string("next", Matchers.containsString("after=")))
+                .andReturn();
+        String next = JsonPath.read(first.getResponse().getContentAsString(), "$.next");
+
+        mockMvc.perform(get("/books/paginated")
+                        .param("size", "5")
+                        .param("sortBy", "title")
+                        .param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(5))
+                .andExpect(jsonPath("$.data[0].title").value("The Great Gatsby"))
+                .andExpect(jsonPath("$.data[4].title").value("War and Peace"))
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()))
+                .andExpect(header().doesNotExist("next"));
+    }
+
+    /** A cursor whose rows have all gone since reads an empty window: still a 200, just nothing next. */
+    @Test
+    public void testGetAllBooksByCursorPastTheLastBook() throws Exception {
+        Book last = bookUseCase.createNewBook(new CreateNewBook("Zuleika Dobson", "9780140181920", 1911,
+                List.of(new CreateNewAuthor("Max Beerbohm", ""))));
+        MvcResult catalogue = mockMvc.perform(get("/books/paginated")
+                        .param("size", "10")
+                        .param("sortBy", "title")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(10))
+                .andReturn();
+        String next = JsonPath.read(catalogue.getResponse().getContentAsString(), "$.next");
+        bookUseCase.deleteBook(last.getBookId());
+
+        mockMvc.perform(get("/books/paginated")
+                        .param("size", "10")
+                        .param("sortBy", "title")
+                        .param("after", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isEmpty())
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()))
+                .andExpect(header().exists("self"))
+                .andExpect(header().doesNotExist("next"));
+    }
+
+    /** A cursor is only good for the sort order it came from; anything else is the caller's mistake. */
+    @Test
+    public void testGetAllBooksRejectsAForeignCursor() throws Exception {
+        MvcResult byTitle = mockMvc.perform(get("/books/paginated")
+                        .param("size", "2")
+                        .param("sortBy", "title")
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andReturn();
+        String next = JsonPath.read(byTitle.getResponse().getContentAsString(), "$.next");
+
+        mockMvc.perform(get("/books/paginated")
+                        .param("sortBy", "isbn")
+                        .param("after", next))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/books/paginated")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
     @Test
     public void testGetBookById() throws Exception {
         Book book = bookUseCase.createNewBook(
@@ -17,6 +17,7 @@ import app.domain.port.input.BookUseCase;
 import app.domain.port.input.CustomerUseCase;
 import app.domain.port.input.TransactionUseCase;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -38,6 +39,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -270,6 +272,18 @@ class TransactionControllerTestIT {
                 .andExpect(jsonPath("$.message").value("No transactions found for this customer"));
     }
 
+    /** By cursor, no loans is an empty window and a 200, as on every keyset endpoint. */
+    @Test
+    @WithMockUser(username = "admin", roles = "ADMIN")
+    void testViewBorrowingHistory_byCursorWithNoTransactions() throws Exception {
+        mockMvc.perform(get("/transactions/history/{customerId}", customer.getCustomerId())
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isEmpty())
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()))
+                .andExpect(header().doesNotExist("next"));
+    }
+
     /** A member must not be able to read another member's loans by guessing a customer id. */
     @Test
     void testViewBorrowingHistory_refusedForMembers() throws Exception {
@@ -286,6 +300,17 @@ class TransactionControllerTestIT {
                 .andExpect(jsonPath("$.totalItems").value(0));
     }
 
+    /** The same empty window for a member's own loans. */
+    @Test
+    @WithMockUser(username = "member")
+    void testMyHistory_byCursorWithNoLoans() throws Exception {
+        mockMvc.perform(get("/transactions/me").param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").isEmpty())
+                .andExpect(jsonPath("$.next").value(Matchers.nullValue()))
+                .andExpect(header().doesNotExist("next"));
+    }
+
     @AfterEach
     public void tearDown() {
         transactionRepository.deleteAll();
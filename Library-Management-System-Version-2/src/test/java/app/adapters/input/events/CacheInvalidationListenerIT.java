@@ -0,0 +1,178 @@
+package app.adapters.input.events;
+
+import app.adapters.output.entity.BookEntity;
+import app.adapters.output.events.CacheInvalidation;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.repositories.BookRepository;
+import app.adapters.output.search.BookSearchIndex;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.TopicPartitionOffset;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Two backend instances, as far as the topic can tell: records sent here with another origin stand for
+ * the second instance, which writes to the same database but holds its own indexes and caches.
+ */
+@SpringBootTest(properties = "library.cache.invalidation.enabled=true")
+@EmbeddedKafka(partitions = 1, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@Tag("integration")
+class CacheInvalidationListenerIT {
+
+    private static final String TOPIC = "library.cache-invalidations";
+    private static final String PEER = "another-instance";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @Autowired
+    private KafkaTemplate<String, CacheInvalidation> kafkaTemplate;
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+    @Autowired
+    private CacheInvalidationBroadcaster broadcaster;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    @Autowired
+    private ConcurrentKafkaListenerContainerFactory<String, CacheInvalidation> cacheInvalidationListenerFactory;
+
+    /**
+     * The listener starts from the end of the topic, so anything sent before it has its position would
+     * be missed: waits until an eviction sent now comes back.
+     */
+    @BeforeEach
+    void waitForTheListener() {
+        ContainerTestUtils.waitForAssignment(
+                registry.getListenerContainer(CacheInvalidationListenerConfig.LISTENER_ID), 1);
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            cacheManager.getCache("catalogLookup").put("listener-ready", "probe");
+            fromPeer(CacheInvalidation.ISBN, "listener-ready");
+            await().atMost(Duration.ofSeconds(1)).untilAsserted(() ->
+                    assertThat(cacheManager.getCache("catalogLookup").get("listener-ready")).isNull());
+        });
+    }
+
+    /** Sends an invalidation as the other instance would. */
+    private void fromPeer(String kind, String key) {
+        CacheInvalidation invalidation = new CacheInvalidation(kind, key, PEER);
+        kafkaTemplate.send(TOPIC, invalidation.compactionKey(), invalidation);
+    }
+
+    @Test
+    void anIsbnInvalidationFromAnotherInstanceEvictsTheCatalogueCaches() {
+        cacheManager.getCache("catalogLookup").put("9780000000101", "stale lookup");
+        cacheManager.getCache("catalogDescription").put("9780000000101", "stale blurb");
+
+        fromPeer(CacheInvalidation.ISBN, "9780000000101");
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(cacheManager.getCache("catalogLookup").get("9780000000101")).isNull();
+            assertThat(cacheManager.getCache("catalogDescription").get("9780000000101")).isNull();
+        });
+    }
+
+    @Test
+    void aBookInvalidationFromAnotherInstanceReindexesTheBook() {
+        // The other instance's write: straight to the shared database, past this instance's index.
+        BookEntity book = bookRepository.findAll().getFirst();
+        book.setTitle("Retitled Elsewhere");
+        bookRepository.save(book);
+        assertThat(bookSearchIndex.search("retitled", PageRequest.of(0, 10)).getContent()).isEmpty();
+
+        fromPeer(CacheInvalidation.BOOK, book.getBookId().toString());
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(bookSearchIndex.search("retitled", PageRequest.of(0, 10)).getContent())
+                        .containsExactly(book.getBookId()));
+    }
+
+    @Test
+    void everyInstanceReceivesEveryInvalidation() {
+        MessageListenerContainer first = registry.getListenerContainer(CacheInvalidationListenerConfig.LISTENER_ID);
+        assertThat(first.getGroupId()).isNull();
+
+        // The second instance's consumer, made the way this instance's was, from the same factory.
+        Queue<String> secondSaw = new ConcurrentLinkedQueue<>();
+        ConcurrentMessageListenerContainer<String, CacheInvalidation> second = cacheInvalidationListenerFactory
+                .createContainer(new TopicPartitionOffset(TOPIC, 0, TopicPartitionOffset.SeekPosition.END));
+        second.getContainerProperties().setMessageListener(
+                (MessageListener<String, CacheInvalidation>) record -> secondSaw.add(record.value().key()));
+        second.start();
+        try {
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                fromPeer(CacheInvalidation.ISBN, "second-ready");
+                await().atMost(Duration.ofSeconds(1)).untilAsserted(() -> assertThat(secondSaw).isNotEmpty());
+            });
+            cacheManager.getCache("catalogLookup").put("9780000000303", "stale lookup");
+
+            fromPeer(CacheInvalidation.ISBN, "9780000000303");
+
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                assertThat(secondSaw).contains("9780000000303");
+                assertThat(cacheManager.getCache("catalogLookup").get("9780000000303")).isNull();
+            });
+        } finally {
+            second.stop();
+        }
+    }
+
+    @Test
+    void anIsbnChangedHereIsEvictedHereAndSentForTheOthers() {
+        cacheManager.getCache("catalogDescription").put("9780000000202", "stale blurb");
+
+        broadcaster.isbnChanged("9780000000202");
+
+        assertThat(cacheManager.getCache("catalogDescription").get("9780000000202")).isNull();
+        try (Consumer<String, CacheInvalidation> consumer = topicReader()) {
+            List<ConsumerRecord<String, CacheInvalidation>> seen = new ArrayList<>();
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200)).forEach(seen::add);
+                assertThat(seen).anySatisfy(record -> {
+                    assertThat(record.key()).isEqualTo("ISBN:9780000000202");
+                    assertThat(record.value().origin()).isEqualTo(broadcaster.origin());
+                });
+            });
+        }
+    }
+
+    /** A reader of the whole topic from the start, so it also sees what was sent before it subscribed. */
+    private Consumer<String, CacheInvalidation> topicReader() {
+        DefaultKafkaConsumerFactory<String, CacheInvalidation> factory = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("cache-invalidation-reader", "false", broker),
+                new StringDeserializer(), new JsonDeserializer<>(CacheInvalidation.class, false));
+        Consumer<String, CacheInvalidation> consumer = factory.createConsumer();
+        consumer.subscribe(List.of(TOPIC));
+        return consumer;
+    }
+}
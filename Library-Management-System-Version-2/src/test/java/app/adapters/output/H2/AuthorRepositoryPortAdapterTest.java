@@ -3,7 +3,10 @@ package app.adapters.output.H2;
 import app.adapters.output.entity.AuthorEntity;
 import app.adapters.output.entity.BookEntity;
 import app.adapters.output.AuthorRepositoryPortAdapter;
+import app.adapters.output.projection.AuthorBookRow;
+import app.adapters.output.projection.AuthorListingRow;
 import app.adapters.output.repositories.AuthorRepository;
+import app.adapters.output.search.BookSearchIndex;
 import app.domain.model.Author;
 import app.infrastructure.exceptions.AuthorNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -41,6 +44,9 @@ class AuthorRepositoryPortAdapterTest {
     @Mock
     private AuthorRepository authorRepository;
 
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
     @InjectMocks
     private AuthorRepositoryPortAdapter authorDaoAdapter;
 
@@ -64,25 +70,29 @@ class AuthorRepositoryPortAdapterTest {
     @Test
     void test_getPaginatedAuthors() {
         PageRequest pageable = PageRequest.of(0, 10);
-        AuthorEntity authorEntity = new AuthorEntity(UUID.randomUUID(), "Author Name", "Bio", new HashSet<>());
-        Page<AuthorEntity> authorEntities = new PageImpl<>(List.of(authorEntity), pageable, 1);
+        UUID authorId = UUID.randomUUID();
+        Page<AuthorListingRow> rows = new PageImpl<>(
+                List.of(new AuthorListingRow(authorId, "Author Name", "Bio")), pageable, 1);
 
-        when(authorRepository.findAllAuthorsWithBooks(pageable)).thenReturn(authorEntities);
+        when(authorRepository.findListingPage(pageable)).thenReturn(rows);
+        when(authorRepository.findBookRows(List.of(authorId))).thenReturn(List.of(new AuthorBookRow(
+                authorId, UUID.randomUUID(), "Book Title", "1234567890", 2020, true, null, LocalDate.now())));
 
         Page<Author> result = authorDaoAdapter.getPaginatedAuthors(pageable);
 
         assertEquals(1, result.getTotalElements());
         assertEquals("Author Name", result.getContent().getFirst().getName());
+        assertEquals(1, result.getContent().getFirst().getBooks().size());
     }
 
     @Test
     void test_searchAuthors() {
         String query = "Author";
         PageRequest pageable = PageRequest.of(0, 10);
-        AuthorEntity authorEntity = new AuthorEntity(UUID.randomUUID(), "Author Name", "Bio", new HashSet<>());
-        Page<AuthorEntity> authorEntities = new PageImpl<>(List.of(authorEntity), pageable, 1);
+        Page<AuthorListingRow> rows = new PageImpl<>(
+                List.of(new AuthorListingRow(UUID.randomUUID(), "Author Name", "Bio")), pageable, 1);
 
-        when(authorRepository.searchAuthorsByQuery(any(), any())).thenReturn(authorEntities);
+        when(authorRepository.searchListingPage(any(), any())).thenReturn(rows);
 
         Page<Author> result = authorDaoAdapter.searchAuthors(query, pageable);
 
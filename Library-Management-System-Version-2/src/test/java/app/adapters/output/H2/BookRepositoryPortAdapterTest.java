@@ -0,0 +1,106 @@
+package app.adapters.output.H2;
+
+import app.adapters.output.BookRepositoryPortAdapter;
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
+import app.adapters.output.repositories.AuthorRepository;
+import app.adapters.output.repositories.BookRepository;
+import app.adapters.output.search.BookSearchIndex;
+import app.domain.model.Book;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Catalogue search: from the index once it is built, from the database before. */
+@ExtendWith(MockitoExtension.class)
+@Tag("unit")
+public class BookRepositoryPortAdapterTest {
+
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private AuthorRepository authorRepository;
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+    @Mock
+    private CacheInvalidationBroadcaster cacheInvalidations;
+    @Mock
+    private EntityManager entityManager;
+
+    private BookRepositoryPortAdapter bookDaoAdapter;
+
+    private final UUID bookId = UUID.randomUUID();
+    private final Pageable pageable = Pageable.ofSize(10);
+
+    @BeforeEach
+    public void setUp() {
+        bookDaoAdapter = new BookRepositoryPortAdapter(bookRepository, authorRepository, bookSearchIndex,
+                cacheInvalidations, entityManager);
+    }
+
+    private BookListingRow hobbit() {
+        return new BookListingRow(bookId, "The Hobbit", "9780547928227", 1937, true, null, LocalDate.now());
+    }
+
+    @Test
+    public void testSearchBooksFromTheIndex() {
+        Mockito.when(bookSearchIndex.isBuilt()).thenReturn(true);
+        Mockito.when(bookSearchIndex.search("hobbit", pageable)).thenReturn(new PageImpl<>(List.of(bookId), pageable, 1));
+        Mockito.when(bookRepository.findListingRows(List.of(bookId))).thenReturn(List.of(hobbit()));
+        Mockito.when(bookRepository.findAuthorRows(List.of(bookId)))
+                .thenReturn(List.of(new BookAuthorRow(bookId, UUID.randomUUID(), "J.R.R. Tolkien", null)));
+
+        Page<Book> books = bookDaoAdapter.searchBooks("hobbit", pageable);
+
+        assertEquals(1, books.getTotalElements());
+        assertEquals("The Hobbit", books.getContent().getFirst().getTitle());
+        Mockito.verify(bookRepository, Mockito.never()).findListingPageByQuery(Mockito.any(), Mockito.any());
+    }
+
+    /** A book deleted before its refresh reached the index is off the page and out of the total. */
+    @Test
+    public void testSearchBooksLeavesADeletedBookOutOfTheTotal() {
+        UUID deletedId = UUID.randomUUID();
+        Pageable firstTwo = Pageable.ofSize(2);
+        Mockito.when(bookSearchIndex.isBuilt()).thenReturn(true);
+        Mockito.when(bookSearchIndex.search("hobbit", firstTwo))
+                .thenReturn(new PageImpl<>(List.of(bookId, deletedId), firstTwo, 5));
+        Mockito.when(bookRepository.findListingRows(List.of(bookId, deletedId))).thenReturn(List.of(hobbit()));
+        Mockito.when(bookRepository.findAuthorRows(List.of(bookId, deletedId))).thenReturn(List.of());
+
+        Page<Book> books = bookDaoAdapter.searchBooks("hobbit", firstTwo);
+
+        assertEquals(1, books.getNumberOfElements());
+        assertEquals(4, books.getTotalElements());
+    }
+
+    /** At start-up, before the index has read the catalogue, a search still finds what is stocked. */
+    @Test
+    public void testSearchBooksFromTheDatabaseUntilTheIndexIsBuilt() {
+        Mockito.when(bookSearchIndex.isBuilt()).thenReturn(false);
+        Mockito.when(bookRepository.findListingPageByQuery("hobbit", pageable))
+                .thenReturn(new PageImpl<>(List.of(hobbit()), pageable, 1));
+        Mockito.when(bookRepository.findAuthorRows(List.of(bookId))).thenReturn(List.of());
+
+        Page<Book> books = bookDaoAdapter.searchBooks(" Hobbit ", pageable);
+
+        assertEquals(1, books.getTotalElements());
+        assertEquals("The Hobbit", books.getContent().getFirst().getTitle());
+        Mockito.verify(bookSearchIndex, Mockito.never()).search(Mockito.any(), Mockito.any());
+    }
+}
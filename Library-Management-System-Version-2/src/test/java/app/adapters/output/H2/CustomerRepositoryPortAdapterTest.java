@@ -3,7 +3,9 @@ package app.adapters.output.H2;
 import app.adapters.output.entity.CustomerEntity;
 import app.adapters.output.entity.TransactionEntity;
 import app.adapters.output.CustomerRepositoryPortAdapter;
+import app.adapters.output.projection.CustomerListingRow;
 import app.adapters.output.repositories.CustomerRepository;
+import app.adapters.output.search.CustomerSearchIndex;
 import app.domain.model.Customer;
 import app.domain.model.Transaction;
 import jakarta.persistence.EntityNotFoundException;
@@ -38,12 +40,14 @@ public class CustomerRepositoryPortAdapterTest {
 
     @Mock
     private CustomerRepository customerRepository;
+    @Mock
+    private CustomerSearchIndex customerSearchIndex;
     @InjectMocks
     private CustomerRepositoryPortAdapter customerDaoAdapter;
 
     @BeforeEach
     public void setUp() {
-        customerDaoAdapter = new CustomerRepositoryPortAdapter(customerRepository);
+        customerDaoAdapter = new CustomerRepositoryPortAdapter(customerRepository, customerSearchIndex);
     }
 
     @Test
@@ -75,13 +79,13 @@ public class CustomerRepositoryPortAdapterTest {
     public void testGetPaginatedCustomers() {
         Pageable pageable = Pageable.ofSize(10);
 
-        List<CustomerEntity> customerEntities = new ArrayList<>();
-        customerEntities.add(new CustomerEntity(UUID.randomUUID(), "John Doe", "john.doe@example.com", true, new ArrayList<>()));
-        customerEntities.add(new CustomerEntity(UUID.randomUUID(), "Jane Smith", "jane.smith@example.com", false, new ArrayList<>()));
+        List<CustomerListingRow> rows = new ArrayList<>();
+        rows.add(new CustomerListingRow(UUID.randomUUID(), "John Doe", "john.doe@example.com", true));
+        rows.add(new CustomerListingRow(UUID.randomUUID(), "Jane Smith", "jane.smith@example.com", false));
 
-        Page<CustomerEntity> customerEntityPage = new PageImpl<>(customerEntities, pageable, 2);
+        Page<CustomerListingRow> rowPage = new PageImpl<>(rows, pageable, 2);
 
-        Mockito.when(customerRepository.findAll(pageable)).thenReturn(customerEntityPage);
+        Mockito.when(customerRepository.findListingPage(pageable)).thenReturn(rowPage);
 
         Page<Customer> customers = customerDaoAdapter.getPaginatedCustomers(pageable);
 
@@ -89,7 +93,7 @@ public class CustomerRepositoryPortAdapterTest {
         assertEquals("John Doe", customers.getContent().get(0).getName());
         assertEquals("jane.smith@example.com", customers.getContent().get(1).getEmail());
 
-        Mockito.verify(customerRepository).findAll(pageable);
+        Mockito.verify(customerRepository).findListingPage(pageable);
     }
 
     @Test
@@ -97,25 +101,64 @@ public class CustomerRepositoryPortAdapterTest {
         String query = "john";
         Pageable pageable = Pageable.ofSize(10);
 
+        UUID customerId = UUID.randomUUID();
         List<CustomerEntity> customerEntities = new ArrayList<>();
-        customerEntities.add(new CustomerEntity(UUID.randomUUID(), "John Doe", "john.doe@example.com", true, new ArrayList<>()));
+        customerEntities.add(new CustomerEntity(customerId, "John Doe", "john.doe@example.com", true, 0, new ArrayList<>()));
 
-        Page<CustomerEntity> customerEntityPage = new PageImpl<>(customerEntities, pageable, 1);
-
-        Mockito.when(customerRepository.searchByQuery(query.toLowerCase(), pageable)).thenReturn(customerEntityPage);
+        Mockito.when(customerSearchIndex.answers(query)).thenReturn(true);
+        Mockito.when(customerSearchIndex.search(query, pageable))
+                .thenReturn(new PageImpl<>(List.of(customerId), pageable, 1));
+        Mockito.when(customerRepository.findWithTransactionsByIds(List.of(customerId))).thenReturn(customerEntities);
 
         Page<Customer> customers = customerDaoAdapter.searchCustomer(query, pageable);
 
         assertEquals(1, customers.getTotalElements());
         assertEquals("John Doe", customers.getContent().getFirst().getName());
 
-        Mockito.verify(customerRepository).searchByQuery(query.toLowerCase(), pageable);
+        Mockito.verify(customerRepository).findWithTransactionsByIds(List.of(customerId));
+    }
+
+    /** Too short for a trigram: the index turns it away and the database answers. */
+    @Test
+    public void testSearchCustomerWithAShortQuery() {
+        Pageable pageable = Pageable.ofSize(10);
+        UUID customerId = UUID.randomUUID();
+        List<CustomerEntity> customerEntities = List.of(
+                new CustomerEntity(customerId, "David Lee", "dlee@library.test", true, 0, new ArrayList<>()));
+
+        Mockito.when(customerSearchIndex.answers("Ee")).thenReturn(false);
+        Mockito.when(customerRepository.findIdsByQuery("ee", pageable))
+                .thenReturn(new PageImpl<>(List.of(customerId), pageable, 1));
+        Mockito.when(customerRepository.findWithTransactionsByIds(List.of(customerId))).thenReturn(customerEntities);
+
+        Page<Customer> customers = customerDaoAdapter.searchCustomer("Ee", pageable);
+
+        assertEquals(1, customers.getTotalElements());
+        assertEquals("David Lee", customers.getContent().getFirst().getName());
+        Mockito.verify(customerSearchIndex, Mockito.never()).search(Mockito.any(), Mockito.any());
+    }
+
+    /** A pasted member or loan id goes straight to the primary key, never through the index. */
+    @Test
+    public void testSearchCustomerByExactId() {
+        UUID loanId = UUID.randomUUID();
+        Pageable pageable = Pageable.ofSize(10);
+        CustomerEntity borrower = new CustomerEntity(UUID.randomUUID(), "John Doe", "john.doe@example.com", true, 0,
+                new ArrayList<>());
+
+        Mockito.when(customerRepository.findByCustomerOrLoanId(loanId)).thenReturn(Optional.of(borrower));
+
+        Page<Customer> customers = customerDaoAdapter.searchCustomer(" " + loanId + " ", pageable);
+
+        assertEquals(1, customers.getTotalElements());
+        assertEquals("John Doe", customers.getContent().getFirst().getName());
+        Mockito.verifyNoInteractions(customerSearchIndex);
     }
 
     @Test
     public void testGetCustomerById_Found() {
         UUID customerId = UUID.randomUUID();
-        CustomerEntity customerEntity = new CustomerEntity(customerId, "John Doe", "john.doe@example.com", true, new ArrayList<>());
+        CustomerEntity customerEntity = new CustomerEntity(customerId, "John Doe", "john.doe@example.com", true, 0, new ArrayList<>());
 
         Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customerEntity));
 
@@ -153,7 +196,7 @@ public class CustomerRepositoryPortAdapterTest {
                 .build();
 
         CustomerEntity customerEntity = new CustomerEntity(
-                UUID.randomUUID(), name, "john.doe@example.com", true, new ArrayList<>());
+                UUID.randomUUID(), name, "john.doe@example.com", true, 0, new ArrayList<>());
         customerEntity.getTransactions().add(transaction);
 
         Mockito.when(customerRepository.findByName(name)).thenReturn(Optional.of(customerEntity));
@@ -188,7 +231,7 @@ public class CustomerRepositoryPortAdapterTest {
         UUID customerId = UUID.randomUUID();
         Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", false);
 
-        CustomerEntity customerEntity = new CustomerEntity(customerId, customer.getName(), customer.getEmail(), customer.isPrivileges(), new ArrayList<>());
+        CustomerEntity customerEntity = new CustomerEntity(customerId, customer.getName(), customer.getEmail(), customer.isPrivileges(), 0, new ArrayList<>());
 
         Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customerEntity));
 
@@ -214,7 +257,7 @@ public class CustomerRepositoryPortAdapterTest {
         UUID customerId = UUID.randomUUID();
         Customer customer = new Customer(customerId, "Updated Name", "updated@example.com", true);
 
-        CustomerEntity customerEntity = new CustomerEntity(customerId, "Old Name", "old@example.com", false, new ArrayList<>());
+        CustomerEntity customerEntity = new CustomerEntity(customerId, "Old Name", "old@example.com", false, 0, new ArrayList<>());
 
         Mockito.when(customerRepository.findById(customerId)).thenReturn(Optional.of(customerEntity));
 
@@ -0,0 +1,159 @@
+package app.adapters.output.catalog;
+
+import app.support.MovableClock;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** The breaker on a clock the test moves, so the cool-down passes without waiting for it. */
+@Tag("unit")
+class CatalogCircuitBreakerTest {
+
+    private static final Duration OPEN_FOR = Duration.ofSeconds(30);
+
+    private final MovableClock clock = new MovableClock();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private CatalogCircuitBreaker breaker(int slots, int failureThreshold) {
+        return new CatalogCircuitBreaker(slots, Duration.ZERO, failureThreshold, OPEN_FOR, clock);
+    }
+
+    /** A call that reaches the catalogue and finds it down. */
+    private String outage() {
+        calls.incrementAndGet();
+        throw new ResourceAccessException("Read timed out");
+    }
+
+    /** A call that reaches the catalogue and gets an answer. */
+    private String answer() {
+        calls.incrementAndGet();
+        return "answer";
+    }
+
+    private static void failQuietly(CatalogCircuitBreaker breaker, Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException expected) {
+            // The failure is the point; what the breaker made of it is asserted afterwards.
+        }
+    }
+
+    @Test
+    void opensAfterARunOfFailuresAndThenTurnsCallsAwayWithoutMakingThem() {
+        CatalogCircuitBreaker breaker = breaker(10, 3);
+        for (int i = 0; i < 3; i++) {
+            failQuietly(breaker, () -> breaker.call(this::outage));
+        }
+
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> breaker.call(this::answer)).isInstanceOf(CatalogUnavailableException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void aSuccessInBetweenResetsTheRunAndA4xxCountsAsOne() {
+        CatalogCircuitBreaker breaker = breaker(10, 2);
+
+        failQuietly(breaker, () -> breaker.call(this::outage));
+        failQuietly(breaker, () -> breaker.call(() -> {
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+        }));
+        failQuietly(breaker, () -> breaker.call(this::outage));
+
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.CLOSED);
+        assertThat(breaker.consecutiveFailures()).isEqualTo(1);
+    }
+
+    @Test
+    void afterTheCoolDownOneProbeDecides() {
+        CatalogCircuitBreaker breaker = breaker(10, 1);
+        failQuietly(breaker, () -> breaker.call(this::outage));
+
+        clock.advance(OPEN_FOR);
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.HALF_OPEN);
+        failQuietly(breaker, () -> breaker.call(this::outage));
+        // The probe failed: open for another round, from now.
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.OPEN);
+
+        clock.advance(OPEN_FOR);
+        assertThat(breaker.call(this::answer)).isEqualTo("answer");
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.CLOSED);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void whileTheProbeIsOutEveryoneElseIsTurnedAway() throws InterruptedException {
+        CatalogCircuitBreaker breaker = breaker(10, 1);
+        failQuietly(breaker, () -> breaker.call(this::outage));
+        clock.advance(OPEN_FOR);
+
+        CountDownLatch probing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> probe = CompletableFuture.supplyAsync(() -> breaker.call(() -> {
+            probing.countDown();
+            awaitQuietly(release);
+            return "answer";
+        }));
+        assertThat(probing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> breaker.call(this::answer)).isInstanceOf(CatalogUnavailableException.class);
+        release.countDown();
+        assertThat(probe.join()).isEqualTo("answer");
+        assertThat(breaker.state()).isEqualTo(CatalogCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void aFullBulkheadTurnsTheNextCallAwayAtOnce() throws InterruptedException {
+        CatalogCircuitBreaker breaker = breaker(1, 5);
+        CountDownLatch calling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> breaker.call(() -> {
+            calling.countDown();
+            awaitQuietly(release);
+            return "slow";
+        }));
+        assertThat(calling.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(breaker.availableSlots()).isZero();
+        assertThatThrownBy(() -> breaker.call(this::answer)).isInstanceOf(CatalogUnavailableException.class);
+        release.countDown();
+        assertThat(slow.join()).isEqualTo("slow");
+        // Being turned away is not the catalogue failing.
+        assertThat(breaker.consecutiveFailures()).isZero();
+    }
+
+    @Test
+    void healthShowsTheCircuitWithoutMarkingTheBackendDown() {
+        CatalogCircuitBreaker breaker = breaker(10, 1);
+        failQuietly(breaker, () -> breaker.call(this::outage));
+
+        Health health = new CatalogHealthIndicator(breaker).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails())
+                .containsEntry("circuit", CatalogCircuitBreaker.State.OPEN)
+                .containsEntry("consecutiveFailures", 1)
+                .containsEntry("availableSlots", 10);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
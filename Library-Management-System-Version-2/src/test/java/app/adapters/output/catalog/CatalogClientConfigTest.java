@@ -0,0 +1,125 @@
+package app.adapters.output.catalog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The catalogue client as configured, against a stub server on the loopback interface rather than
+ * Open Library: the stub sees which connection each call came in on and what it asked for.
+ */
+@Tag("unit")
+class CatalogClientConfigTest {
+
+    private final CatalogClientConfig config = new CatalogClientConfig();
+
+    private HttpServer stub;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestClient restClient;
+
+    /** A stub books API that answers gzipped to whoever asks for it, as Open Library does. */
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        stub.createContext("/api/books", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            acceptEncodings.add(String.valueOf(acceptEncoding));
+
+            byte[] body = gzip("{\"ISBN:9780061120084\": {\"details\": {\"title\": \"To Kill a Mockingbird\"}}}");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+
+        connectionManager = config.catalogConnectionManager(5);
+        httpClient = config.catalogHttpClient(connectionManager, Duration.ofSeconds(30));
+        restClient = config.catalogRestClient(RestClient.builder(), httpClient,
+                "http://" + stub.getAddress().getHostString() + ":" + stub.getAddress().getPort());
+    }
+
+    @AfterEach
+    void stopStub() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        stub.stop(0);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private JsonNode lookup() {
+        return restClient.get()
+                .uri(uri -> uri.path("/api/books").queryParam("bibkeys", "ISBN:9780061120084").build())
+                .retrieve()
+                .body(JsonNode.class);
+    }
+
+    @Test
+    void callsInTurnReuseOneKeptAliveConnection() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(lookup().path("ISBN:9780061120084").path("details").path("title").asText())
+                    .isEqualTo("To Kill a Mockingbird");
+        }
+
+        // One client port means one TCP connection, and one TLS handshake against the real catalogue.
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void asksForGzipAndReadsTheUnpackedBody() {
+        JsonNode body = lookup();
+
+        assertThat(acceptEncodings).singleElement().asString().contains("gzip");
+        assertThat(body.path("ISBN:9780061120084").isObject()).isTrue();
+    }
+
+    @Test
+    void thePoolIsPublishedAsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        config.catalogConnectionPoolMetrics(connectionManager).bindTo(registry);
+        lookup();
+
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", CatalogClientConfig.POOL_NAME).gauge().value()).isEqualTo(5);
+        // The connection went back to the pool once the body was read.
+        assertThat(registry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", CatalogClientConfig.POOL_NAME).tag("state", "available").gauge().value())
+                .isEqualTo(1);
+    }
+}
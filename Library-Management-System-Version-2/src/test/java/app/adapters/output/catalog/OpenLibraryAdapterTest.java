@@ -4,13 +4,23 @@ import app.domain.dto.CreateNewBook;
 import app.domain.model.CatalogPage;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
@@ -109,15 +119,90 @@ class OpenLibraryAdapterTest {
         assertThat(adapter.findByIsbn(null)).isEmpty();
     }
 
-    /** A catalogue outage must not stop a librarian adding the book by hand. */
+    /** An outage is not a miss: read as one, it would be cached as "this ISBN has no blurb". */
     @Test
-    void returnsEmptyWhenTheCatalogueIsDown() {
+    void throwsWhenTheCatalogueIsDown() {
         RestClient.Builder builder = RestClient.builder().baseUrl(BASE);
         MockRestServiceServer.bindTo(builder).build()
                 .expect(requestTo(org.hamcrest.Matchers.containsString("/api/books")))
                 .andRespond(withServerError());
+        OpenLibraryAdapter down = new OpenLibraryAdapter(builder.build());
 
-        assertThat(new OpenLibraryAdapter(builder.build()).findByIsbn("9780061120084")).isEmpty();
+        assertThatThrownBy(() -> down.findByIsbn("9780061120084")).isInstanceOf(RestClientException.class);
+    }
+
+    @Test
+    void throwsWhenTheBreakerTurnsTheLookupAway() {
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE);
+        server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(org.hamcrest.Matchers.containsString("/api/books")))
+                .andRespond(withServerError());
+        CatalogCircuitBreaker breaker = new CatalogCircuitBreaker(10, Duration.ZERO, 1, Duration.ofMinutes(1));
+        adapter = new OpenLibraryAdapter(builder.build(), breaker, new NoOpCacheManager(), Duration.ofSeconds(5), 50);
+
+        assertThatThrownBy(() -> adapter.findByIsbn("9780061120084")).isInstanceOf(RestClientException.class);
+        // The breaker is now open, so the second lookup is refused without a call.
+        assertThatThrownBy(() -> adapter.findByIsbn("9780061120084")).isInstanceOf(CatalogUnavailableException.class);
+        server.verify();
+    }
+
+    /** A refresh that fails reads as empty, which leaves the cached entry where it is. */
+    @Test
+    void aFailedRefreshReadsAsEmpty() {
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE);
+        MockRestServiceServer.bindTo(builder).build()
+                .expect(requestTo(org.hamcrest.Matchers.containsString("/api/books")))
+                .andRespond(withServerError());
+
+        assertThat(new OpenLibraryAdapter(builder.build()).reload("9780061120084")).isEmpty();
+    }
+
+    @Test
+    void looksUpManyIsbnsInOneCallWithOneMoreForTheAuthorlessOnes() {
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE);
+        server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(allOf(containsString("jscmd=details"),
+                        containsString("ISBN:9780061120084,ISBN:9780451524935,ISBN:0000000000000"))))
+                .andRespond(withSuccess("""
+                        {"ISBN:9780061120084": {"details": {"title": "To Kill a Mockingbird",
+                            "authors": [{"name": "Harper Lee"}]}},
+                         "ISBN:9780451524935": {"details": {"title": "Nineteen Eighty-Four", "authors": []}}}
+                        """, MediaType.APPLICATION_JSON));
+        // Only the edition without authors under `details` is asked about again.
+        server.expect(queryParam("bibkeys", "ISBN:9780451524935"))
+                .andRespond(withSuccess("""
+                        {"ISBN:9780451524935": {"authors": [{"name": "George Orwell"}]}}
+                        """, MediaType.APPLICATION_JSON));
+        adapter = new OpenLibraryAdapter(builder.build());
+
+        Map<String, CreateNewBook> found = adapter.findByIsbns(
+                List.of("978-0-06-112008-4", "9780451524935", "0000000000000", " "));
+
+        server.verify();
+        // Keyed as asked; the unknown and the blank ones are simply absent.
+        assertThat(found).containsOnlyKeys("978-0-06-112008-4", "9780451524935");
+        assertThat(found.get("978-0-06-112008-4").getTitle()).isEqualTo("To Kill a Mockingbird");
+        assertThat(found.get("9780451524935").getAuthors()).singleElement()
+                .satisfies(author -> assertThat(author.getName()).isEqualTo("George Orwell"));
+    }
+
+    @Test
+    void splitsALongListIntoBatchesAndSkipsABatchThatFails() {
+        RestClient.Builder builder = RestClient.builder().baseUrl(BASE);
+        server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(queryParam("bibkeys", "ISBN:1111111111,ISBN:2222222222"))
+                .andRespond(withServerError());
+        server.expect(queryParam("bibkeys", "ISBN:3333333333"))
+                .andRespond(withSuccess("""
+                        {"ISBN:3333333333": {"details": {"title": "Third", "authors": [{"name": "A. Writer"}]}}}
+                        """, MediaType.APPLICATION_JSON));
+        CatalogCircuitBreaker breaker = new CatalogCircuitBreaker(10, Duration.ZERO, 10, Duration.ofSeconds(30));
+        adapter = new OpenLibraryAdapter(builder.build(), breaker, new NoOpCacheManager(), Duration.ofSeconds(5), 2);
+
+        Map<String, CreateNewBook> found = adapter.findByIsbns(Arrays.asList("1111111111", "2222222222", "3333333333"));
+
+        server.verify();
+        assertThat(found).containsOnlyKeys("3333333333");
     }
 
     private void withSearchResponse(String body) {
@@ -3,6 +3,8 @@ package app.adapters.output.catalog;
 import app.domain.dto.CreateNewBook;
 import app.domain.model.CatalogPage;
 import app.domain.port.output.BookCatalogPort;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,12 +18,16 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.client.ExpectedCount.once;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
@@ -31,17 +37,15 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
  * <p>{@link OpenLibraryAdapterTest} builds the adapter directly, so it never evaluates the
  * {@code @Cacheable} expressions. That blind spot let a broken {@code unless} ship: Spring unwraps
  * an {@code Optional} result before evaluating it, so {@code #result.isEmpty()} threw EL1004 on
- * every successful lookup and turned adding a book into a 500.
+ * every successful lookup and turned adding a book into a 500. The same blind spot covers what
+ * CacheConfig adds on top: the counters Actuator publishes and the background refresh.
  */
-@SpringBootTest(properties = {
-        "spring.main.allow-bean-definition-overriding=true",
-        "spring.cache.type=simple",
-})
+@SpringBootTest(properties = "spring.main.allow-bean-definition-overriding=true")
 /*
  * Kept here after being removed from the controller ITs, and load-bearing for a different reason:
  * MockRestServiceServer lives on the RestClient bean, so its expectations accumulate for the life
  * of the context. These tests assert exact call counts - expect(once(), ...) then verify() - which
- * only holds with a server built fresh per test method. Three tests, so three contexts.
+ * only holds with a server built fresh per test method. Six tests, so six contexts.
  */
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 @Import(OpenLibraryCacheIT.StubCatalogClient.class)
@@ -67,17 +71,24 @@ class OpenLibraryCacheIT {
     private BookCatalogPort bookCatalogPort;
     @Autowired
     private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Open Library's answer for {@link #ISBN}, under the given title. */
+    private static String lookupJson(String title) {
+        return """
+                {"ISBN:9780061120084": {"details": {
+                   "title": "%s",
+                   "authors": [{"name": "Harper Lee"}],
+                   "publish_date": "2006"
+                }}}
+                """.formatted(title);
+    }
 
     @Test
     void aSuccessfulLookupIsCachedRatherThanThrowingOnTheUnlessExpression() {
         StubCatalogClient.server.expect(once(), requestTo(containsString("/api/books")))
-                .andRespond(withSuccess("""
-                        {"ISBN:9780061120084": {"details": {
-                           "title": "To Kill a Mockingbird",
-                           "authors": [{"name": "Harper Lee"}],
-                           "publish_date": "2006"
-                        }}}
-                        """, MediaType.APPLICATION_JSON));
+                .andRespond(withSuccess(lookupJson("To Kill a Mockingbird"), MediaType.APPLICATION_JSON));
 
         Optional<CreateNewBook> first = bookCatalogPort.findByIsbn(ISBN);
         assertThat(first).isPresent();
@@ -117,4 +128,71 @@ class OpenLibraryCacheIT {
         assertThat(bookCatalogPort.search("dune", 0, 20).results()).hasSize(1);
         StubCatalogClient.server.verify();
     }
+
+    @Test
+    void hitsAndMissesAreCountedInTheCacheMetrics() {
+        StubCatalogClient.server.expect(once(), requestTo(containsString("/api/books")))
+                .andRespond(withSuccess(lookupJson("To Kill a Mockingbird"), MediaType.APPLICATION_JSON));
+
+        bookCatalogPort.findByIsbn(ISBN);
+        bookCatalogPort.findByIsbn(ISBN);
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "catalogLookup", "result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "catalogLookup", "result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    /** A batched lookup serves what is cached, asks Open Library for the rest, and caches each hit. */
+    @Test
+    void aBatchedLookupSkipsCachedIsbnsAndCachesTheOthersOneByOne() {
+        cacheManager.getCache("catalogLookup").put("9780451524935",
+                new CreateNewBook("Nineteen Eighty-Four", "9780451524935", 1949, List.of()));
+        StubCatalogClient.server.expect(once(), requestTo(containsString("bibkeys=ISBN:" + ISBN + "&")))
+                .andRespond(withSuccess(lookupJson("To Kill a Mockingbird"), MediaType.APPLICATION_JSON));
+
+        Map<String, CreateNewBook> found = bookCatalogPort.findByIsbns(List.of(ISBN, "9780451524935"));
+
+        assertThat(found).containsOnlyKeys(ISBN, "9780451524935");
+        // Now a single lookup is a cache hit: a second call would fail verify().
+        assertThat(bookCatalogPort.findByIsbn(ISBN)).map(CreateNewBook::getTitle).contains("To Kill a Mockingbird");
+        StubCatalogClient.server.verify();
+    }
+
+    /** A refresh renews the entry from Open Library, and one that fails leaves the old entry in place. */
+    @Test
+    @SuppressWarnings("unchecked")
+    void aRefreshRereadsTheBookAndKeepsItWhenTheCatalogueFails() throws InterruptedException {
+        StubCatalogClient.server.expect(once(), requestTo(containsString("/api/books")))
+                .andRespond(withSuccess(lookupJson("To Kill a Mockingbird"), MediaType.APPLICATION_JSON));
+        StubCatalogClient.server.expect(once(), requestTo(containsString("/api/books")))
+                .andRespond(withSuccess(lookupJson("To Kill a Mockingbird (50th Anniversary)"),
+                        MediaType.APPLICATION_JSON));
+        StubCatalogClient.server.expect(once(), requestTo(containsString("/api/books")))
+                .andRespond(withServerError());
+        CreateNewBook first = bookCatalogPort.findByIsbn(ISBN).orElseThrow();
+        LoadingCache<Object, Object> lookups =
+                (LoadingCache<Object, Object>) cacheManager.getCache("catalogLookup").getNativeCache();
+
+        lookups.refresh(ISBN).join();
+        awaitReplaced(lookups, first);
+        assertThat(bookCatalogPort.findByIsbn(ISBN)).map(CreateNewBook::getTitle)
+                .contains("To Kill a Mockingbird (50th Anniversary)");
+
+        lookups.refresh(ISBN).join();
+        assertThat(bookCatalogPort.findByIsbn(ISBN)).map(CreateNewBook::getTitle)
+                .contains("To Kill a Mockingbird (50th Anniversary)");
+        StubCatalogClient.server.verify();
+    }
+
+    /**
+     * Waits for a refresh to land. Caffeine completes the refresh's future before it writes the entry,
+     * so a read straight after join() can still see the old one.
+     */
+    private static void awaitReplaced(LoadingCache<Object, Object> cache, Object old) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getIfPresent(ISBN) == old && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package app.adapters.output.catalog;
+
+import app.domain.model.CatalogCandidate;
+import app.domain.model.CatalogPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of search results read the streaming way and the tree way the adapter used before. Run with
+ * the {@code benchmarks} profile, whose {@code -prof gc} reports {@code gc.alloc.rate.norm}: the bytes
+ * allocated per response, which is the number this comparison is about.
+ *
+ * <p>The payload is shaped like a page of popular titles: every doc lists many edition ISBNs, ten-digit
+ * ones first, and carries fields the adapter never asks for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SearchResponseParsingBenchmark {
+
+    @Param({"20", "100"})
+    private int docs;
+
+    @Param("40")
+    private int isbnsPerDoc;
+
+    private final SearchResponseReader reader = new SearchResponseReader(new JsonFactory());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] payload;
+
+    /** Builds the response once; every invocation reads the same bytes. */
+    @Setup
+    public void buildPayload() {
+        StringBuilder json = new StringBuilder(docs * isbnsPerDoc * 20).append("{\"numFound\": 4210, \"docs\": [");
+        for (int doc = 0; doc < docs; doc++) {
+            if (doc > 0) {
+                json.append(',');
+            }
+            json.append("{\"key\": \"/works/OL").append(doc).append("W\", \"title\": \"Title ").append(doc)
+                    .append("\", \"author_name\": [\"First Author\", \"Second Author\"]")
+                    .append(", \"first_publish_year\": ").append(1950 + doc % 70)
+                    .append(", \"cover_i\": ").append(10_000_000 + doc)
+                    .append(", \"language\": [\"eng\", \"fre\", \"ger\"], \"isbn\": [");
+            for (int i = 0; i < isbnsPerDoc; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                // Ten-digit ISBNs for the first half, so the thirteen-digit one is some way in.
+                json.append('"').append(i < isbnsPerDoc / 2 ? 1_000_000_000L + i : 9_780_000_000_000L + i).append('"');
+            }
+            json.append("], \"publisher\": [\"Ace\", \"Chilton\"], \"edition_count\": ").append(isbnsPerDoc).append('}');
+        }
+        payload = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** What the adapter does now. */
+    @Benchmark
+    public CatalogPage streaming() throws IOException {
+        return reader.read(new ByteArrayInputStream(payload));
+    }
+
+    /** What the adapter did before: the whole response as a tree, then a walk over it. */
+    @Benchmark
+    public CatalogPage tree() throws IOException {
+        JsonNode body = objectMapper.readTree(new ByteArrayInputStream(payload));
+        List<CatalogCandidate> results = new ArrayList<>();
+        for (JsonNode doc : body.path("docs")) {
+            String isbn = firstIsbn(doc);
+            if (isbn == null) {
+                continue;
+            }
+            List<String> authors = new ArrayList<>();
+            for (JsonNode name : doc.path("author_name")) {
+                authors.add(name.asText());
+            }
+            JsonNode cover = doc.path("cover_i");
+            results.add(new CatalogCandidate(doc.path("title").asText(null), isbn,
+                    doc.path("first_publish_year").asInt(0), authors, cover.isNumber() ? cover.asLong() : null));
+        }
+        return new CatalogPage(results, body.path("numFound").asInt(results.size()));
+    }
+
+    private static String firstIsbn(JsonNode doc) {
+        String fallback = null;
+        for (JsonNode isbn : doc.path("isbn")) {
+            String value = isbn.asText();
+            if (value.length() == 13) {
+                return value;
+            }
+            if (fallback == null) {
+                fallback = value;
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,106 @@
+package app.adapters.output.catalog;
+
+import app.domain.model.CatalogCandidate;
+import app.domain.model.CatalogPage;
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The streaming reader against the odd corners of a search response the tree walk used to forgive. */
+@Tag("unit")
+class SearchResponseReaderTest {
+
+    private final SearchResponseReader reader = new SearchResponseReader(new JsonFactory());
+
+    private CatalogPage read(String json) throws IOException {
+        return reader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsEveryFieldACandidateNeedsAndTheWholeCount() throws IOException {
+        CatalogPage page = read("""
+                {"numFound": 312, "start": 0, "docs": [{
+                   "title": "Dune",
+                   "author_name": ["Frank Herbert"],
+                   "first_publish_year": 1965,
+                   "isbn": ["0441172717", "9780441172719", "9780340960196"],
+                   "cover_i": 11481354
+                }]}
+                """);
+
+        assertThat(page.totalItems()).isEqualTo(312);
+        assertThat(page.results()).containsExactly(
+                new CatalogCandidate("Dune", "9780441172719", 1965, List.of("Frank Herbert"), 11481354L));
+    }
+
+    @Test
+    void fallsBackToTheFirstIsbnWhenNoneHasThirteenDigits() throws IOException {
+        CatalogPage page = read("""
+                {"docs": [{"title": "Dune", "isbn": ["0441172717", "0340960191"]}]}
+                """);
+
+        assertThat(page.results()).singleElement().extracting(CatalogCandidate::isbn).isEqualTo("0441172717");
+    }
+
+    @Test
+    void skipsDocsWithoutAnIsbnAndCountsWhatIsLeftWhenTheTotalIsMissing() throws IOException {
+        CatalogPage page = read("""
+                {"docs": [
+                   {"title": "Dune Messiah"},
+                   {"title": "Dune", "isbn": []},
+                   {"title": "Children of Dune", "isbn": ["9780441104024"]}
+                ]}
+                """);
+
+        assertThat(page.results()).extracting(CatalogCandidate::title).containsExactly("Children of Dune");
+        assertThat(page.totalItems()).isEqualTo(1);
+    }
+
+    @Test
+    void stepsOverFieldsItWasNotAskedForHoweverDeeplyNested() throws IOException {
+        CatalogPage page = read("""
+                {"docs": [{
+                   "key": "/works/OL893415W",
+                   "editions": {"docs": [{"isbn": ["0000000000000"]}], "numFound": 9},
+                   "title": "Dune",
+                   "isbn": ["9780441172719"],
+                   "subject": [["nested"], {"deep": [1, 2, 3]}]
+                }], "numFound": 1, "q": "dune"}
+                """);
+
+        assertThat(page.results()).singleElement().satisfies(candidate -> {
+            assertThat(candidate.title()).isEqualTo("Dune");
+            assertThat(candidate.isbn()).isEqualTo("9780441172719");
+        });
+        assertThat(page.totalItems()).isEqualTo(1);
+    }
+
+    @Test
+    void readsAYearGivenAsTextAndIgnoresFieldsOfTheWrongShape() throws IOException {
+        CatalogPage page = read("""
+                {"docs": [{
+                   "title": {"unexpected": true},
+                   "first_publish_year": "1965",
+                   "cover_i": "none",
+                   "author_name": "Frank Herbert",
+                   "isbn": ["9780441172719"]
+                }]}
+                """);
+
+        assertThat(page.results()).containsExactly(
+                new CatalogCandidate(null, "9780441172719", 1965, List.of(), null));
+    }
+
+    @Test
+    void anEmptyBodyIsAnEmptyPage() throws IOException {
+        assertThat(read("").results()).isEmpty();
+        assertThat(read("[]").totalItems()).isZero();
+    }
+}
@@ -0,0 +1,160 @@
+package app.adapters.output.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Callers on their own threads, with the first one's call held open by a latch until the others are
+ * parked on it, so "concurrent" means overlapping for certain rather than by luck.
+ */
+@Tag("unit")
+class SingleFlightTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void letEveryCallFinish() throws InterruptedException {
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+    }
+
+    /** A call that counts itself and then waits to be released. */
+    private String heldCall(String value) {
+        calls.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+
+    /** Runs a caller on its own thread, keeping what it got or what it threw. */
+    private Thread caller(SingleFlight<String, String> flight, String key, AtomicReference<Object> outcome,
+                          Supplier<String> call) {
+        Thread thread = new Thread(() -> {
+            try {
+                outcome.set(flight.execute(key, call));
+            } catch (RuntimeException e) {
+                outcome.set(e);
+            }
+        });
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    /** Waits until a caller is parked on someone else's call. */
+    private static void awaitParked(Thread thread) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> thread.getState() == Thread.State.WAITING
+                || thread.getState() == Thread.State.TIMED_WAITING);
+    }
+
+    @Test
+    void concurrentCallersForOneKeyShareOneCall() throws InterruptedException {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        AtomicReference<Object> third = new AtomicReference<>();
+
+        Thread leader = caller(flight, "9780000000001", first, () -> heldCall("found"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+        Thread follower = caller(flight, "9780000000001", second, () -> heldCall("duplicate"));
+        Thread another = caller(flight, "9780000000001", third, () -> heldCall("duplicate"));
+        awaitParked(follower);
+        awaitParked(another);
+
+        release.countDown();
+        leader.join(5_000);
+        follower.join(5_000);
+        another.join(5_000);
+
+        assertThat(calls).hasValue(1);
+        assertThat(List.of(first.get(), second.get(), third.get())).containsOnly("found");
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void aFailureReachesEveryWaiter() throws InterruptedException {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicReference<Object> leaderSaw = new AtomicReference<>();
+        AtomicReference<Object> followerSaw = new AtomicReference<>();
+
+        Thread leader = caller(flight, "9780000000002", leaderSaw, () -> {
+            heldCall("unused");
+            throw new IllegalStateException("Open Library is down");
+        });
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+        Thread follower = caller(flight, "9780000000002", followerSaw, () -> heldCall("duplicate"));
+        awaitParked(follower);
+
+        release.countDown();
+        leader.join(5_000);
+        follower.join(5_000);
+
+        assertThat(calls).hasValue(1);
+        assertThat(leaderSaw.get()).isInstanceOf(IllegalStateException.class);
+        assertThat(followerSaw.get()).isSameAs(leaderSaw.get());
+    }
+
+    @Test
+    void waitersGiveUpAtTheDeadlineAndTheNextCallerStartsAfresh() {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(200));
+        caller(flight, "9780000000003", new AtomicReference<>(), () -> heldCall("too late"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+
+        assertThatThrownBy(() -> flight.execute("9780000000003", () -> "duplicate"))
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        // The stuck call is still running, but no longer stands in the way.
+        await().atMost(Duration.ofSeconds(5)).until(() -> flight.inFlight() == 0);
+        assertThat(flight.execute("9780000000003", () -> "fresh")).isEqualTo("fresh");
+    }
+
+    @Test
+    void differentKeysDoNotWaitOnEachOther() {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+        caller(flight, "9780000000004", new AtomicReference<>(), () -> heldCall("held"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 1);
+
+        assertThat(flight.execute("9780000000005", () -> "other")).isEqualTo("other");
+    }
+
+    @Test
+    void aFinishedCallIsNotRemembered() {
+        SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(5));
+
+        flight.execute("9780000000006", () -> String.valueOf(calls.incrementAndGet()));
+        String again = flight.execute("9780000000006", () -> String.valueOf(calls.incrementAndGet()));
+
+        assertThat(again).isEqualTo("2");
+        assertThat(flight.inFlight()).isZero();
+    }
+
+    @Test
+    void rejectsATimeoutThatIsNotPositive() {
+        assertThatThrownBy(() -> new SingleFlight<String, String>(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,135 @@
+package app.adapters.output.events;
+
+import app.adapters.output.entity.LoanEventOutboxEntity;
+import app.adapters.output.repositories.LoanEventOutboxRepository;
+import app.domain.model.Book;
+import app.domain.model.Customer;
+import app.domain.port.input.TransactionUseCase;
+import app.domain.port.output.BookRepositoryPort;
+import app.domain.port.output.CustomerRepositoryPort;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * A borrow and a return through the outbox to a real topic. The relay's schedule is pushed out of the
+ * way, so each test decides when it runs, and its batches are small, so a few rows fill one.
+ */
+@SpringBootTest(properties = {"library.events.enabled=true", "library.events.relay.delay=PT1H",
+        "library.events.relay.batch-size=3"})
+@EmbeddedKafka(partitions = 1, bootstrapServersProperty = "spring.kafka.bootstrap-servers")
+@Tag("integration")
+class LoanEventRelayIT {
+
+    private static final String TOPIC = "library.loans";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+    @Autowired
+    private TransactionUseCase transactionUseCase;
+    @Autowired
+    private BookRepositoryPort bookRepositoryPort;
+    @Autowired
+    private CustomerRepositoryPort customerRepositoryPort;
+    @Autowired
+    private LoanEventOutboxRepository outboxRepository;
+    @Autowired
+    private LoanEventRelay relay;
+
+    @Test
+    void aLoanIsRecordedWithItsEventsAndTheRelayPublishesThemInOrder() {
+        Customer customer = new Customer(UUID.randomUUID(), "John Doe", "john.doe@example.com", true);
+        customerRepositoryPort.saveCustomer(customer);
+        Book book = new Book(UUID.randomUUID(), "Clean Code", "Robert C. Martin", 2008, true, LocalDate.now());
+        bookRepositoryPort.saveBook(book);
+
+        transactionUseCase.borrowBook(customer.getCustomerId(), book.getBookId());
+        transactionUseCase.returnBook(book.getBookId());
+
+        // Committed with the loan, and nothing sent yet.
+        assertThat(outboxRepository.findAll()).extracting("type")
+                .containsExactly(LoanEvent.BORROWED, LoanEvent.RETURNED);
+
+        relay.drain();
+
+        assertThat(outboxRepository.count()).isZero();
+        assertThat(relay.pending()).isZero();
+        try (Consumer<String, LoanEvent> consumer = topicReader()) {
+            List<ConsumerRecord<String, LoanEvent>> seen = new ArrayList<>();
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200)).forEach(seen::add);
+                assertThat(seen).filteredOn(record -> record.key().equals(book.getBookId().toString()))
+                        .extracting(record -> record.value().type())
+                        .containsExactly(LoanEvent.BORROWED, LoanEvent.RETURNED);
+            });
+        }
+    }
+
+    @Test
+    void aBookBackingOffWithMoreRowsThanABatchDoesNotHoldUpTheBooksBehindIt() {
+        UUID stuck = UUID.randomUUID();
+        UUID healthy = UUID.randomUUID();
+        Instant later = Instant.now().plus(Duration.ofHours(1));
+        List<LoanEventOutboxEntity> waiting = IntStream.range(0, 5)
+                .mapToObj(i -> row(stuck, i == 0 ? later : null))
+                .toList();
+        outboxRepository.saveAll(waiting);
+        outboxRepository.save(row(healthy, null));
+
+        relay.drain();
+
+        assertThat(outboxRepository.findAll()).extracting(LoanEventOutboxEntity::getBookId)
+                .hasSize(5)
+                .containsOnly(stuck);
+        try (Consumer<String, LoanEvent> consumer = topicReader()) {
+            List<ConsumerRecord<String, LoanEvent>> seen = new ArrayList<>();
+            await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+                KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200)).forEach(seen::add);
+                assertThat(seen).extracting(ConsumerRecord::key).contains(healthy.toString())
+                        .doesNotContain(stuck.toString());
+            });
+        }
+    }
+
+    /** A borrow of the given book, put off until {@code nextAttemptAt} when that is set. */
+    private static LoanEventOutboxEntity row(UUID bookId, Instant nextAttemptAt) {
+        return LoanEventOutboxEntity.builder()
+                .type(LoanEvent.BORROWED)
+                .customerId(UUID.randomUUID())
+                .bookId(bookId)
+                .bookTitle("Book " + bookId)
+                .occurredAt(Instant.now())
+                .attempts(nextAttemptAt == null ? 0 : 1)
+                .nextAttemptAt(nextAttemptAt)
+                .build();
+    }
+
+    /** A reader of the whole topic from the start, in the binary format the relay writes by default. */
+    private Consumer<String, LoanEvent> topicReader() {
+        DefaultKafkaConsumerFactory<String, LoanEvent> factory = new DefaultKafkaConsumerFactory<>(
+                KafkaTestUtils.consumerProps("loan-event-reader", "false", broker),
+                new StringDeserializer(), (topic, data) -> LoanEventWireFormat.decode(data));
+        Consumer<String, LoanEvent> consumer = factory.createConsumer();
+        consumer.subscribe(List.of(TOPIC));
+        return consumer;
+    }
+}
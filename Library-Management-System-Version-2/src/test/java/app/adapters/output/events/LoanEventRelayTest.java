@@ -0,0 +1,191 @@
+package app.adapters.output.events;
+
+import app.adapters.output.entity.LoanEventOutboxEntity;
+import app.adapters.output.repositories.LoanEventOutboxRepository;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/** The relay against a mocked table and producer, with no transaction around it and a fixed clock. */
+@ExtendWith(MockitoExtension.class)
+@Tag("unit")
+class LoanEventRelayTest {
+
+    private static final String TOPIC = "library.loans";
+    private static final Instant NOW = Instant.parse("2026-10-01T10:00:00Z");
+    private static final UUID DUNE = UUID.randomUUID();
+    private static final UUID EMMA = UUID.randomUUID();
+
+    @Mock
+    private LoanEventOutboxRepository outboxRepository;
+    @Mock
+    private KafkaTemplate<String, LoanEvent> kafkaTemplate;
+
+    private LoanEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = relay(10);
+        lenient().when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenReturn(acknowledged());
+    }
+
+    private LoanEventRelay relay(int batchSize) {
+        return new LoanEventRelay(outboxRepository, kafkaTemplate, TransactionOperations.withoutTransaction(),
+                Clock.fixed(NOW, ZoneOffset.UTC), new LoanEventRelay.Settings(TOPIC, true, batchSize,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofMinutes(5), 3));
+    }
+
+    private static CompletableFuture<SendResult<String, LoanEvent>> acknowledged() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static LoanEventOutboxEntity row(long id, UUID bookId, String type) {
+        return LoanEventOutboxEntity.builder()
+                .id(id)
+                .type(type)
+                .customerId(UUID.randomUUID())
+                .bookId(bookId)
+                .bookTitle(bookId.equals(DUNE) ? "Dune" : "Emma")
+                .occurredAt(NOW.minusSeconds(60))
+                .build();
+    }
+
+    private void outbox(LoanEventOutboxEntity... rows) {
+        when(outboxRepository.findDue(any(Instant.class), any(Limit.class))).thenReturn(List.of(rows));
+    }
+
+    private void failSendsOf(UUID bookId) {
+        when(kafkaTemplate.send(eq(TOPIC), eq(bookId.toString()), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker said no")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LoanEventOutboxEntity> savedFailures() {
+        ArgumentCaptor<List<LoanEventOutboxEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(saved.capture());
+        return saved.getValue();
+    }
+
+    @Test
+    void oneBooksEventsGoOutInTheOrderTheyHappenedAndAreDeletedOnceAcknowledged() {
+        outbox(row(1, DUNE, LoanEvent.BORROWED), row(2, EMMA, LoanEvent.BORROWED), row(3, DUNE, LoanEvent.RETURNED));
+
+        relay.drain();
+
+        InOrder order = inOrder(kafkaTemplate);
+        order.verify(kafkaTemplate).send(eq(TOPIC), eq(DUNE.toString()), any(LoanEvent.class));
+        order.verify(kafkaTemplate).send(eq(TOPIC), eq(EMMA.toString()), any(LoanEvent.class));
+        // Dune's return waits for a round of its own, after its borrow was acknowledged.
+        order.verify(kafkaTemplate).send(eq(TOPIC), eq(DUNE.toString()), any(LoanEvent.class));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(outboxRepository, never()).saveAll(anyCollection());
+    }
+
+    @Test
+    void aFailedSendBacksItsBookOffAndHoldsItsLaterEventsWithoutHoldingOtherBooks() {
+        failSendsOf(DUNE);
+        outbox(row(1, DUNE, LoanEvent.BORROWED), row(2, EMMA, LoanEvent.BORROWED), row(3, DUNE, LoanEvent.RETURNED));
+
+        relay.drain();
+
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), eq(DUNE.toString()), any());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L));
+        assertThat(savedFailures()).singleElement().satisfies(failed -> {
+            assertThat(failed.getId()).isEqualTo(1L);
+            assertThat(failed.getAttempts()).isEqualTo(1);
+            assertThat(failed.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(1));
+        });
+    }
+
+    @Test
+    void theBackoffDoublesWithEachFailureUpToTheCap() {
+        failSendsOf(DUNE);
+        failSendsOf(EMMA);
+        LoanEventOutboxEntity third = row(1, DUNE, LoanEvent.BORROWED);
+        third.setAttempts(3);
+        LoanEventOutboxEntity twentieth = row(2, EMMA, LoanEvent.BORROWED);
+        twentieth.setAttempts(19);
+        outbox(third, twentieth);
+
+        relay.drain();
+
+        assertThat(third.getNextAttemptAt()).isEqualTo(NOW.plusSeconds(8));
+        assertThat(twentieth.getNextAttemptAt()).isEqualTo(NOW.plus(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void onlyWhatIsDueNowIsAskedFor() {
+        outbox();
+
+        relay.drain();
+
+        verify(outboxRepository).findDue(NOW, Limit.of(10));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void aProducerThatCannotReachTheBrokerEndsTheBatchAfterOneTry() {
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any()))
+                .thenThrow(new TimeoutException("Topic library.loans not present in metadata after 2000 ms."));
+        outbox(row(1, DUNE, LoanEvent.BORROWED), row(2, EMMA, LoanEvent.BORROWED));
+
+        relay.drain();
+
+        verify(kafkaTemplate, times(1)).send(eq(TOPIC), anyString(), any());
+        assertThat(savedFailures()).extracting(LoanEventOutboxEntity::getId).containsExactly(1L);
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void fullBatchesAreDrainedBackToBack() {
+        relay = relay(2);
+        when(outboxRepository.findDue(any(Instant.class), any(Limit.class)))
+                .thenReturn(List.of(row(1, DUNE, LoanEvent.BORROWED), row(2, EMMA, LoanEvent.BORROWED)))
+                .thenReturn(List.of(row(3, DUNE, LoanEvent.RETURNED)));
+
+        relay.drain();
+
+        verify(outboxRepository, times(2)).findDue(NOW, Limit.of(2));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    void theBacklogLeftIsWhatTheGaugeReports() {
+        outbox();
+        when(outboxRepository.count()).thenReturn(7L);
+
+        relay.drain();
+
+        assertThat(relay.pending()).isEqualTo(7);
+    }
+}
@@ -0,0 +1,76 @@
+package app.adapters.output.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag("unit")
+class LoanEventWireFormatTest {
+
+    private static final LoanEvent BORROW = new LoanEvent(LoanEvent.BORROWED,
+            UUID.fromString("3f1a5f6e-7c2b-4a91-9d3e-5b8c1a2d4e6f"), "Ada Lovelace",
+            UUID.fromString("9c8b7a6d-5e4f-4321-8a9b-0c1d2e3f4a5b"), "Dune", "978-0-441-01359-3",
+            Instant.parse("2026-08-19T10:15:30.123456789Z"));
+
+    @Test
+    void anEventComesBackExactlyAsItWasWritten() {
+        assertThat(LoanEventWireFormat.decode(LoanEventWireFormat.encode(BORROW))).isEqualTo(BORROW);
+    }
+
+    @Test
+    void missingFieldsStayMissing() {
+        LoanEvent sparse = new LoanEvent(LoanEvent.RETURNED, null, null, BORROW.bookId(), null, null, null);
+
+        assertThat(LoanEventWireFormat.decode(LoanEventWireFormat.encode(sparse))).isEqualTo(sparse);
+    }
+
+    @Test
+    void aTypeWithoutACodeIsCarriedAsText() {
+        LoanEvent extended = new LoanEvent("LOAN_EXTENDED", BORROW.customerId(), "Zoë", BORROW.bookId(),
+                "Les Misérables", null, BORROW.occurredAt());
+
+        assertThat(LoanEventWireFormat.decode(LoanEventWireFormat.encode(extended))).isEqualTo(extended);
+    }
+
+    @Test
+    void itIsAFractionOfTheJsonItReplaces() throws Exception {
+        ObjectMapper json = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        byte[] binary = new LoanEventSerializer().serialize("library.loans", BORROW);
+
+        assertThat(binary[0]).isEqualTo(LoanEventWireFormat.VERSION);
+        assertThat(binary.length).isLessThan(json.writeValueAsBytes(BORROW).length / 2);
+    }
+
+    @Test
+    void anotherVersionOrATruncatedEventIsRefused() {
+        byte[] encoded = LoanEventWireFormat.encode(BORROW);
+        byte[] nextVersion = encoded.clone();
+        nextVersion[0] = 2;
+
+        assertThatThrownBy(() -> LoanEventWireFormat.decode(nextVersion))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("version 2");
+        assertThatThrownBy(() -> LoanEventWireFormat.decode(Arrays.copyOf(encoded, encoded.length - 4)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("cut short");
+    }
+
+    @Test
+    void aFieldTooLongForItsLengthIsASerializationError() {
+        LoanEvent huge = new LoanEvent(LoanEvent.BORROWED, null, null, BORROW.bookId(), "x".repeat(70_000), null,
+                null);
+
+        assertThatThrownBy(() -> new LoanEventSerializer().serialize("library.loans", huge))
+                .isInstanceOf(SerializationException.class);
+    }
+}
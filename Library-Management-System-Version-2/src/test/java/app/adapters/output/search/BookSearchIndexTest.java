@@ -0,0 +1,182 @@
+package app.adapters.output.search;
+
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.projection.BookAuthorRow;
+import app.adapters.output.projection.BookListingRow;
+import app.adapters.output.repositories.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * The index answers the way the search box needs: prefixes match, every word has to match, a title
+ * hit beats a description hit, and the total counts each book once however many authors match.
+ */
+@Tag("unit")
+class BookSearchIndexTest {
+
+    private final UUID hobbit = UUID.randomUUID();
+    private final UUID rings = UUID.randomUUID();
+    private final UUID gatsby = UUID.randomUUID();
+
+    private BookRepository bookRepository;
+    private CacheInvalidationBroadcaster broadcaster;
+    private BookSearchIndex index;
+
+    private static BookListingRow row(UUID id, String title, String isbn, int year, String description) {
+        return new BookListingRow(id, title, isbn, year, true, description, LocalDate.now());
+    }
+
+    @BeforeEach
+    void setUp() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        when(bookRepository.findAllListingRows()).thenReturn(List.of(
+                row(hobbit, "The Hobbit", "978-0-547-92822-7", 1937, "A hobbit goes there and back again."),
+                row(rings, "The Fellowship of the Ring", "9780547928210", 1954, "The hobbit Frodo sets out."),
+                row(gatsby, "The Great Gatsby", "9780743273565", 1925, null)));
+        when(bookRepository.findAllAuthorRows()).thenReturn(List.of(
+                new BookAuthorRow(hobbit, UUID.randomUUID(), "J.R.R. Tolkien", null),
+                new BookAuthorRow(rings, UUID.randomUUID(), "J.R.R. Tolkien", null),
+                new BookAuthorRow(rings, UUID.randomUUID(), "Christopher Tolkien", null),
+                new BookAuthorRow(gatsby, UUID.randomUUID(), "F. Scott Fitzgerald", null)));
+        broadcaster = Mockito.mock(CacheInvalidationBroadcaster.class);
+        index = new BookSearchIndex(bookRepository, broadcaster);
+        index.rebuild();
+    }
+
+    @Test
+    void aTitleMatchOutranksADescriptionMatch() {
+        Page<UUID> page = index.search("hobbit", PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly(hobbit, rings);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void matchesAPrefixSoResultsAppearWhileTyping() {
+        assertThat(index.search("gats", PageRequest.of(0, 10)).getContent()).containsExactly(gatsby);
+    }
+
+    @Test
+    void everyWordHasToMatch() {
+        assertThat(index.search("tolkien ring", PageRequest.of(0, 10)).getContent()).containsExactly(rings);
+        assertThat(index.search("tolkien gatsby", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    /** Two matching authors on one book used to return it twice from the LIKE query. */
+    @Test
+    void countsABookOnceWhateverNumberOfAuthorsMatch() {
+        Page<UUID> page = index.search("tolkien", PageRequest.of(0, 1));
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    void findsAnIsbnWrittenWithOrWithoutHyphens() {
+        assertThat(index.search("9780547928227", PageRequest.of(0, 10)).getContent()).containsExactly(hobbit);
+        assertThat(index.search("978-0-547-92821", PageRequest.of(0, 10)).getContent()).containsExactly(rings);
+    }
+
+    @Test
+    void refreshDropsABookThatIsNoLongerStored() {
+        when(bookRepository.findListingRows(anyCollection())).thenReturn(List.of());
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+
+        index.refresh(List.of(gatsby));
+
+        assertThat(index.search("gatsby", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void refreshReplacesTheTermsOfAnEditedBook() {
+        when(bookRepository.findListingRows(anyCollection()))
+                .thenReturn(List.of(row(gatsby, "Tender Is the Night", "9780684801544", 1934, null)));
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+
+        index.refresh(List.of(gatsby));
+
+        assertThat(index.search("gatsby", PageRequest.of(0, 10)).getTotalElements()).isZero();
+        assertThat(index.search("tender", PageRequest.of(0, 10)).getContent()).containsExactly(gatsby);
+    }
+
+    @Test
+    void refreshTellsTheOtherInstances() {
+        when(bookRepository.findListingRows(anyCollection())).thenReturn(List.of());
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+
+        index.refresh(List.of(gatsby));
+
+        verify(broadcaster).booksChanged(List.of(gatsby));
+    }
+
+    /** Passing a peer's change back to the topic would bounce it between the instances for ever. */
+    @Test
+    void aPeersChangeIsAppliedWithoutBeingBroadcastAgain() {
+        when(bookRepository.findListingRows(anyCollection()))
+                .thenReturn(List.of(row(gatsby, "Tender Is the Night", "9780684801544", 1934, null)));
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+
+        index.refreshFromPeer(List.of(gatsby));
+
+        assertThat(index.search("tender", PageRequest.of(0, 10)).getContent()).containsExactly(gatsby);
+        verifyNoInteractions(broadcaster);
+    }
+
+    /** What /books/discover marks as already on the shelves, kept current by the same refreshes. */
+    @Test
+    void knowsWhichIsbnsAreStockedAndFollowsEdits() {
+        assertThat(index.stockedIsbns(List.of("9780743273565", "9780547928210", "9780441013593")))
+                .containsExactlyInAnyOrder("9780743273565", "9780547928210");
+
+        when(bookRepository.findListingRows(anyCollection()))
+                .thenReturn(List.of(row(gatsby, "The Great Gatsby", "9780684801520", 1925, null)));
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+        index.refresh(List.of(gatsby));
+
+        assertThat(index.stockedIsbns(List.of("9780743273565", "9780684801520"))).containsExactly("9780684801520");
+    }
+
+    @Test
+    void isNotBuiltUntilItHasReadTheCatalogue() {
+        assertThat(new BookSearchIndex(bookRepository, broadcaster).isBuilt()).isFalse();
+        assertThat(index.isBuilt()).isTrue();
+    }
+
+    @Test
+    void aQueryOfPunctuationMatchesNothing() {
+        assertThat(index.search("  -- ", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    /** A refresh committed after the rebuild read the catalogue must not be overwritten by that older read. */
+    @Test
+    void aRefreshThatLandsWhileARebuildReadsSurvivesIt() {
+        BookListingRow retitled = row(gatsby, "Tender Is the Night", "9780684801544", 1934, null);
+        when(bookRepository.findListingRows(anyCollection())).thenReturn(List.of(retitled));
+        when(bookRepository.findAuthorRows(anyCollection())).thenReturn(List.of());
+        // The edit commits and is refreshed just after the rebuild has read the old title.
+        when(bookRepository.findAllAuthorRows()).thenAnswer(invocation -> {
+            index.refresh(List.of(gatsby));
+            return List.of();
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("tender", PageRequest.of(0, 10)).getContent()).containsExactly(gatsby);
+        assertThat(index.search("gatsby", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+}
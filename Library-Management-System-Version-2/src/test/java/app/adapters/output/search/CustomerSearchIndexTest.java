@@ -0,0 +1,143 @@
+package app.adapters.output.search;
+
+import app.adapters.output.events.CacheInvalidationBroadcaster;
+import app.adapters.output.projection.CustomerListingRow;
+import app.adapters.output.repositories.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/** The trigram index has to give the same answers the LIKE query gave: any substring, any case. */
+@Tag("unit")
+class CustomerSearchIndexTest {
+
+    private final UUID goldsmith = UUID.randomUUID();
+    private final UUID smith = UUID.randomUUID();
+    private final UUID lee = UUID.randomUUID();
+
+    private CustomerRepository customerRepository;
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = Mockito.mock(CustomerRepository.class);
+        when(customerRepository.findAllListingRows()).thenReturn(List.of(
+                new CustomerListingRow(goldsmith, "Oliver Goldsmith", "oliver@example.com", true),
+                new CustomerListingRow(smith, "Jane Smith", "jane.smith@example.com", true),
+                new CustomerListingRow(lee, "David Lee", "dlee@library.test", false)));
+        index = new CustomerSearchIndex(customerRepository, Mockito.mock(CacheInvalidationBroadcaster.class));
+        index.rebuild();
+    }
+
+    @Test
+    void findsASubstringInsideAName() {
+        assertThat(index.search("SMITH", PageRequest.of(0, 10, Sort.by("name"))).getContent())
+                .containsExactly(smith, goldsmith);
+    }
+
+    @Test
+    void findsASubstringInsideAnEmail() {
+        assertThat(index.search("library.te", PageRequest.of(0, 10)).getContent()).containsExactly(lee);
+    }
+
+    /** Trigrams alone would also accept "smi th"; the substring check is what keeps the LIKE semantics. */
+    @Test
+    void requiresTheWholeQueryNotJustItsTrigrams() {
+        assertThat(index.search("ith smi", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    /** A query under three characters would mean scanning every member; the database takes those. */
+    @Test
+    void turnsAwayQueriesTooShortForATrigram() {
+        assertThat(index.answers("ee")).isFalse();
+        assertThat(index.answers(" lee ")).isTrue();
+        assertThat(index.search("ee", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void answersNothingUntilBuilt() {
+        CustomerSearchIndex unbuilt = new CustomerSearchIndex(customerRepository,
+                Mockito.mock(CacheInvalidationBroadcaster.class));
+
+        assertThat(unbuilt.answers("smith")).isFalse();
+    }
+
+    @Test
+    void pagesWithAnExactTotal() {
+        var page = index.search("example", PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "email")));
+
+        assertThat(page.getContent()).containsExactly(smith);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshFollowsARenameAndADeletion() {
+        when(customerRepository.findListingRows(anyCollection())).thenReturn(List.of(
+                new CustomerListingRow(smith, "Jane Austen", "jane.austen@example.com", true)));
+
+        index.refresh(List.of(smith, lee));
+
+        assertThat(index.search("smith", PageRequest.of(0, 10)).getContent()).containsExactly(goldsmith);
+        assertThat(index.search("austen", PageRequest.of(0, 10)).getContent()).containsExactly(smith);
+        assertThat(index.search("david", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    /** Two reads of one member finishing out of order: the older row must not be the one left indexed. */
+    @Test
+    void aSlowReadOvertakenByALaterOneIsDropped() throws Exception {
+        CountDownLatch slowReadStarted = new CountDownLatch(1);
+        CountDownLatch laterReadApplied = new CountDownLatch(1);
+        when(customerRepository.findListingRows(anyCollection()))
+                .thenAnswer(invocation -> {
+                    slowReadStarted.countDown();
+                    assertThat(laterReadApplied.await(5, TimeUnit.SECONDS)).isTrue();
+                    return List.of(new CustomerListingRow(smith, "Jane Older", "jane@example.com", true));
+                })
+                .thenReturn(List.of(new CustomerListingRow(smith, "Jane Newer", "jane@example.com", true)));
+
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> index.refreshFromPeer(List.of(smith)));
+        assertThat(slowReadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        index.refresh(List.of(smith));
+        laterReadApplied.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+
+        assertThat(index.search("newer", PageRequest.of(0, 10)).getContent()).containsExactly(smith);
+        assertThat(index.search("older", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+
+    /** A read begun before a rebuild and applied after it would put back a row the rebuild read newer. */
+    @Test
+    void aReadBegunBeforeARebuildDoesNotOverwriteIt() throws Exception {
+        CountDownLatch slowReadStarted = new CountDownLatch(1);
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        when(customerRepository.findListingRows(anyCollection())).thenAnswer(invocation -> {
+            slowReadStarted.countDown();
+            assertThat(rebuilt.await(5, TimeUnit.SECONDS)).isTrue();
+            return List.of(new CustomerListingRow(lee, "David Older", "dlee@library.test", false));
+        });
+        when(customerRepository.findAllListingRows()).thenReturn(List.of(
+                new CustomerListingRow(lee, "David Newer", "dlee@library.test", false)));
+
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> index.refreshFromPeer(List.of(lee)));
+        assertThat(slowReadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        index.rebuild();
+        rebuilt.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+
+        assertThat(index.search("newer", PageRequest.of(0, 10)).getContent()).containsExactly(lee);
+        assertThat(index.search("older", PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+}
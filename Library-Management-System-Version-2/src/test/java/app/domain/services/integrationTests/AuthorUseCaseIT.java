@@ -1,10 +1,14 @@
 package app.domain.services.integrationTests;
 
 import app.domain.dto.CreateNewAuthor;
+import app.adapters.output.entity.AuthorEntity;
+import app.adapters.output.entity.BookEntity;
 import app.adapters.output.repositories.AuthorRepository;
 import app.domain.model.Author;
 import app.domain.port.output.AuthorRepositoryPort;
 import app.domain.port.input.AuthorUseCase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
 import jakarta.transaction.Transactional;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.jupiter.api.AfterEach;
@@ -17,8 +21,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -39,6 +47,9 @@ public class AuthorUseCaseIT {
 
     @Autowired
     private AuthorRepository authorRepository;
+
+    @Autowired
+    private EntityManager entityManager;
         @BeforeEach
         void setup() {
             authorRepository.deleteAll();
@@ -119,6 +130,65 @@ public class AuthorUseCaseIT {
             AssertionsForClassTypes.assertThat(authorsPage.getTotalElements()).isEqualTo(baseCount + 3);
         }
 
+        /** The page is cut over authors, so a prolific author is one row holding every book. */
+        @Test
+        void testGetPaginatedAuthors_EachAuthorCarriesAllItsBooks() {
+            long baseCount = authorRepository.count();
+            Set<BookEntity> books = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                books.add(BookEntity.builder()
+                        .title("Invisible Cities " + i)
+                        .isbn("97801566539" + i)
+                        .publicationYear(1972)
+                        .availability(true)
+                        .createdAt(LocalDate.now())
+                        .build());
+            }
+            authorRepository.save(AuthorEntity.builder().name("Aaa Calvino").bio("Italian").books(books).build());
+            authorRepository.save(AuthorEntity.builder().name("Aab Tolstoy").bio("Russian").build());
+
+            Page<Author> first = realAuthorUseCase.getPaginatedAuthors(PageRequest.of(0, 1, Sort.by("name")));
+            Page<Author> second = realAuthorUseCase.getPaginatedAuthors(PageRequest.of(1, 1, Sort.by("name")));
+
+            assertThat(first.getContent()).extracting(Author::getName).containsExactly("Aaa Calvino");
+            assertThat(first.getContent().getFirst().getBooks()).hasSize(3);
+            assertThat(second.getContent()).extracting(Author::getName).containsExactly("Aab Tolstoy");
+            AssertionsForClassTypes.assertThat(first.getTotalElements()).isEqualTo(baseCount + 2);
+        }
+
+        /** Two matching books must not make an author count twice or fill two rows of a page. */
+        @Test
+        void testSearchAuthors_CountsAnAuthorOnceWhateverNumberOfBooksMatch() {
+            Set<BookEntity> books = new HashSet<>();
+            for (int i = 0; i < 2; i++) {
+                books.add(BookEntity.builder()
+                        .title("Zyzzyva Tales " + i)
+                        .isbn("97800000000" + i)
+                        .publicationYear(2001)
+                        .availability(true)
+                        .createdAt(LocalDate.now())
+                        .build());
+            }
+            authorRepository.save(AuthorEntity.builder().name("Story Teller").bio("bio").books(books).build());
+
+            Page<Author> result = realAuthorUseCase.searchAuthors("zyzzyva", PageRequest.of(0, 10));
+
+            assertThat(result.getContent()).hasSize(1);
+            AssertionsForClassTypes.assertThat(result.getTotalElements()).isEqualTo(1);
+        }
+
+        /**
+         * Guards the setting the author pages rely on: a paged fetch join has to fail rather than
+         * quietly load every author and page in memory.
+         */
+        @Test
+        void pagedFetchJoin_IsRejectedRatherThanPagedInMemory() {
+            assertThrows(PersistenceException.class, () -> entityManager
+                    .createQuery("SELECT a FROM AuthorEntity a LEFT JOIN FETCH a.books", AuthorEntity.class)
+                    .setMaxResults(1)
+                    .getResultList());
+        }
+
         @Test
         void testSearchAuthors_Success() {
 
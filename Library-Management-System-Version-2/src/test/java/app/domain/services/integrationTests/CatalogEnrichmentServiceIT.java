@@ -0,0 +1,97 @@
+package app.domain.services.integrationTests;
+
+import app.domain.dto.CreateNewAuthor;
+import app.domain.dto.CreateNewBook;
+import app.domain.model.Book;
+import app.domain.port.input.BookUseCase;
+import app.domain.port.output.BookCatalogPort;
+import app.domain.services.CatalogEnrichmentService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Opening a book queues its blurb rather than fetching it, and a drain fills it in later. The catalogue
+ * is stubbed, and the drain is started by hand: the test configuration puts the scheduled one a day off.
+ */
+@SpringBootTest(properties = {
+        "library.catalog.enrichment.enabled=true",
+        "library.catalog.enrichment.lookups-per-second=100",
+})
+@Tag("integration")
+class CatalogEnrichmentServiceIT {
+
+    @Autowired
+    private CatalogEnrichmentService catalogEnrichmentService;
+    @Autowired
+    private BookUseCase bookUseCase;
+    @MockitoBean
+    private BookCatalogPort bookCatalogPort;
+
+    /** A stocked book with an ISBN and no blurb. */
+    private Book bookWithoutBlurb(String title, String isbn) {
+        return bookUseCase.createNewBook(new CreateNewBook(title, isbn, 1999,
+                List.of(new CreateNewAuthor("Enrichment Author", ""))));
+    }
+
+    /** What Open Library would answer for an ISBN. */
+    private void catalogueHas(String isbn, String description) {
+        when(bookCatalogPort.findByIsbn(isbn)).thenReturn(Optional.of(
+                new CreateNewBook("Any", isbn, 1999, description, List.of())));
+    }
+
+    @Test
+    void openingABookQueuesItOnceAndTheDrainWritesTheBlurb() {
+        Book book = bookWithoutBlurb("Queued Once", "9790000000011");
+        catalogueHas("9790000000011", "Found later.");
+
+        assertThat(catalogEnrichmentService.requestDescription(book)).isTrue();
+        assertThat(catalogEnrichmentService.requestDescription(book)).isFalse();
+        assertThat(catalogEnrichmentService.queued()).isEqualTo(1);
+        // Nothing on the reader's request: the catalogue is not asked until the drain.
+        verifyNoInteractions(bookCatalogPort);
+
+        catalogEnrichmentService.drain();
+
+        assertThat(catalogEnrichmentService.queued()).isZero();
+        assertThat(bookUseCase.searchById(book.getBookId()).orElseThrow().getDescription()).isEqualTo("Found later.");
+        verify(bookCatalogPort, times(1)).findByIsbn("9790000000011");
+    }
+
+    @Test
+    void aBlurbWrittenWhileQueuedIsKept() {
+        Book book = bookWithoutBlurb("Edited Meanwhile", "9790000000012");
+        catalogueHas("9790000000012", "From the catalogue.");
+        catalogEnrichmentService.requestDescription(book);
+
+        book.setDescription("From the librarian.");
+        bookUseCase.updateBook(book.getBookId(), book);
+        catalogEnrichmentService.drain();
+
+        assertThat(bookUseCase.searchById(book.getBookId()).orElseThrow().getDescription())
+                .isEqualTo("From the librarian.");
+    }
+
+    @Test
+    void aBookWithABlurbOrWithoutAnIsbnIsNotQueued() {
+        Book described = bookWithoutBlurb("Already Described", "9790000000013");
+        described.setDescription("Written by hand.");
+        Book noIsbn = new Book();
+        noIsbn.setTitle("No Isbn");
+
+        assertThat(catalogEnrichmentService.requestDescription(described)).isFalse();
+        assertThat(catalogEnrichmentService.requestDescription(noIsbn)).isFalse();
+        assertThat(catalogEnrichmentService.queued()).isZero();
+    }
+}
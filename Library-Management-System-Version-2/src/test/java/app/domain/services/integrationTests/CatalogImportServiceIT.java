@@ -0,0 +1,73 @@
+package app.domain.services.integrationTests;
+
+import app.domain.dto.CreateNewAuthor;
+import app.domain.dto.CreateNewBook;
+import app.domain.model.Author;
+import app.domain.model.Book;
+import app.domain.model.CatalogCandidate;
+import app.domain.port.input.AuthorUseCase;
+import app.domain.port.input.BookUseCase;
+import app.domain.services.CatalogImportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The bulk import writes in one batch but reports exactly what adding each candidate in turn would. */
+@SpringBootTest
+@Tag("integration")
+class CatalogImportServiceIT {
+    @Autowired
+    private CatalogImportService catalogImportService;
+    @Autowired
+    private BookUseCase bookUseCase;
+    @Autowired
+    private AuthorUseCase authorUseCase;
+
+    @Test
+    void importCandidates_SkipsStockedAndRepeatedBooks() {
+        bookUseCase.createNewBook(new CreateNewBook("Already Stocked", "9990000000001", 2001,
+                List.of(new CreateNewAuthor("Batch Author", ""))));
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importCandidates(List.of(
+                new CatalogCandidate("Already Stocked", "9990000000002", 2001, List.of("Batch Author"), null),
+                new CatalogCandidate("Batch One", "9990000000003", 2002, List.of("Batch Author"), null),
+                new CatalogCandidate("Batch One", "9990000000004", 2002, List.of(), null),
+                new CatalogCandidate("Batch Two", "9990000000003", 2003, List.of(), null),
+                new CatalogCandidate("Batch Three", null, 2003, List.of(), null)));
+
+        assertThat(summary.imported()).containsExactly("Batch One");
+        assertThat(summary.skipped()).containsExactly(
+                "Already Stocked (Book with the same title already exists.)",
+                "Batch One (Book with the same title already exists.)",
+                "Batch Two (Book with the same isbn already exists.)",
+                "null (incomplete)");
+    }
+
+    @Test
+    void importCandidates_LinksExistingAndNewAuthors() {
+        authorUseCase.createNewAuthor(new CreateNewAuthor("Known Writer", "on file"));
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importCandidates(List.of(
+                new CatalogCandidate("Joint Work", "9990000000011", 2010,
+                        List.of("Known Writer", "Fresh Writer"), null),
+                new CatalogCandidate("Solo Work", "9990000000012", 2011, List.of("Fresh Writer"), null),
+                new CatalogCandidate("Anonymous Work", "9990000000013", 2012, null, null)));
+
+        assertThat(summary.imported()).containsExactly("Joint Work", "Solo Work", "Anonymous Work");
+        Book joint = bookUseCase.searchBookByTitle("Joint Work").orElseThrow();
+        assertThat(joint.getAuthors()).extracting(Author::getName)
+                .containsExactlyInAnyOrder("Known Writer", "Fresh Writer");
+        assertThat(authorUseCase.getAuthorByName("Known Writer").orElseThrow().getBio()).isEqualTo("on file");
+        assertThat(authorUseCase.getAuthorByName("Fresh Writer").orElseThrow().getBooks())
+                .extracting(Book::getTitle)
+                .containsExactlyInAnyOrder("Joint Work", "Solo Work");
+        assertThat(bookUseCase.searchBookByTitle("Anonymous Work").orElseThrow().getAuthors())
+                .extracting(Author::getName)
+                .containsExactly("Unknown author");
+    }
+}
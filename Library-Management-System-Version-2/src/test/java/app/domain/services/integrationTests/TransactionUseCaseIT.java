@@ -11,6 +11,9 @@ import app.domain.port.output.BookRepositoryPort;
 import app.domain.port.output.CustomerRepositoryPort;
 import app.domain.port.output.TransactionRepositoryPort;
 import app.domain.port.input.TransactionUseCase;
+import app.domain.services.ActiveLoanReconciliationService;
+import app.domain.services.TransactionService;
+import app.infrastructure.exceptions.BorrowNotAllowedException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -22,8 +25,16 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,6 +57,8 @@ public class TransactionUseCaseIT {
     private BookRepository bookRepository;
     @Autowired
     private CustomerRepository customerRepository;
+    @Autowired
+    private ActiveLoanReconciliationService activeLoanReconciliationService;
 
     @Test
     void testCreateNewTransaction_Integration() {
@@ -155,6 +168,112 @@ public class TransactionUseCaseIT {
         assertThat(actual.getBook().getAuthors()).isEqualTo(transaction.getBook().getAuthors());
         assertThat(actual.getBook().getPublicationYear()).isEqualTo(transaction.getBook().getPublicationYear());
     }
+    /** The availability check is the claim itself, so two members racing for one copy cannot both get it. */
+    @Test
+    void testBorrowBook_ConcurrentBorrowsOfOneCopy_OnlyOneWins() throws Exception {
+        Customer first = new Customer(UUID.randomUUID(), "First Reader", "first.reader@example.com", true);
+        Customer second = new Customer(UUID.randomUUID(), "Second Reader", "second.reader@example.com", true);
+        customerRepositoryPort.saveCustomer(first);
+        customerRepositoryPort.saveCustomer(second);
+        Book book = new Book(UUID.randomUUID(), "Contended Copy", "9990000000021", 2008, true, LocalDate.now());
+        bookRepositoryPort.saveBook(book);
+
+        long wins = racingBorrows(List.of(
+                () -> transactionUseCase.borrowBook(first.getCustomerId(), book.getBookId()),
+                () -> transactionUseCase.borrowBook(second.getCustomerId(), book.getBookId())));
+
+        assertThat(wins).isEqualTo(1);
+        assertThat(transactionRepository.findByBookBookId(book.getBookId())).hasSize(1);
+        assertThat(bookRepositoryPort.searchBookById(book.getBookId()).get().isAvailable()).isFalse();
+    }
+
+    /** The member's counter is taken conditionally too, so racing for the last slot cannot overshoot the limit. */
+    @Test
+    void testBorrowBook_ConcurrentBorrowsForTheLastSlot_OnlyOneWins() throws Exception {
+        Customer reader = new Customer(UUID.randomUUID(), "Busy Reader", "busy.reader@example.com", true);
+        customerRepositoryPort.saveCustomer(reader);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < TransactionService.MAX_ACTIVE_LOANS + 1; i++) {
+            Book book = new Book(UUID.randomUUID(), "Slot Book " + i, "99900000001" + i, 2008, true, LocalDate.now());
+            bookRepositoryPort.saveBook(book);
+            books.add(book);
+        }
+        for (int i = 0; i < TransactionService.MAX_ACTIVE_LOANS - 1; i++) {
+            transactionUseCase.borrowBook(reader.getCustomerId(), books.get(i).getBookId());
+        }
+
+        long wins = racingBorrows(List.of(
+                () -> transactionUseCase.borrowBook(reader.getCustomerId(), books.get(books.size() - 2).getBookId()),
+                () -> transactionUseCase.borrowBook(reader.getCustomerId(), books.getLast().getBookId())));
+
+        assertThat(wins).isEqualTo(1);
+        assertThat(transactionRepository.countByCustomerCustomerIdAndReturnDateIsNull(reader.getCustomerId()))
+                .isEqualTo(TransactionService.MAX_ACTIVE_LOANS);
+        assertThat(customerRepository.findById(reader.getCustomerId()).orElseThrow().getActiveLoans())
+                .isEqualTo(TransactionService.MAX_ACTIVE_LOANS);
+    }
+
+    @Test
+    void testReturnBook_GivesTheLoanSlotBack() {
+        Customer reader = new Customer(UUID.randomUUID(), "Returning Reader", "returning.reader@example.com", true);
+        customerRepositoryPort.saveCustomer(reader);
+        Book book = new Book(UUID.randomUUID(), "Round Trip", "9990000000031", 2008, true, LocalDate.now());
+        bookRepositoryPort.saveBook(book);
+
+        transactionUseCase.borrowBook(reader.getCustomerId(), book.getBookId());
+        assertThat(customerRepository.findById(reader.getCustomerId()).orElseThrow().getActiveLoans()).isEqualTo(1);
+
+        transactionUseCase.returnBook(book.getBookId());
+        assertThat(customerRepository.findById(reader.getCustomerId()).orElseThrow().getActiveLoans()).isZero();
+    }
+
+    /** A loan written around borrowBook leaves the counter behind until the reconciliation puts it right. */
+    @Test
+    void testReconcile_RebuildsTheCounterFromOpenLoans() {
+        Customer reader = new Customer(UUID.randomUUID(), "Drifted Reader", "drifted.reader@example.com", true);
+        customerRepositoryPort.saveCustomer(reader);
+        Book book = new Book(UUID.randomUUID(), "Side Door", "9990000000041", 2008, false, LocalDate.now());
+        bookRepositoryPort.saveBook(book);
+        transactionRepositoryPort.saveTransaction(
+                new Transaction(LocalDate.now(), LocalDate.now().plusWeeks(2), reader, book));
+        assertThat(customerRepository.findById(reader.getCustomerId()).orElseThrow().getActiveLoans()).isZero();
+
+        activeLoanReconciliationService.reconcile();
+
+        assertThat(customerRepository.findById(reader.getCustomerId()).orElseThrow().getActiveLoans()).isEqualTo(1);
+    }
+
+    /** Starts the borrows together and counts how many went through; a refusal is the other outcome. */
+    private long racingBorrows(List<Callable<Transaction>> borrows) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(borrows.size());
+        try {
+            List<Future<Boolean>> attempts = new ArrayList<>();
+            for (Callable<Transaction> borrow : borrows) {
+                attempts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        borrow.call();
+                        return true;
+                    } catch (BorrowNotAllowedException refused) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            long wins = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(30, TimeUnit.SECONDS)) {
+                    wins++;
+                }
+            }
+            return wins;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     @AfterEach
     void tearDown() {
         transactionRepository.deleteAll();
@@ -0,0 +1,205 @@
+package app.domain.services.unitTests;
+
+import app.domain.dto.CreateNewBook;
+import app.domain.model.Book;
+import app.domain.model.CatalogCandidate;
+import app.domain.port.input.BookUseCase;
+import app.domain.port.output.BookCatalogPort;
+import app.domain.port.output.BookRepositoryPort;
+import app.domain.services.CatalogImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The ISBN import looks its chunks up side by side but writes in the order given, so what it reports
+ * is what a one-at-a-time import would have. The catalogue and the writes are mocked.
+ */
+@Tag("unit")
+class CatalogImportServiceTest {
+
+    private BookCatalogPort bookCatalogPort;
+    private BookUseCase bookUseCase;
+    private CatalogImportService catalogImportService;
+
+    /** Chunks in flight right now, and the most there ever were. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger mostInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        bookCatalogPort = mock(BookCatalogPort.class);
+        bookUseCase = mock(BookUseCase.class);
+        // Chunks of two, two at a time, and a rate too high to slow the test down.
+        catalogImportService = new CatalogImportService(bookCatalogPort, bookUseCase,
+                mock(BookRepositoryPort.class), 2, 2, 1_000, 10);
+
+        Set<String> stockedTitles = new HashSet<>();
+        when(bookUseCase.createNewBook(any())).thenAnswer(invocation -> {
+            CreateNewBook book = invocation.getArgument(0);
+            if (!stockedTitles.add(book.getTitle())) {
+                throw new IllegalArgumentException("Book with this title already exists");
+            }
+            return new Book();
+        });
+    }
+
+    /** The catalogue knows every ISBN but "unknown"; ISBNs 2 and 4 are editions of one title. */
+    private static Map<String, CreateNewBook> catalogue(Collection<String> isbns) {
+        Map<String, CreateNewBook> found = new LinkedHashMap<>();
+        for (String isbn : isbns) {
+            if (!"unknown".equals(isbn)) {
+                String title = "2".equals(isbn) || "4".equals(isbn) ? "Same Title" : "Title " + isbn;
+                found.put(isbn, new CreateNewBook(title, isbn, 2000, List.of()));
+            }
+        }
+        return found;
+    }
+
+    @Test
+    void importAll_LooksUpChunksConcurrentlyAndReportsInTheOrderGiven() {
+        // The first two chunks only get past this latch if they are in flight together.
+        CountDownLatch together = new CountDownLatch(2);
+        when(bookCatalogPort.findByIsbns(any())).thenAnswer(invocation -> {
+            mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                together.countDown();
+                together.await(5, TimeUnit.SECONDS);
+                return catalogue(invocation.getArgument(0));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        CatalogImportService.ImportSummary summary =
+                catalogImportService.importAll(List.of("1", "2", "3", "4", "unknown", "5"));
+
+        assertThat(summary.imported()).containsExactly("Title 1", "Same Title", "Title 3", "Title 5");
+        assertThat(summary.skipped()).containsExactly(
+                "Same Title (Book with this title already exists)", "unknown (not found)");
+        verify(bookCatalogPort, times(3)).findByIsbns(any());
+        assertThat(mostInFlight).hasValue(2);
+    }
+
+    @Test
+    void importAll_LooksUpASmallImportInOneCallOnTheCallersThread() {
+        Thread caller = Thread.currentThread();
+        when(bookCatalogPort.findByIsbns(any())).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread()).isSameAs(caller);
+            return catalogue(invocation.getArgument(0));
+        });
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importAll(List.of("1", "1"));
+
+        assertThat(summary.imported()).containsExactly("Title 1");
+        assertThat(summary.skipped()).containsExactly("Title 1 (Book with this title already exists)");
+        verify(bookCatalogPort, times(1)).findByIsbns(List.of("1"));
+    }
+
+    @Test
+    void importAll_ReportsAChunkWhoseLookupFailedAsNotFound() {
+        when(bookCatalogPort.findByIsbns(any())).thenAnswer(invocation -> {
+            Collection<String> chunk = invocation.getArgument(0);
+            if (chunk.contains("3")) {
+                throw new IllegalStateException("Open Library is down");
+            }
+            return catalogue(chunk);
+        });
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importAll(List.of("1", "3", "5", "6"));
+
+        // "1" shared its chunk with "3", so it is lost with it; the other chunk is unaffected.
+        assertThat(summary.imported()).containsExactly("Title 5", "Title 6");
+        assertThat(summary.skipped()).containsExactly("1 (not found)", "3 (not found)");
+    }
+
+    @Test
+    void importAll_ReportsASmallImportWhoseLookupFailedAsNotFound() {
+        when(bookCatalogPort.findByIsbns(any())).thenThrow(new IllegalStateException("Open Library is down"));
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importAll(List.of("1"));
+
+        assertThat(summary.imported()).isEmpty();
+        assertThat(summary.skipped()).containsExactly("1 (not found)");
+    }
+
+    @Test
+    void importAll_ReportsANullIsbnAsNotFoundAndImportsTheRest() {
+        when(bookCatalogPort.findByIsbns(any())).thenAnswer(invocation -> catalogue(invocation.getArgument(0)));
+
+        CatalogImportService.ImportSummary summary = catalogImportService.importAll(Arrays.asList("1", null));
+
+        assertThat(summary.imported()).containsExactly("Title 1");
+        assertThat(summary.skipped()).containsExactly("null (not found)");
+        verify(bookCatalogPort, times(1)).findByIsbns(List.of("1"));
+    }
+
+    @Test
+    void importAll_SmallImportsRunningAtOnceShareTheLookupLimit() {
+        // One chunk in flight at a time, however many imports there are.
+        CatalogImportService oneAtATime = new CatalogImportService(bookCatalogPort, bookUseCase,
+                mock(BookRepositoryPort.class), 2, 1, 1_000, 10);
+        when(bookCatalogPort.findByIsbns(any())).thenAnswer(invocation -> {
+            mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+                return catalogue(invocation.getArgument(0));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        try (ExecutorService librarians = Executors.newFixedThreadPool(3)) {
+            for (String isbn : List.of("1", "3", "5")) {
+                librarians.submit(() -> oneAtATime.importAll(List.of(isbn)));
+            }
+        }
+
+        verify(bookCatalogPort, times(3)).findByIsbns(any());
+        assertThat(mostInFlight).hasValue(1);
+    }
+
+    /** A row the database refuses fails its batched save; the rest of the chunk is saved one by one. */
+    @Test
+    void importCandidates_SavesARefusedChunkABookAtATime() {
+        BookRepositoryPort bookRepositoryPort = mock(BookRepositoryPort.class);
+        CatalogImportService importer = new CatalogImportService(bookCatalogPort, bookUseCase,
+                bookRepositoryPort, 2, 2, 1_000, 10);
+        doThrow(new IllegalStateException("value too long for column TITLE"))
+                .when(bookRepositoryPort).saveBooks(anyList());
+        doThrow(new IllegalStateException("value too long for column TITLE"))
+                .when(bookRepositoryPort).saveBook(argThat(book -> "Too Long".equals(book.getTitle())));
+
+        CatalogImportService.ImportSummary summary = importer.importCandidates(List.of(
+                new CatalogCandidate("First", "1", 2001, List.of("A"), null),
+                new CatalogCandidate("Too Long", "2", 2002, List.of("B"), null),
+                new CatalogCandidate("Third", "3", 2003, List.of("A"), null)));
+
+        assertThat(summary.imported()).containsExactly("First", "Third");
+        assertThat(summary.skipped()).containsExactly("Too Long (could not be saved)");
+        verify(bookRepositoryPort, times(3)).saveBook(any(Book.class));
+    }
+}
@@ -0,0 +1,37 @@
+package app.domain.services.unitTests;
+
+import app.domain.services.TokenBucket;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Timed loosely on purpose: the bounds only need to tell "straight away" from "had to wait". */
+@Tag("unit")
+class TokenBucketTest {
+
+    @Test
+    void aFullBucketHandsOutItsBurstAtOnceAndThenKeepsToTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        long start = System.nanoTime();
+        bucket.acquire();
+        bucket.acquire();
+        long burst = System.nanoTime() - start;
+        bucket.acquire();
+        long third = System.nanoTime() - start;
+
+        assertThat(burst).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+        // A tenth of a second per token at ten a second, less whatever refilled during the burst.
+        assertThat(third).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void rejectsARateOrBurstThatCouldNeverHandOutAToken() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
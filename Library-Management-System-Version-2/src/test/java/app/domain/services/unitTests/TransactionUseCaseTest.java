@@ -26,7 +26,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,7 +33,6 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -145,8 +143,7 @@ class TransactionUseCaseTest {
         void testReturnBook_NoTransactionFound_ThrowsException() {
             Book book = new Book(UUID.randomUUID(), null, null, 0, false, null);
 
-            when(transactionRepositoryPort.getTransactionsForBook(argThat(b ->
-                    b.getBookId().equals(book.getBookId())))).thenReturn(Collections.emptyList());
+            when(transactionRepositoryPort.findActiveLoanForBook(book.getBookId())).thenReturn(Optional.empty());
 
             assertThrows(EntityNotFoundException.class, () -> transactionService.returnBook(book.getBookId()));
 
@@ -160,15 +157,34 @@ class TransactionUseCaseTest {
             Customer customer = new Customer(UUID.randomUUID(), "John Doe", "john.doe@example.com", true);
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, false, null); // Book is already borrowed
             Transaction transaction = new Transaction(LocalDate.now().minusDays(5), LocalDate.now().plusDays(5), customer, book);
-            when(transactionRepositoryPort.getTransactionsForBook(any(Book.class))).thenReturn(List.of(transaction));
+            when(transactionRepositoryPort.findActiveLoanForBook(bookId)).thenReturn(Optional.of(transaction));
+            when(transactionRepositoryPort.closeLoan(transaction.getTransactionId(), LocalDate.now())).thenReturn(true);
 
             String transactionId = transactionService.returnBook(bookId);
 
             assertThat(transactionId).isEqualTo(transaction.getTransactionId().toString());
             assertThat(transaction.getReturnDate()).isEqualTo(LocalDate.now());
             assertThat(transaction.getBook().isAvailable()).isTrue();
-            verify(transactionRepositoryPort).updateTransaction(transaction);
-            verify(bookRepositoryPort).updateBook(bookId, transaction.getBook());
+            // Two writes and no history: the open loan is closed and the book shelved, each in one UPDATE.
+            verify(bookRepositoryPort).releaseBook(bookId);
+            verify(transactionRepositoryPort, never()).getTransactionsForBook(any(Book.class));
+            verify(transactionRepositoryPort, never()).updateTransaction(any(Transaction.class));
+            verify(bookRepositoryPort, never()).updateBook(any(UUID.class), any(Book.class));
+        }
+
+        /** A return that loses the race to another finds the loan closed and changes nothing. */
+        @Test
+        void testReturnBook_AlreadyClosedConcurrently_ThrowsException() {
+            UUID bookId = UUID.randomUUID();
+            Customer customer = new Customer(UUID.randomUUID(), "John Doe", "john.doe@example.com", true);
+            Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, false, null);
+            Transaction transaction = new Transaction(LocalDate.now().minusDays(5), LocalDate.now().plusDays(5), customer, book);
+            when(transactionRepositoryPort.findActiveLoanForBook(bookId)).thenReturn(Optional.of(transaction));
+            when(transactionRepositoryPort.closeLoan(transaction.getTransactionId(), LocalDate.now())).thenReturn(false);
+
+            assertThrows(EntityNotFoundException.class, () -> transactionService.returnBook(bookId));
+
+            verifyNoInteractions(bookRepositoryPort, notificationPort, loanEventPort);
         }
 
         @Test
@@ -192,14 +208,17 @@ class TransactionUseCaseTest {
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
             Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", true);
 
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.of(customer));
-            when(transactionRepositoryPort.countActiveLoans(customerId))
-                    .thenReturn((long) TransactionService.MAX_ACTIVE_LOANS);
+            when(customerRepositoryPort.reserveLoanSlot(customerId, TransactionService.MAX_ACTIVE_LOANS))
+                    .thenReturn(false);
+            when(transactionRepositoryPort.countActiveLoans(customerId)).thenReturn(4L);
 
-            assertThrows(BorrowNotAllowedException.class,
+            BorrowNotAllowedException refusal = assertThrows(BorrowNotAllowedException.class,
                     () -> transactionService.borrowBook(customerId, bookId));
 
+            assertThat(refusal.getMessage()).startsWith("You already have 4 books out. The limit is 3 ");
             verify(transactionRepositoryPort, never()).saveTransaction(any(Transaction.class));
             assertThat(book.isAvailable()).isTrue();
         }
@@ -211,10 +230,11 @@ class TransactionUseCaseTest {
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
             Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", true);
 
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.of(customer));
-            when(transactionRepositoryPort.countActiveLoans(customerId))
-                    .thenReturn((long) TransactionService.MAX_ACTIVE_LOANS - 1);
+            when(customerRepositoryPort.reserveLoanSlot(customerId, TransactionService.MAX_ACTIVE_LOANS))
+                    .thenReturn(true);
 
             Transaction transaction = transactionService.borrowBook(customerId, bookId);
 
@@ -267,6 +287,7 @@ class TransactionUseCaseTest {
             UUID customerId = UUID.randomUUID();
             UUID bookId = UUID.randomUUID();
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.empty());
 
@@ -293,6 +314,7 @@ class TransactionUseCaseTest {
             UUID bookId = UUID.randomUUID();
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
             Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", false);
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.of(customer));
 
@@ -306,8 +328,11 @@ class TransactionUseCaseTest {
             UUID bookId = UUID.randomUUID();
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
             Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", true);
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.of(customer));
+            when(customerRepositoryPort.reserveLoanSlot(customerId, TransactionService.MAX_ACTIVE_LOANS))
+                    .thenReturn(true);
 
             Transaction transaction = transactionService.borrowBook(customerId, bookId);
 
@@ -321,6 +346,9 @@ class TransactionUseCaseTest {
             verify(transactionRepositoryPort).saveTransaction(transaction);
 
             assertThat(book.isAvailable()).isFalse();
+            // The claim already stored the book as out; nothing rewrites the row afterwards.
+            verify(bookRepositoryPort).claimBook(bookId);
+            verify(bookRepositoryPort, never()).updateBook(any(UUID.class), any(Book.class));
         }
 
         @Test
@@ -380,6 +408,7 @@ class TransactionUseCaseTest {
             UUID bookId = UUID.randomUUID();
             LocalDate borrowDate = LocalDate.now().plusDays(1);
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, true, null);
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.empty());
 
@@ -408,9 +437,9 @@ class TransactionUseCaseTest {
             Book book = mock(Book.class);
             Customer customer = new Customer(customerId, "John Doe", "john.doe@example.com", true);
 
+            when(bookRepositoryPort.claimBook(bookId)).thenReturn(true);
             when(bookRepositoryPort.searchBookById(bookId)).thenReturn(Optional.of(book));
             when(customerRepositoryPort.getCustomer(customerId)).thenReturn(Optional.of(customer));
-            when(book.isAvailable()).thenReturn(true);
 
             transactionService.borrowBookWithDates(customerId, bookId, borrowDate);
 
@@ -433,7 +462,7 @@ class TransactionUseCaseTest {
         void testReturnBookWithDates_NoTransactionFound_ThrowsException() {
             UUID bookId = UUID.randomUUID();
             LocalDate returnDate = LocalDate.now();
-            when(transactionRepositoryPort.getTransactionsForBook(any(Book.class))).thenReturn(Collections.emptyList());
+            when(transactionRepositoryPort.findActiveLoanForBook(bookId)).thenReturn(Optional.empty());
 
             assertThrows(EntityNotFoundException.class, () -> transactionService.returnBookWithDates(bookId, returnDate));
             verifyNoInteractions(bookRepositoryPort);
@@ -446,13 +475,14 @@ class TransactionUseCaseTest {
             Customer customer = new Customer(UUID.randomUUID(), "John Doe", "john.doe@example.com", true);
             Book book = new Book(bookId, "Clean Code", "Robert C. Martin", 2008, false, null);
             Transaction transaction = new Transaction(LocalDate.now().minusDays(5), LocalDate.now().plusDays(5), customer, book);
-            when(transactionRepositoryPort.getTransactionsForBook(any(Book.class))).thenReturn(List.of(transaction));
+            when(transactionRepositoryPort.findActiveLoanForBook(bookId)).thenReturn(Optional.of(transaction));
+            when(transactionRepositoryPort.closeLoan(transaction.getTransactionId(), returnDate)).thenReturn(true);
 
             transactionService.returnBookWithDates(bookId, returnDate);
 
             assertThat(transaction.getReturnDate()).isEqualTo(returnDate);
             assertThat(transaction.getBook().isAvailable()).isTrue();
-            verify(transactionRepositoryPort).updateTransaction(transaction);
-            verify(bookRepositoryPort).updateBook(bookId, transaction.getBook());
+            verify(bookRepositoryPort).releaseBook(bookId);
+            verify(customerRepositoryPort).releaseLoanSlot(customer.getCustomerId());
         }
     }
\ No newline at end of file
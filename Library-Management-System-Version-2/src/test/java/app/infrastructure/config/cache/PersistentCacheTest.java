@@ -0,0 +1,274 @@
+package app.infrastructure.config.cache;
+
+import app.domain.dto.CreateNewAuthor;
+import app.domain.dto.CreateNewBook;
+import app.domain.model.CatalogCandidate;
+import app.domain.model.CatalogPage;
+import app.support.MovableClock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The disk tier across restarts, each restart being a fresh cache over the same directory, on a clock
+ * the test moves so entries can age past their time to live.
+ */
+@Tag("unit")
+class PersistentCacheTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+
+    @TempDir
+    private Path directory;
+
+    private final MovableClock clock = new MovableClock();
+    private final List<PersistentCache> opened = new ArrayList<>();
+
+    /** What a backend start-up gives the cache: empty memory, and the file as the last run left it. */
+    private PersistentCache start() throws IOException {
+        return start(new CacheSettings.Spec(100, TTL, null, null));
+    }
+
+    /** As above, for a cache built as the configuration builds one with this spec, on the test's clock. */
+    private PersistentCache start(CacheSettings.Spec spec) throws IOException {
+        for (PersistentCache cache : opened) {
+            cache.close();
+        }
+        Caffeine<Object, Object> builder = CacheConfig.builder("catalogLookup", spec, true)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .executor(Runnable::run);
+        PersistentCache cache = new PersistentCache(new CaffeineCache("catalogLookup", builder.build()),
+                new CacheFile(directory.resolve("catalogLookup.cache"), spec.timeToLive(), spec.maximumWeight(),
+                        new ObjectMapper(), clock));
+        opened.add(cache);
+        return cache;
+    }
+
+    @AfterEach
+    void closeFiles() throws IOException {
+        for (PersistentCache cache : opened) {
+            cache.close();
+        }
+    }
+
+    private static CreateNewBook mockingbird() {
+        return new CreateNewBook("To Kill a Mockingbird", "9780061120084", 2006, "A classic.",
+                List.of(new CreateNewAuthor("Harper Lee", "")));
+    }
+
+    @Test
+    void entriesOfEveryCachedShapeSurviveARestart() throws IOException {
+        PersistentCache before = start();
+        before.put("9780061120084", mockingbird());
+        before.put("dune#1#20", new CatalogPage(
+                List.of(new CatalogCandidate("Dune", "9780441172719", 1965, List.of("Frank Herbert"), 11481354L)), 312));
+        before.put("9780441013593", null);
+
+        PersistentCache after = start();
+
+        CreateNewBook book = after.get("9780061120084", CreateNewBook.class);
+        assertThat(book.getTitle()).isEqualTo("To Kill a Mockingbird");
+        assertThat(book.getAuthors()).singleElement().extracting(CreateNewAuthor::getName).isEqualTo("Harper Lee");
+        assertThat(after.get("dune#1#20", CatalogPage.class).totalItems()).isEqualTo(312);
+        // A remembered miss comes back as a miss, not as nothing cached.
+        assertThat(after.get("9780441013593")).isNotNull().extracting(Cache.ValueWrapper::get).isNull();
+    }
+
+    @Test
+    void theLatestWriteWinsAndAnEvictionStaysEvicted() throws IOException {
+        PersistentCache before = start();
+        before.put("9780061120084", "first");
+        before.put("9780061120084", "second");
+        before.put("9780441013593", "gone");
+        before.evict("9780441013593");
+
+        PersistentCache after = start();
+
+        assertThat(after.get("9780061120084", String.class)).isEqualTo("second");
+        assertThat(after.get("9780441013593")).isNull();
+    }
+
+    @Test
+    void anEntryPastItsTimeToLiveIsNotReadBack() throws IOException {
+        PersistentCache before = start();
+        before.put("old", "written first");
+        clock.advance(Duration.ofHours(20));
+        before.put("new", "written later");
+        clock.advance(Duration.ofHours(5));
+
+        PersistentCache after = start();
+
+        assertThat(after.get("old")).isNull();
+        assertThat(after.get("new", String.class)).isEqualTo("written later");
+    }
+
+    /** A restart does not give what it reads back a new time to live: it goes when its write said. */
+    @Test
+    void anEntryReadBackExpiresAtItsOriginalDeadline() throws IOException {
+        PersistentCache before = start();
+        before.put("9780061120084", "cached");
+        clock.advance(Duration.ofHours(20));
+
+        PersistentCache after = start();
+        assertThat(after.get("9780061120084", String.class)).isEqualTo("cached");
+        clock.advance(Duration.ofHours(3).plusMinutes(59));
+        assertThat(after.get("9780061120084", String.class)).isEqualTo("cached");
+        clock.advance(Duration.ofMinutes(1));
+
+        assertThat(after.get("9780061120084")).isNull();
+    }
+
+    /** With an access expiry as well, reads keep an entry read back alive, but not past its write's. */
+    @Test
+    void readsDoNotKeepAnEntryReadBackPastItsOriginalDeadline() throws IOException {
+        CacheSettings.Spec search = new CacheSettings.Spec(100, Duration.ofHours(1), Duration.ofMinutes(15), null);
+        PersistentCache before = start(search);
+        before.put("dune#1#20", "page");
+        clock.advance(Duration.ofMinutes(30));
+
+        PersistentCache after = start(search);
+        for (int read = 0; read < 3; read++) {
+            assertThat(after.get("dune#1#20", String.class)).isEqualTo("page");
+            clock.advance(Duration.ofMinutes(10));
+        }
+        assertThat(after.get("dune#1#20")).isNull();
+
+        after.put("dune#1#20", "page again");
+        clock.advance(Duration.ofMinutes(16));
+        assertThat(after.get("dune#1#20")).isNull();
+    }
+
+    @Test
+    void clearingEmptiesTheFileToo() throws IOException {
+        PersistentCache before = start();
+        before.put("9780061120084", "cached");
+        before.clear();
+
+        assertThat(start().get("9780061120084")).isNull();
+    }
+
+    @Test
+    void rewritingOneKeyOverAndOverKeepsTheFileSmall() throws IOException {
+        PersistentCache cache = start();
+        String blurb = "x".repeat(200);
+        for (int i = 0; i < 5_000; i++) {
+            cache.put("9780061120084", blurb + i);
+        }
+
+        // Five thousand records of over 200 bytes would be a megabyte; compaction keeps it to a few hundred KB.
+        assertThat(Files.size(directory.resolve("catalogLookup.cache"))).isLessThan(300_000);
+        assertThat(start().get("9780061120084", String.class)).isEqualTo(blurb + 4_999);
+    }
+
+    /** Every query anyone types is a new key; once past their time to live they are garbage like any other. */
+    @Test
+    void distinctKeysPastTheirTimeToLiveDoNotGrowTheFile() throws IOException {
+        PersistentCache cache = start(new CacheSettings.Spec(100_000, Duration.ofHours(1), null, null));
+        String page = "x".repeat(200);
+        for (int i = 0; i < 5_000; i++) {
+            cache.put("query " + i + "#0#20", page);
+            clock.advance(Duration.ofSeconds(10));
+        }
+
+        // Five thousand records would be well over a megabyte; only the last hour's 360 or so are kept.
+        assertThat(Files.size(directory.resolve("catalogLookup.cache"))).isLessThan(500_000);
+        PersistentCache after = start(new CacheSettings.Spec(100_000, Duration.ofHours(1), null, null));
+        assertThat(after.get("query 4999#0#20", String.class)).isEqualTo(page);
+        assertThat(after.get("query 4000#0#20")).isNull();
+    }
+
+    /** Within their time to live, the entries on disk still weigh no more than memory could hold. */
+    @Test
+    void distinctKeysBeyondTheMaximumWeightDoNotGrowTheFile() throws IOException {
+        CacheSettings.Spec small = new CacheSettings.Spec(100, TTL, null, null);
+        PersistentCache cache = start(small);
+        String page = "x".repeat(200);
+        for (int i = 0; i < 5_000; i++) {
+            cache.put("query " + i + "#0#20", page);
+        }
+
+        assertThat(Files.size(directory.resolve("catalogLookup.cache"))).isLessThan(350_000);
+        PersistentCache after = start(small);
+        assertThat(after.get("query 4999#0#20", String.class)).isEqualTo(page);
+        assertThat(after.get("query 4899#0#20")).isNull();
+    }
+
+    /** An entry let go of for size is still in the log until compaction; evicting it must keep it gone. */
+    @Test
+    void evictingAnEntryLetGoOfForSizeKeepsItGone() throws IOException {
+        CacheSettings.Spec two = new CacheSettings.Spec(2, TTL, null, null);
+        PersistentCache before = start(two);
+        before.put("first", "a");
+        before.put("second", "b");
+        before.put("third", "c");
+        before.evict("first");
+        before.evict("third");
+
+        PersistentCache after = start(two);
+
+        assertThat(after.get("first")).isNull();
+        assertThat(after.get("second", String.class)).isEqualTo("b");
+    }
+
+    /** A crash mid-write leaves half a record at the end; the records before it are still good. */
+    @Test
+    void aTornLastRecordIsDroppedAndTheRestKept() throws IOException {
+        PersistentCache before = start();
+        before.put("kept", "whole");
+        before.put("torn", "cut short");
+        before.close();
+        Path file = directory.resolve("catalogLookup.cache");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        PersistentCache after = start();
+
+        assertThat(after.get("kept", String.class)).isEqualTo("whole");
+        assertThat(after.get("torn")).isNull();
+    }
+
+    @Test
+    void aFileItDidNotWriteIsStartedAfresh() throws IOException {
+        Files.writeString(directory.resolve("catalogLookup.cache"), "not a cache file");
+
+        PersistentCache cache = start();
+
+        assertThat(cache.get("anything")).isNull();
+        cache.put("9780061120084", "cached");
+        assertThat(start().get("9780061120084", String.class)).isEqualTo("cached");
+    }
+
+    @Test
+    void theManagerPutsOnlyTheNamedCachesOnDisk() {
+        CacheSettings settings = new CacheSettings(
+                Map.of("catalogLookup", new CacheSettings.Spec(100, TTL, null, null)),
+                new CacheSettings.Persistent(true, directory.toString(), Set.of("catalogLookup")));
+        try (PersistentCaffeineCacheManager manager = new PersistentCaffeineCacheManager(settings, clock)) {
+            manager.registerCustomCache("catalogLookup", Caffeine.newBuilder().build());
+            manager.registerCustomCache("catalogSearch", Caffeine.newBuilder().build());
+
+            assertThat(manager.getCache("catalogLookup")).isInstanceOf(PersistentCache.class);
+            assertThat(manager.getCache("catalogSearch")).isInstanceOf(CaffeineCache.class);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package app.support;
 import app.adapters.output.repositories.AuthorRepository;
 import app.adapters.output.repositories.BookRepository;
 import app.adapters.output.repositories.CustomerRepository;
+import app.adapters.output.repositories.LoanEventOutboxRepository;
 import app.adapters.output.repositories.TransactionRepository;
 import app.adapters.output.repositories.UserRepository;
+import app.adapters.output.search.BookSearchIndex;
+import app.adapters.output.search.CustomerSearchIndex;
 import app.infrastructure.config.database.DatabaseSeeder;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -33,6 +36,9 @@ import org.springframework.test.context.support.AbstractTestExecutionListener;
  *       test's {@code @AfterEach} wiped it.</li>
  *   <li><b>Empty caches.</b> Entries outlive the rows they came from, so a later test could be
  *       answered from data an earlier one deleted.</li>
+ *   <li><b>Search indexes of what is stored.</b> The wipe goes straight to the repositories, past
+ *       the adapters that keep {@link BookSearchIndex} and {@link CustomerSearchIndex} current, so
+ *       both are rebuilt after re-seeding.</li>
  * </ul>
  *
  * <p>The reset is unconditional rather than "only when empty": tests clean up to differing depths -
@@ -65,6 +71,8 @@ public class TestStateResetListener extends AbstractTestExecutionListener {
         wipe(context);
         seeder.run();
         restoreAdministrator(context);
+        context.getBeanProvider(BookSearchIndex.class).ifAvailable(BookSearchIndex::rebuild);
+        context.getBeanProvider(CustomerSearchIndex.class).ifAvailable(CustomerSearchIndex::rebuild);
     }
 
     private static void clearCaches(ApplicationContext context) {
@@ -101,6 +109,7 @@ public class TestStateResetListener extends AbstractTestExecutionListener {
 
     /** Children before parents: a transaction points at a book and a customer. */
     private static void wipe(ApplicationContext context) {
+        deleteAll(context, LoanEventOutboxRepository.class);
         deleteAll(context, TransactionRepository.class);
         deleteAll(context, UserRepository.class);
         deleteAll(context, BookRepository.class);